@@ -0,0 +1,88 @@
+package edu.socialnetwork.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import edu.socialnetwork.domain.enumeration.UnitSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the JSON serialization of a {@link Profile}, with the modules registered by JacksonConfiguration,
+ * with and without its picture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileSerializationBenchmark {
+
+    private static final int PICTURE_SIZE = 256 * 1024;
+
+    private ObjectMapper objectMapper;
+
+    private Profile profile;
+
+    private Profile profileWithPicture;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modules(new JavaTimeModule(), new Jdk8Module(), new Hibernate5Module(), new AfterburnerModule())
+            .build();
+
+        profile = createProfile();
+        byte[] picture = new byte[PICTURE_SIZE];
+        new Random(42).nextBytes(picture);
+        profileWithPicture = createProfile().picture(picture).pictureContentType("image/jpeg");
+    }
+
+    @Benchmark
+    public byte[] withoutPicture() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(profile);
+    }
+
+    @Benchmark
+    public byte[] withPicture() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(profileWithPicture);
+    }
+
+    private static Profile createProfile() {
+        Location location = new Location().latitude(41.3851).longitude(2.1734);
+        location.setId(1L);
+        Gender gender = new Gender();
+        gender.setId(1L);
+        Profile profile = new Profile()
+            .birthDate(LocalDate.of(1990, 1, 1))
+            .height(1.80)
+            .weight(75.0)
+            .unitSystem(UnitSystem.METRIC)
+            .aboutMe("Lorem ipsum dolor sit amet, consectetur adipiscing elit")
+            .displayName("john")
+            .showAge(true)
+            .banned(false)
+            .filterPreferences("{}")
+            .location(location)
+            .gender(gender);
+        profile.setId(1L);
+        return profile;
+    }
+}
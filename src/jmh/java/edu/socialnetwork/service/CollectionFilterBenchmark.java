@@ -0,0 +1,166 @@
+package edu.socialnetwork.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks filtering profiles on their sent invitations, on an H2 database with the tables of the application:
+ * joining the collection, which needs a DISTINCT to return every profile once, against the EXISTS semi-join built
+ * by {@link SemiJoinQueryService}. The plans of both queries are printed during the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionFilterBenchmark {
+
+    private static final int PROFILES = 20_000;
+
+    private static final int INVITATIONS_PER_PROFILE = 20;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String JOIN_FILTER = "from profile p left outer join invitation i on i.sent_id = p.id where %s";
+
+    private static final String EXISTS_FILTER = "from profile p where exists (select i.id from invitation i where i.sent_id = p.id and %s)";
+
+    /**
+     * The invitation id filter: "specified" matches the profiles having sent any invitation, "in" the senders of
+     * a few invitations.
+     */
+    @Param({"specified", "in"})
+    private String filter;
+
+    private Connection connection;
+
+    private PreparedStatement joinPage;
+
+    private PreparedStatement existsPage;
+
+    private PreparedStatement joinCount;
+
+    private PreparedStatement existsCount;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:collection-filter-benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=0");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table profile (id bigint primary key, display_name varchar(255))");
+            statement.execute("create table invitation (id bigint primary key, sent_id bigint, received_id bigint)");
+            statement.execute("create index idx_invitation_sent_id on invitation (sent_id)");
+            statement.execute("create index idx_invitation_received_id on invitation (received_id)");
+        }
+        Random random = new Random(42);
+        try (PreparedStatement profile = connection.prepareStatement("insert into profile values (?, ?)");
+             PreparedStatement invitation = connection.prepareStatement("insert into invitation values (?, ?, ?)")) {
+            long invitationId = 1;
+            for (long id = 1; id <= PROFILES; id++) {
+                profile.setLong(1, id);
+                profile.setString(2, "Profile " + id);
+                profile.addBatch();
+                // One profile in four never sends an invitation
+                int invitations = id % 4 == 0 ? 0 : random.nextInt(2 * INVITATIONS_PER_PROFILE);
+                for (int i = 0; i < invitations; i++) {
+                    invitation.setLong(1, invitationId++);
+                    invitation.setLong(2, id);
+                    invitation.setLong(3, 1 + random.nextInt(PROFILES));
+                    invitation.addBatch();
+                }
+                if (id % 1000 == 0) {
+                    profile.executeBatch();
+                    invitation.executeBatch();
+                }
+            }
+            profile.executeBatch();
+            invitation.executeBatch();
+        }
+
+        String condition = "specified".equals(filter) ? "i.id is not null" : "i.id in (" + sampleIds(random) + ")";
+        String join = String.format(JOIN_FILTER, condition);
+        String exists = String.format(EXISTS_FILTER, condition);
+        String page = " order by p.id limit " + PAGE_SIZE + " offset " + (PROFILES / 2);
+        joinPage = prepare("select distinct p.id, p.display_name " + join + page);
+        existsPage = prepare("select p.id, p.display_name " + exists + page);
+        joinCount = prepare("select count(distinct p.id) " + join);
+        existsCount = prepare("select count(p.id) " + exists);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long joinPage() throws SQLException {
+        return sumIds(joinPage);
+    }
+
+    @Benchmark
+    public long existsPage() throws SQLException {
+        return sumIds(existsPage);
+    }
+
+    @Benchmark
+    public long joinCount() throws SQLException {
+        return sumIds(joinCount);
+    }
+
+    @Benchmark
+    public long existsCount() throws SQLException {
+        return sumIds(existsCount);
+    }
+
+    private String sampleIds(Random random) {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) {
+                ids.append(", ");
+            }
+            ids.append(1 + random.nextInt(PROFILES * INVITATIONS_PER_PROFILE / 2));
+        }
+        return ids.toString();
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("explain " + sql)) {
+            plan.next();
+            System.out.println(System.lineSeparator() + plan.getString(1));
+        }
+        return connection.prepareStatement(sql);
+    }
+
+    private static long sumIds(PreparedStatement statement) throws SQLException {
+        long sum = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                sum += resultSet.getLong(1);
+            }
+        }
+        return sum;
+    }
+}
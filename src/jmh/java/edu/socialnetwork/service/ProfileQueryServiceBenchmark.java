@@ -0,0 +1,104 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.domain.enumeration.UnitSystem;
+import edu.socialnetwork.service.dto.ProfileCriteria;
+import io.github.jhipster.service.filter.BooleanFilter;
+import io.github.jhipster.service.filter.DoubleFilter;
+import io.github.jhipster.service.filter.LocalDateFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the conversion of a {@link ProfileCriteria} using every filter to a {@link Specification}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileQueryServiceBenchmark {
+
+    private ProfileQueryService profileQueryService;
+
+    private ProfileCriteria criteria;
+
+    @Setup
+    public void setup() {
+        profileQueryService = new ProfileQueryService(null, null, new ApplicationProperties(), null, null);
+
+        criteria = new ProfileCriteria();
+        criteria.setId(longFilter(1L));
+        LocalDateFilter birthDate = new LocalDateFilter();
+        birthDate.setGreaterOrEqualThan(LocalDate.of(1980, 1, 1));
+        birthDate.setLessThan(LocalDate.of(2000, 1, 1));
+        criteria.setBirthDate(birthDate);
+        DoubleFilter height = new DoubleFilter();
+        height.setGreaterThan(1.5);
+        criteria.setHeight(height);
+        DoubleFilter weight = new DoubleFilter();
+        weight.setLessThan(90.0);
+        criteria.setWeight(weight);
+        ProfileCriteria.UnitSystemFilter unitSystem = new ProfileCriteria.UnitSystemFilter();
+        unitSystem.setEquals(UnitSystem.METRIC);
+        criteria.setUnitSystem(unitSystem);
+        criteria.setAboutMe(stringFilter("music"));
+        criteria.setDisplayName(stringFilter("john"));
+        criteria.setShowAge(booleanFilter(true));
+        criteria.setBanned(booleanFilter(false));
+        criteria.setFilterPreferences(stringFilter("{}"));
+        criteria.setLocationId(longFilter(1L));
+        criteria.setUserId(longFilter(1L));
+        criteria.setRelationshipId(longFilter(1L));
+        criteria.setGenderId(longFilter(1L));
+        criteria.setEthnicityId(longFilter(1L));
+        criteria.setSentInvitationId(longFilter(1L));
+        criteria.setReceivedInvitationId(longFilter(1L));
+        criteria.setSentBlockId(longFilter(1L));
+        criteria.setReceivedBlockId(longFilter(1L));
+        criteria.setSentMessageId(longFilter(1L));
+        criteria.setSentDirectMessageId(longFilter(1L));
+        criteria.setReceivedDirectMessageId(longFilter(1L));
+        criteria.setAdminChatroomId(longFilter(1L));
+        criteria.setJoinedChatroomId(longFilter(1L));
+    }
+
+    @Benchmark
+    public Specification<Profile> createSpecification() {
+        return profileQueryService.createSpecification(criteria);
+    }
+
+    private static LongFilter longFilter(Long value) {
+        LongFilter filter = new LongFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+
+    private static StringFilter stringFilter(String value) {
+        StringFilter filter = new StringFilter();
+        filter.setContains(value);
+        return filter;
+    }
+
+    private static BooleanFilter booleanFilter(Boolean value) {
+        BooleanFilter filter = new BooleanFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+}
@@ -0,0 +1,66 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.service.dto.ProfileSuggestionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the typeahead suggestions of {@link ProfileSuggestService} for prefixes of growing length, as
+ * they are sent on every keystroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileSuggestServiceBenchmark {
+
+    private static final String[] SYLLABLES = {"an", "na", "jo", "se", "ma", "ri", "lu", "ca", "pe", "dro", "el", "sa"};
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    @Param({"m", "mar", "jose ma"})
+    private String prefix;
+
+    private ProfileSuggestService profileSuggestService;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        profileSuggestService = new ProfileSuggestService(null);
+        for (long id = 1; id <= size; id++) {
+            Profile profile = new Profile().displayName(name(random) + " " + name(random));
+            profile.setId(id);
+            profileSuggestService.update(profile);
+        }
+    }
+
+    @Benchmark
+    public List<ProfileSuggestionDTO> suggest() {
+        return profileSuggestService.suggest(prefix, 10);
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0, syllables = 2 + random.nextInt(2); i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package edu.socialnetwork.service.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks filtering profiles by radius: the distance computation formerly done by ProfileResource, through a
+ * stream of one object per profile, against the {@link GeoPointArray} kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoDistanceBenchmark {
+
+    private static final double LATITUDE = 41.3851;
+
+    private static final double LONGITUDE = 2.1734;
+
+    private static final double DISTANCE = 50;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<LegacyPoint> legacyPoints;
+
+    private GeoPointArray points;
+
+    private GeoHits hits;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        GeoPointArray.Builder builder = new GeoPointArray.Builder();
+        legacyPoints = IntStream.range(0, size).mapToObj(i -> {
+            double latitude = 36 + random.nextDouble() * 8;
+            double longitude = -9 + random.nextDouble() * 12;
+            builder.add(i, latitude, longitude);
+            return new LegacyPoint(i, latitude, longitude);
+        }).collect(Collectors.toList());
+        points = builder.build();
+        hits = new GeoHits(size);
+    }
+
+    @Benchmark
+    public List<LegacyPoint> legacyStream() {
+        return legacyPoints.stream()
+            .map(point -> new LegacyPoint(point.id, point.latitude, point.longitude,
+                legacyDistance(LATITUDE, LONGITUDE, point.latitude, point.longitude, "K")))
+            .filter(point -> point.distance <= DISTANCE)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int geoPointArray() {
+        hits.clear();
+        points.collectWithin(new GeoPointArray.Query(LATITUDE, LONGITUDE, DISTANCE), hits);
+        return hits.size();
+    }
+
+    /**
+     * The distance formula as it was implemented in ProfileResource.
+     */
+    private static double legacyDistance(double lat1, double lon1, double lat2, double lon2, String unit) {
+        if ((lat1 == lat2) && (lon1 == lon2)) {
+            return 0;
+        } else {
+            double theta = lon1 - lon2;
+            double dist = Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2)) +
+                          Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(theta));
+            dist = Math.acos(dist);
+            dist = Math.toDegrees(dist);
+            dist = dist * 60 * 1.1515;
+            if (unit == "K") {
+                dist = dist * 1.609344;
+            } else if (unit == "N") {
+                dist = dist * 0.8684;
+            }
+            return (dist);
+        }
+    }
+
+    public static final class LegacyPoint {
+
+        private final long id;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        private final double distance;
+
+        LegacyPoint(long id, double latitude, double longitude) {
+            this(id, latitude, longitude, 0);
+        }
+
+        LegacyPoint(long id, double latitude, double longitude, double distance) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.distance = distance;
+        }
+    }
+}
@@ -11,4 +11,299 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Proximity proximity = new Proximity();
+
+    private final Media media = new Media();
+
+    private final ProfileFilter profileFilter = new ProfileFilter();
+
+    private final Criteria criteria = new Criteria();
+
+    private final FriendGraph friendGraph = new FriendGraph();
+
+    public Proximity getProximity() {
+        return proximity;
+    }
+
+    public Media getMedia() {
+        return media;
+    }
+
+    public ProfileFilter getProfileFilter() {
+        return profileFilter;
+    }
+
+    public Criteria getCriteria() {
+        return criteria;
+    }
+
+    public FriendGraph getFriendGraph() {
+        return friendGraph;
+    }
+
+    public static class Proximity {
+
+        /**
+         * Where proximity queries are answered: the in-memory geo index, or the database.
+         */
+        private Strategy strategy = Strategy.MEMORY;
+
+        private final Cache cache = new Cache();
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public enum Strategy {
+            MEMORY, DATABASE
+        }
+
+        public static class Cache {
+
+            /**
+             * Maximum number of candidate points held by the cached queries, each entry counting one more, 0 to
+             * disable the cache.
+             */
+            private int maxCandidates = 500000;
+
+            /**
+             * Queries with a larger radius are not cached, in kilometers.
+             */
+            private double maxRadius = 50;
+
+            /**
+             * Query centers are rounded to a multiple of this step, in degrees.
+             */
+            private double coordinateStep = 0.01;
+
+            /**
+             * Query radii are rounded up to a multiple of this step, in kilometers.
+             */
+            private double radiusStep = 1;
+
+            public int getMaxCandidates() {
+                return maxCandidates;
+            }
+
+            public void setMaxCandidates(int maxCandidates) {
+                this.maxCandidates = maxCandidates;
+            }
+
+            public double getMaxRadius() {
+                return maxRadius;
+            }
+
+            public void setMaxRadius(double maxRadius) {
+                this.maxRadius = maxRadius;
+            }
+
+            public double getCoordinateStep() {
+                return coordinateStep;
+            }
+
+            public void setCoordinateStep(double coordinateStep) {
+                this.coordinateStep = coordinateStep;
+            }
+
+            public double getRadiusStep() {
+                return radiusStep;
+            }
+
+            public void setRadiusStep(double radiusStep) {
+                this.radiusStep = radiusStep;
+            }
+        }
+    }
+
+    public static class Media {
+
+        /**
+         * Directory of the files of the media store.
+         */
+        private String directory = "media";
+
+        /**
+         * Maximum size of an uploaded file, in bytes.
+         */
+        private long maxSize = 10 * 1024 * 1024;
+
+        private final Thumbnail thumbnail = new Thumbnail();
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Thumbnail getThumbnail() {
+            return thumbnail;
+        }
+
+        public static class Thumbnail {
+
+            /**
+             * Number of threads generating thumbnails.
+             */
+            private int poolSize = 2;
+
+            /**
+             * Maximum number of pictures waiting for their thumbnails: beyond it, they are generated on demand.
+             */
+            private int queueCapacity = 1000;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+    }
+
+    public static class ProfileFilter {
+
+        /**
+         * Where profile criteria on low-cardinality attributes are evaluated: the database, or the in-memory bitmap
+         * index, which misses the profiles not saved through the ProfileService.
+         */
+        private Strategy strategy = Strategy.DATABASE;
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public enum Strategy {
+            MEMORY, DATABASE
+        }
+    }
+
+    public static class Criteria {
+
+        /**
+         * How criteria filter entities on the elements of their collections: with an EXISTS subquery, or by
+         * joining the collection.
+         */
+        private CollectionFilter collectionFilter = CollectionFilter.EXISTS;
+
+        private final CountCache countCache = new CountCache();
+
+        public CollectionFilter getCollectionFilter() {
+            return collectionFilter;
+        }
+
+        public void setCollectionFilter(CollectionFilter collectionFilter) {
+            this.collectionFilter = collectionFilter;
+        }
+
+        public CountCache getCountCache() {
+            return countCache;
+        }
+
+        public enum CollectionFilter {
+            EXISTS, JOIN
+        }
+
+        public static class CountCache {
+
+            /**
+             * Maximum number of cached counts, 0 to disable the cache.
+             */
+            private int maxEntries = 1000;
+
+            /**
+             * How long an approximate count is served before it is counted again, in seconds.
+             */
+            private int timeToLiveSeconds = 30;
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class FriendGraph {
+
+        /**
+         * Maximum number of profiles a degrees of separation query visits before giving up.
+         */
+        private int distanceNodeBudget = 100000;
+
+        /**
+         * File the graph is saved to and loaded from at startup, none if empty.
+         */
+        private String snapshotFile;
+
+        /**
+         * Interval between two rebuilds of the graph from the database, in hours. A snapshot coming from an older
+         * rebuild is ignored at startup, as the invitations deleted since it are only seen by a rebuild.
+         */
+        private int rebuildIntervalHours = 24;
+
+        public int getDistanceNodeBudget() {
+            return distanceNodeBudget;
+        }
+
+        public void setDistanceNodeBudget(int distanceNodeBudget) {
+            this.distanceNodeBudget = distanceNodeBudget;
+        }
+
+        public String getSnapshotFile() {
+            return snapshotFile;
+        }
+
+        public void setSnapshotFile(String snapshotFile) {
+            this.snapshotFile = snapshotFile;
+        }
+
+        public int getRebuildIntervalHours() {
+            return rebuildIntervalHours;
+        }
+
+        public void setRebuildIntervalHours(int rebuildIntervalHours) {
+            this.rebuildIntervalHours = rebuildIntervalHours;
+        }
+    }
 }
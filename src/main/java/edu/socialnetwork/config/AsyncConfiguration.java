@@ -16,6 +16,7 @@ import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -26,8 +27,11 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
 
     private final JHipsterProperties jHipsterProperties;
 
-    public AsyncConfiguration(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -42,6 +46,25 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor generating thumbnails, kept apart so that a burst of uploads does not delay the other tasks.
+     * <p>
+     * When its queue is full, tasks are rejected and pictures left without thumbnails: they are generated when first
+     * requested.
+     */
+    @Bean(name = "thumbnailExecutor")
+    public Executor thumbnailExecutor() {
+        log.debug("Creating Thumbnail Task Executor");
+        ApplicationProperties.Media.Thumbnail thumbnail = applicationProperties.getMedia().getThumbnail();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(thumbnail.getPoolSize());
+        executor.setMaxPoolSize(thumbnail.getPoolSize());
+        executor.setQueueCapacity(thumbnail.getQueueCapacity());
+        executor.setThreadNamePrefix("social-network-backend-Thumbnail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -11,6 +11,9 @@ public final class Constants {
     public static final String SYSTEM_ACCOUNT = "system";
     public static final String ANONYMOUS_USER = "anonymoususer";
     public static final String DEFAULT_LANGUAGE = "en";
+
+    // Size of the thumbnails shown in lists, in pixels
+    public static final int LIST_THUMBNAIL_SIZE = 64;
     
     private Constants() {
     }
@@ -109,6 +109,9 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/api/**").authenticated()
             .antMatchers("/websocket/tracker").hasAuthority(AuthoritiesConstants.ADMIN)
             .antMatchers("/websocket/**").permitAll()
+            // Read by <img> tags, which cannot send the token: a file is only reachable by the SHA-256 hash of its content
+            .antMatchers(HttpMethod.GET, "/media/**").permitAll()
+            .antMatchers("/media/**").denyAll()
             .antMatchers("/management/health").permitAll()
             .antMatchers("/management/info").permitAll()
             .antMatchers("/management/**").hasAuthority(AuthoritiesConstants.ADMIN)
@@ -1,7 +1,8 @@
 package edu.socialnetwork.domain;
 
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import edu.socialnetwork.service.dto.ProfileSummarySerializer;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -31,11 +32,11 @@ public class Block implements Serializable {
     private ZonedDateTime createdDate;
 
     @ManyToOne
-    @JsonIgnoreProperties("sentBlocks")
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile sent;
 
     @ManyToOne
-    @JsonIgnoreProperties("receivedBlocks")
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile received;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
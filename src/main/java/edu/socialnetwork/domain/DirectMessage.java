@@ -1,7 +1,9 @@
 package edu.socialnetwork.domain;
 
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import edu.socialnetwork.service.dto.ProfileSummarySerializer;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -31,22 +33,32 @@ public class DirectMessage implements Serializable {
     @Column(name = "message")
     private String message;
 
+    /**
+     * When the recipient read the message, null while unread.
+     */
+    @Column(name = "read_date")
+    private ZonedDateTime readDate;
+
     @Column(name = "url")
     private String url;
 
-    @Lob
-    @Column(name = "picture")
-    private byte[] picture;
+    /**
+     * The content of a new picture, stored in the media store when the entity is saved.
+     */
+    private transient byte[] picture;
+
+    @Column(name = "picture_hash", length = 64)
+    private String pictureHash;
 
     @Column(name = "picture_content_type")
     private String pictureContentType;
 
     @ManyToOne
-    @JsonIgnoreProperties("sentDirectMessages")
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile sender;
 
     @ManyToOne
-    @JsonIgnoreProperties("receivedDirectMessages")
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile recipient;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
@@ -71,6 +83,19 @@ public class DirectMessage implements Serializable {
         this.createdDate = createdDate;
     }
 
+    public ZonedDateTime getReadDate() {
+        return readDate;
+    }
+
+    public DirectMessage readDate(ZonedDateTime readDate) {
+        this.readDate = readDate;
+        return this;
+    }
+
+    public void setReadDate(ZonedDateTime readDate) {
+        this.readDate = readDate;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -97,6 +122,7 @@ public class DirectMessage implements Serializable {
         this.url = url;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public byte[] getPicture() {
         return picture;
     }
@@ -110,6 +136,19 @@ public class DirectMessage implements Serializable {
         this.picture = picture;
     }
 
+    public String getPictureHash() {
+        return pictureHash;
+    }
+
+    public DirectMessage pictureHash(String pictureHash) {
+        this.pictureHash = pictureHash;
+        return this;
+    }
+
+    public void setPictureHash(String pictureHash) {
+        this.pictureHash = pictureHash;
+    }
+
     public String getPictureContentType() {
         return pictureContentType;
     }
@@ -176,8 +215,9 @@ public class DirectMessage implements Serializable {
             "id=" + getId() +
             ", createdDate='" + getCreatedDate() + "'" +
             ", message='" + getMessage() + "'" +
+            ", readDate='" + getReadDate() + "'" +
             ", url='" + getUrl() + "'" +
-            ", picture='" + getPicture() + "'" +
+            ", pictureHash='" + getPictureHash() + "'" +
             ", pictureContentType='" + getPictureContentType() + "'" +
             "}";
     }
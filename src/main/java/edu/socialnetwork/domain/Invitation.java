@@ -2,7 +2,8 @@ package edu.socialnetwork.domain;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import edu.socialnetwork.service.dto.ProfileSummarySerializer;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -10,6 +11,7 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 
@@ -35,53 +37,29 @@ public class Invitation implements Serializable {
     private Boolean accepted;
 
     @ManyToOne
-    @JsonIgnoreProperties(value = {
-        "birthDate",
-        "sentInvitations",
-        "height",
-        "weight",
-        "unitSystem",
-        "aboutMe",
-        "showAge",
-        "banned",
-        "filterPreferences",
-        "location",
-        "user",
-        "gender",
-        "ethnicity",
-        "relationship",
-        "receivedInvitations",
-        "sentBlocks",
-        "receivedBlocks",
-        "sentMessages",
-        "adminChatrooms"
-    })
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile sent;
 
     @ManyToOne
-    @JsonIgnoreProperties(value = {
-        "birthDate",
-        "sentInvitations",
-        "height",
-        "weight",
-        "unitSystem",
-        "aboutMe",
-        "showAge",
-        "banned",
-        "filterPreferences",
-        "location",
-        "user",
-        "gender",
-        "ethnicity",
-        "relationship",
-        "receivedInvitations",
-        "sentBlocks",
-        "receivedBlocks",
-        "sentMessages",
-        "adminChatrooms"
-    })
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile received;
 
+    /**
+     * The smaller of the sender and receiver ids, which with {@link #highProfileId} identifies the pair of profiles
+     * whatever the direction of the invitation.
+     */
+    @JsonIgnore
+    @Column(name = "low_profile_id")
+    private Long lowProfileId;
+
+    @JsonIgnore
+    @Column(name = "high_profile_id")
+    private Long highProfileId;
+
+    @JsonIgnore
+    @Column(name = "last_modified_date")
+    private Instant lastModifiedDate;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
     public Long getId() {
         return id;
@@ -142,6 +120,34 @@ public class Invitation implements Serializable {
     public void setReceived(Profile profile) {
         this.received = profile;
     }
+
+    public Long getLowProfileId() {
+        return lowProfileId;
+    }
+
+    public Long getHighProfileId() {
+        return highProfileId;
+    }
+
+    public Instant getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    /**
+     * Stamp the modification date and compute the pair of profiles, before every insert and update.
+     */
+    @PrePersist
+    @PreUpdate
+    void preSave() {
+        lastModifiedDate = Instant.now();
+        if (sent != null && received != null && sent.getId() != null && received.getId() != null) {
+            lowProfileId = Math.min(sent.getId(), received.getId());
+            highProfileId = Math.max(sent.getId(), received.getId());
+        } else {
+            lowProfileId = null;
+            highProfileId = null;
+        }
+    }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here, do not remove
 
     @Override
@@ -0,0 +1,100 @@
+package edu.socialnetwork.domain;
+
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A JobLock: held by the instance running a scheduled job, so that the other instances skip it.
+ */
+@Entity
+@Table(name = "job_lock")
+public class JobLock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Size(max = 50)
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @NotNull
+    @Column(name = "locked_until", nullable = false)
+    private Instant lockedUntil;
+
+    @Size(max = 36)
+    @Column(name = "locked_by", length = 36)
+    private String lockedBy;
+
+    public String getName() {
+        return name;
+    }
+
+    public JobLock name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public JobLock lockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+        return this;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public JobLock lockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+        return this;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JobLock jobLock = (JobLock) o;
+        if (jobLock.getName() == null || getName() == null) {
+            return false;
+        }
+        return Objects.equals(getName(), jobLock.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getName());
+    }
+
+    @Override
+    public String toString() {
+        return "JobLock{" +
+            "name='" + getName() + "'" +
+            ", lockedUntil='" + getLockedUntil() + "'" +
+            ", lockedBy='" + getLockedBy() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,136 @@
+package edu.socialnetwork.domain;
+
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A MediaObject: the metadata of a file of the media store, identified by the SHA-256 hash of its content.
+ */
+@Entity
+@Table(name = "media_object")
+public class MediaObject implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Size(min = 64, max = 64)
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @NotNull
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @NotNull
+    @Column(name = "jhi_size", nullable = false)
+    private Long size;
+
+    @NotNull
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public String getHash() {
+        return hash;
+    }
+
+    public MediaObject hash(String hash) {
+        this.hash = hash;
+        return this;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public MediaObject contentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public MediaObject size(Long size) {
+        this.size = size;
+        return this;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Integer getReferenceCount() {
+        return referenceCount;
+    }
+
+    public MediaObject referenceCount(Integer referenceCount) {
+        this.referenceCount = referenceCount;
+        return this;
+    }
+
+    public void setReferenceCount(Integer referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public MediaObject createdDate(Instant createdDate) {
+        this.createdDate = createdDate;
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MediaObject mediaObject = (MediaObject) o;
+        if (mediaObject.getHash() == null || getHash() == null) {
+            return false;
+        }
+        return Objects.equals(getHash(), mediaObject.getHash());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getHash());
+    }
+
+    @Override
+    public String toString() {
+        return "MediaObject{" +
+            "hash='" + getHash() + "'" +
+            ", contentType='" + getContentType() + "'" +
+            ", size=" + getSize() +
+            ", referenceCount=" + getReferenceCount() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
@@ -2,6 +2,9 @@ package edu.socialnetwork.domain;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import edu.socialnetwork.service.dto.ProfileSummarySerializer;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -36,9 +39,13 @@ public class Message implements Serializable {
     @Column(name = "url")
     private String url;
 
-    @Lob
-    @Column(name = "picture")
-    private byte[] picture;
+    /**
+     * The content of a new picture, stored in the media store when the entity is saved.
+     */
+    private transient byte[] picture;
+
+    @Column(name = "picture_hash", length = 64)
+    private String pictureHash;
 
     @Column(name = "picture_content_type")
     private String pictureContentType;
@@ -48,7 +55,7 @@ public class Message implements Serializable {
     private Location location;
 
     @ManyToOne
-    @JsonIgnoreProperties("sentMessages")
+    @JsonSerialize(using = ProfileSummarySerializer.class)
     private Profile sender;
 
     @ManyToOne
@@ -103,6 +110,7 @@ public class Message implements Serializable {
         this.url = url;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public byte[] getPicture() {
         return picture;
     }
@@ -116,6 +124,19 @@ public class Message implements Serializable {
         this.picture = picture;
     }
 
+    public String getPictureHash() {
+        return pictureHash;
+    }
+
+    public Message pictureHash(String pictureHash) {
+        this.pictureHash = pictureHash;
+        return this;
+    }
+
+    public void setPictureHash(String pictureHash) {
+        this.pictureHash = pictureHash;
+    }
+
     public String getPictureContentType() {
         return pictureContentType;
     }
@@ -196,7 +217,7 @@ public class Message implements Serializable {
             ", createdDate='" + getCreatedDate() + "'" +
             ", message='" + getMessage() + "'" +
             ", url='" + getUrl() + "'" +
-            ", picture='" + getPicture() + "'" +
+            ", pictureHash='" + getPictureHash() + "'" +
             ", pictureContentType='" + getPictureContentType() + "'" +
             "}";
     }
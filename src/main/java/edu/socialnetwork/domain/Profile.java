@@ -3,6 +3,7 @@ package edu.socialnetwork.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import edu.socialnetwork.domain.enumeration.UnitSystem;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
@@ -32,9 +33,13 @@ public class Profile implements Serializable {
     @Column(name = "birth_date")
     private LocalDate birthDate;
 
-    @Lob
-    @Column(name = "picture")
-    private byte[] picture;
+    /**
+     * The content of a new picture, stored in the media store when the entity is saved.
+     */
+    private transient byte[] picture;
+
+    @Column(name = "picture_hash", length = 64)
+    private String pictureHash;
 
     @Column(name = "picture_content_type")
     private String pictureContentType;
@@ -136,6 +141,7 @@ public class Profile implements Serializable {
         this.birthDate = birthDate;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public byte[] getPicture() {
         return picture;
     }
@@ -149,6 +155,19 @@ public class Profile implements Serializable {
         this.picture = picture;
     }
 
+    public String getPictureHash() {
+        return pictureHash;
+    }
+
+    public Profile pictureHash(String pictureHash) {
+        this.pictureHash = pictureHash;
+        return this;
+    }
+
+    public void setPictureHash(String pictureHash) {
+        this.pictureHash = pictureHash;
+    }
+
     public String getPictureContentType() {
         return pictureContentType;
     }
@@ -582,7 +601,7 @@ public class Profile implements Serializable {
         return "Profile{" +
             "id=" + getId() +
             ", birthDate='" + getBirthDate() + "'" +
-            ", picture='" + getPicture() + "'" +
+            ", pictureHash='" + getPictureHash() + "'" +
             ", pictureContentType='" + getPictureContentType() + "'" +
             ", height=" + getHeight() +
             ", weight=" + getWeight() +
@@ -0,0 +1,137 @@
+package edu.socialnetwork.domain;
+
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A ProfileCounter: the badge counts of a profile, kept up to date as its invitations and direct messages change.
+ */
+@Entity
+@Table(name = "profile_counter")
+public class ProfileCounter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "profile_id")
+    private Long profileId;
+
+    @NotNull
+    @Column(name = "friend_count", nullable = false)
+    private Long friendCount;
+
+    @NotNull
+    @Column(name = "pending_invitation_count", nullable = false)
+    private Long pendingInvitationCount;
+
+    @NotNull
+    @Column(name = "unread_direct_message_count", nullable = false)
+    private Long unreadDirectMessageCount;
+
+    /**
+     * Incremented by every repair recounting the counters, so that the changes counted before it are not added again.
+     */
+    @NotNull
+    @Column(name = "repair_version", nullable = false)
+    private Long repairVersion = 0L;
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public ProfileCounter profileId(Long profileId) {
+        this.profileId = profileId;
+        return this;
+    }
+
+    public void setProfileId(Long profileId) {
+        this.profileId = profileId;
+    }
+
+    public Long getFriendCount() {
+        return friendCount;
+    }
+
+    public ProfileCounter friendCount(Long friendCount) {
+        this.friendCount = friendCount;
+        return this;
+    }
+
+    public void setFriendCount(Long friendCount) {
+        this.friendCount = friendCount;
+    }
+
+    public Long getPendingInvitationCount() {
+        return pendingInvitationCount;
+    }
+
+    public ProfileCounter pendingInvitationCount(Long pendingInvitationCount) {
+        this.pendingInvitationCount = pendingInvitationCount;
+        return this;
+    }
+
+    public void setPendingInvitationCount(Long pendingInvitationCount) {
+        this.pendingInvitationCount = pendingInvitationCount;
+    }
+
+    public Long getUnreadDirectMessageCount() {
+        return unreadDirectMessageCount;
+    }
+
+    public ProfileCounter unreadDirectMessageCount(Long unreadDirectMessageCount) {
+        this.unreadDirectMessageCount = unreadDirectMessageCount;
+        return this;
+    }
+
+    public void setUnreadDirectMessageCount(Long unreadDirectMessageCount) {
+        this.unreadDirectMessageCount = unreadDirectMessageCount;
+    }
+
+    public Long getRepairVersion() {
+        return repairVersion;
+    }
+
+    public ProfileCounter repairVersion(Long repairVersion) {
+        this.repairVersion = repairVersion;
+        return this;
+    }
+
+    public void setRepairVersion(Long repairVersion) {
+        this.repairVersion = repairVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ProfileCounter profileCounter = (ProfileCounter) o;
+        if (profileCounter.getProfileId() == null || getProfileId() == null) {
+            return false;
+        }
+        return Objects.equals(getProfileId(), profileCounter.getProfileId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getProfileId());
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileCounter{" +
+            "profileId=" + getProfileId() +
+            ", friendCount=" + getFriendCount() +
+            ", pendingInvitationCount=" + getPendingInvitationCount() +
+            ", unreadDirectMessageCount=" + getUnreadDirectMessageCount() +
+            ", repairVersion=" + getRepairVersion() +
+            "}";
+    }
+}
@@ -2,8 +2,11 @@ package edu.socialnetwork.repository;
 
 import edu.socialnetwork.domain.Block;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 /**
  * Spring Data  repository for the Block entity.
@@ -12,4 +15,10 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface BlockRepository extends JpaRepository<Block, Long>, JpaSpecificationExecutor<Block> {
 
+    /**
+     * @return the ids of the blocking and blocked profiles of every block involving a profile
+     */
+    @Query("SELECT block.sent.id, block.received.id FROM Block block " +
+        "WHERE block.sent.id = :profileId OR block.received.id = :profileId")
+    List<Object[]> findProfileIdsByProfileId(@Param("profileId") Long profileId);
 }
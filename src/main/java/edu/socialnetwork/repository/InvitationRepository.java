@@ -2,15 +2,16 @@ package edu.socialnetwork.repository;
 
 import edu.socialnetwork.domain.Invitation;
 import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
-
 /**
  * Spring Data  repository for the Invitation entity.
  */
@@ -29,4 +30,47 @@ public interface InvitationRepository extends JpaRepository<Invitation, Long>, J
     @Query("SELECT invitation FROM Invitation invitation WHERE invitation.accepted=true AND " +
         "(invitation.received=:user OR invitation.sent=:user) ")
     List<Invitation> findAcceptedInvitations(@Param("user") Profile profile);
+
+    /**
+     * Get the summaries of the friends of a profile, in a single statement: the other side of each accepted
+     * invitation is picked with a CASE and joined with its gender and relationship.
+     *
+     * @param profileId the id of the profile
+     * @param pageable the pagination information, whose sort applies to the invitations
+     * @return the page of friend summaries
+     */
+    @Query(value = "SELECT new edu.socialnetwork.service.dto.ProfileSummaryDTO(profile.id, profile.displayName, " +
+        "profile.birthDate, profile.showAge, gender.type, relationship.status, profile.pictureHash) " +
+        "FROM Invitation invitation JOIN Profile profile ON profile.id = " +
+        "CASE WHEN invitation.sent.id = :profileId THEN invitation.received.id ELSE invitation.sent.id END " +
+        "LEFT JOIN profile.gender gender LEFT JOIN profile.relationship relationship " +
+        "WHERE invitation.accepted=true AND (invitation.sent.id = :profileId OR invitation.received.id = :profileId)",
+        countQuery = "SELECT count(invitation) FROM Invitation invitation WHERE invitation.accepted=true AND " +
+            "(invitation.sent.id = :profileId OR invitation.received.id = :profileId)")
+    Page<ProfileSummaryDTO> findFriendSummaries(@Param("profileId") Long profileId, Pageable pageable);
+
+    /**
+     * @return the ids of the sender and receiver of every accepted invitation
+     */
+    @Query("SELECT invitation.sent.id, invitation.received.id FROM Invitation invitation " +
+        "WHERE invitation.accepted=true AND invitation.sent IS NOT NULL AND invitation.received IS NOT NULL")
+    List<Object[]> findAllFriendships();
+
+    /**
+     * @param since the earliest modification date of the invitations to get
+     * @return the smaller and greater ids of the pair of profiles, and the state, of every invitation modified since
+     * this date
+     */
+    @Query("SELECT invitation.lowProfileId, invitation.highProfileId, invitation.accepted FROM Invitation invitation " +
+        "WHERE invitation.lastModifiedDate >= :since AND invitation.lowProfileId IS NOT NULL")
+    List<Object[]> findProfilePairsModifiedSince(@Param("since") Instant since);
+
+    /**
+     * @param lowProfileId the smaller id of the pair of profiles
+     * @param highProfileId the greater id of the pair of profiles
+     * @return whether there is an invitation between the profiles, in either direction
+     */
+    boolean existsByLowProfileIdAndHighProfileId(Long lowProfileId, Long highProfileId);
+
+    boolean existsByLowProfileIdAndHighProfileIdAndAcceptedIsTrue(Long lowProfileId, Long highProfileId);
 }
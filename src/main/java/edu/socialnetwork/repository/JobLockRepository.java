@@ -0,0 +1,40 @@
+package edu.socialnetwork.repository;
+
+import edu.socialnetwork.domain.JobLock;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+
+/**
+ * Spring Data  repository for the JobLock entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    /**
+     * Take the lock of a job, unless another owner holds it, in a single conditional update.
+     *
+     * @return 1 if the lock was taken, 0 if it is held
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock jobLock SET jobLock.lockedUntil = :until, jobLock.lockedBy = :owner " +
+        "WHERE jobLock.name = :name AND jobLock.lockedUntil <= :now")
+    int lock(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now,
+             @Param("until") Instant until);
+
+    /**
+     * Release the lock of a job, if this owner still holds it.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock jobLock SET jobLock.lockedUntil = :now " +
+        "WHERE jobLock.name = :name AND jobLock.lockedBy = :owner")
+    int unlock(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now);
+
+}
@@ -2,8 +2,11 @@ package edu.socialnetwork.repository;
 
 import edu.socialnetwork.domain.Location;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 /**
  * Spring Data  repository for the Location entity.
@@ -12,4 +15,17 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long>, JpaSpecificationExecutor<Location> {
 
+    /**
+     * Find the id and coordinates of the profiles located inside a latitude/longitude rectangle.
+     * The predicate is served by the (latitude, longitude) index of the location table.
+     */
+    @Query("SELECT profile.id, location.latitude, location.longitude " +
+        "FROM Profile profile JOIN profile.location location " +
+        "WHERE location.latitude BETWEEN :minLatitude AND :maxLatitude " +
+        "AND location.longitude BETWEEN :minLongitude AND :maxLongitude")
+    List<Object[]> findProfileCoordinatesInBox(@Param("minLatitude") double minLatitude,
+                                               @Param("maxLatitude") double maxLatitude,
+                                               @Param("minLongitude") double minLongitude,
+                                               @Param("maxLongitude") double maxLongitude);
+
 }
@@ -0,0 +1,45 @@
+package edu.socialnetwork.repository;
+
+import edu.socialnetwork.domain.MediaObject;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Spring Data  repository for the MediaObject entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+
+    /**
+     * Lock a media object, so that its reference count can be updated.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT mediaObject FROM MediaObject mediaObject WHERE mediaObject.hash = :hash")
+    Optional<MediaObject> findOneForUpdate(@Param("hash") String hash);
+
+    /**
+     * Insert a media object referenced by no entity yet, in its own transaction, so that inserting one which exists
+     * fails alone, without the transaction of the caller.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the media object exists
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO media_object (hash, content_type, jhi_size, reference_count, created_date) " +
+        "VALUES (:hash, :contentType, :size, 0, :createdDate)", nativeQuery = true)
+    int insertUnreferenced(@Param("hash") String hash, @Param("contentType") String contentType, @Param("size") long size,
+                           @Param("createdDate") Instant createdDate);
+
+    List<MediaObject> findAllByReferenceCountAndCreatedDateBefore(int referenceCount, Instant dateTime);
+
+}
@@ -2,8 +2,11 @@ package edu.socialnetwork.repository;
 
 import edu.socialnetwork.domain.Message;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 
 /**
  * Spring Data  repository for the Message entity.
@@ -12,4 +15,7 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long>, JpaSpecificationExecutor<Message> {
 
+    @Query("SELECT message.pictureHash FROM Message message WHERE message.id = :id")
+    Optional<String> findPictureHashById(@Param("id") Long id);
+
 }
@@ -0,0 +1,78 @@
+package edu.socialnetwork.repository;
+
+import edu.socialnetwork.domain.ProfileCounter;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the ProfileCounter entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ProfileCounterRepository extends JpaRepository<ProfileCounter, Long> {
+
+    /**
+     * Lock the counters of a profile in share mode, so that a repair cannot recount them until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT profileCounter FROM ProfileCounter profileCounter WHERE profileCounter.profileId = :profileId")
+    Optional<ProfileCounter> findOneForShare(@Param("profileId") Long profileId);
+
+    /**
+     * Add to the counters of a profile in place, without reading them first, unless they were recounted since the
+     * changes were made.
+     *
+     * @return the number of updated rows, 0 when the profile has no counters yet or another repair version
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProfileCounter profileCounter SET " +
+        "profileCounter.friendCount = profileCounter.friendCount + :friends, " +
+        "profileCounter.pendingInvitationCount = profileCounter.pendingInvitationCount + :pendingInvitations, " +
+        "profileCounter.unreadDirectMessageCount = profileCounter.unreadDirectMessageCount + :unreadDirectMessages " +
+        "WHERE profileCounter.profileId = :profileId AND profileCounter.repairVersion = :repairVersion")
+    int increment(@Param("profileId") Long profileId, @Param("repairVersion") long repairVersion,
+                  @Param("friends") long friends,
+                  @Param("pendingInvitations") long pendingInvitations,
+                  @Param("unreadDirectMessages") long unreadDirectMessages);
+
+    /**
+     * Create the missing counters of the profiles of an id range, counting nothing yet.
+     *
+     * @return the number of created rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO profile_counter " +
+        "(profile_id, friend_count, pending_invitation_count, unread_direct_message_count, repair_version) " +
+        "SELECT profile.id, 0, 0, 0, 0 FROM profile WHERE profile.id > :afterId AND profile.id <= :lastId " +
+        "AND NOT EXISTS (SELECT 1 FROM profile_counter counter WHERE counter.profile_id = profile.id)", nativeQuery = true)
+    int insertMissing(@Param("afterId") long afterId, @Param("lastId") long lastId);
+
+    /**
+     * Recompute the counters of the profiles of an id range from the invitations and direct messages, in the
+     * database, and increment their repair version.
+     *
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE profile_counter SET " +
+        "friend_count = (SELECT count(*) FROM invitation WHERE invitation.accepted = TRUE " +
+        "AND invitation.sent_id = profile_counter.profile_id AND invitation.received_id IS NOT NULL) " +
+        "+ (SELECT count(*) FROM invitation WHERE invitation.accepted = TRUE " +
+        "AND invitation.received_id = profile_counter.profile_id AND invitation.sent_id IS NOT NULL), " +
+        "pending_invitation_count = (SELECT count(*) FROM invitation WHERE invitation.accepted IS NULL " +
+        "AND invitation.received_id = profile_counter.profile_id), " +
+        "unread_direct_message_count = (SELECT count(*) FROM direct_message WHERE direct_message.read_date IS NULL " +
+        "AND direct_message.recipient_id = profile_counter.profile_id), " +
+        "repair_version = repair_version + 1 " +
+        "WHERE profile_counter.profile_id > :afterId AND profile_counter.profile_id <= :lastId", nativeQuery = true)
+    int recount(@Param("afterId") long afterId, @Param("lastId") long lastId);
+
+}
@@ -1,9 +1,14 @@
 package edu.socialnetwork.repository;
 
 import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -16,4 +21,35 @@ public interface ProfileRepository extends JpaRepository<Profile, Long>, JpaSpec
 
     Optional<Profile> findByUserLogin(String login);
 
+    @Query("SELECT profile.id, location.id, location.latitude, location.longitude " +
+        "FROM Profile profile JOIN profile.location location")
+    List<Object[]> findAllProfileCoordinates();
+
+    @Query("SELECT profile.id FROM Profile profile WHERE profile.id > :afterId ORDER BY profile.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT profile.id, profile.displayName, profile.aboutMe FROM Profile profile")
+    List<Object[]> findAllProfileTexts();
+
+    @Query("SELECT profile.id, profile.displayName FROM Profile profile")
+    List<Object[]> findAllProfileDisplayNames();
+
+    @Query("SELECT profile.id, gender.id, ethnicity.id, relationship.id, " +
+        "profile.unitSystem, profile.banned, profile.showAge, profile.birthDate " +
+        "FROM Profile profile LEFT JOIN profile.gender gender LEFT JOIN profile.ethnicity ethnicity " +
+        "LEFT JOIN profile.relationship relationship ORDER BY profile.id")
+    List<Object[]> findAllProfileAttributes();
+
+    @Query("SELECT profile.id FROM Profile profile WHERE profile.banned = true")
+    List<Long> findBannedIds();
+
+    @Query("SELECT new edu.socialnetwork.service.dto.ProfileSummaryDTO(profile.id, profile.displayName, " +
+        "profile.birthDate, profile.showAge, gender.type, relationship.status, profile.pictureHash) " +
+        "FROM Profile profile LEFT JOIN profile.gender gender LEFT JOIN profile.relationship relationship " +
+        "WHERE profile.id IN :ids")
+    List<ProfileSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT profile.pictureHash FROM Profile profile WHERE profile.id = :id")
+    Optional<String> findPictureHashById(@Param("id") Long id);
+
 }
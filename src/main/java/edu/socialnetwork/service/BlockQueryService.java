@@ -2,22 +2,24 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
 import edu.socialnetwork.domain.Block;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.BlockRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.BlockCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Block entities in the database.
@@ -27,13 +29,15 @@ import edu.socialnetwork.service.dto.BlockCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class BlockQueryService extends QueryService<Block> {
+public class BlockQueryService extends KeysetQueryService<Block> {
 
     private final Logger log = LoggerFactory.getLogger(BlockQueryService.class);
 
     private final BlockRepository blockRepository;
 
-    public BlockQueryService(BlockRepository blockRepository) {
+    public BlockQueryService(BlockRepository blockRepository, EntityManager entityManager,
+                             CountCacheService countCacheService) {
+        super(Block.class, entityManager, countCacheService);
         this.blockRepository = blockRepository;
     }
 
@@ -62,6 +66,37 @@ public class BlockQueryService extends QueryService<Block> {
         return blockRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Block} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Block> findByCriteria(BlockCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Block> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> blockRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Block} which matches the criteria from the database, newest first
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Block> findByCriteria(BlockCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Block> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Block_.createdDate, Block_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -2,22 +2,25 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
+import edu.socialnetwork.config.ApplicationProperties;
 import edu.socialnetwork.domain.Chatroom;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.ChatroomRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.ChatroomCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Chatroom entities in the database.
@@ -27,13 +30,15 @@ import edu.socialnetwork.service.dto.ChatroomCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class ChatroomQueryService extends QueryService<Chatroom> {
+public class ChatroomQueryService extends SemiJoinQueryService<Chatroom> {
 
     private final Logger log = LoggerFactory.getLogger(ChatroomQueryService.class);
 
     private final ChatroomRepository chatroomRepository;
 
-    public ChatroomQueryService(ChatroomRepository chatroomRepository) {
+    public ChatroomQueryService(ChatroomRepository chatroomRepository, ApplicationProperties applicationProperties,
+                                EntityManager entityManager, CountCacheService countCacheService) {
+        super(Chatroom.class, applicationProperties, entityManager, countCacheService);
         this.chatroomRepository = chatroomRepository;
     }
 
@@ -62,6 +67,37 @@ public class ChatroomQueryService extends QueryService<Chatroom> {
         return chatroomRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Chatroom} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Chatroom> findByCriteria(ChatroomCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Chatroom> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> chatroomRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Chatroom} which matches the criteria from the database, newest first
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Chatroom> findByCriteria(ChatroomCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Chatroom> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Chatroom_.createdDate, Chatroom_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -94,12 +130,10 @@ public class ChatroomQueryService extends QueryService<Chatroom> {
                     root -> root.join(Chatroom_.admin, JoinType.LEFT).get(Profile_.id)));
             }
             if (criteria.getParticipantId() != null) {
-                specification = specification.and(buildSpecification(criteria.getParticipantId(),
-                    root -> root.join(Chatroom_.participants, JoinType.LEFT).get(Profile_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getParticipantId(), Chatroom_.participants, Profile_.id));
             }
             if (criteria.getMessageId() != null) {
-                specification = specification.and(buildSpecification(criteria.getMessageId(),
-                    root -> root.join(Chatroom_.messages, JoinType.LEFT).get(Message_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getMessageId(), Chatroom_.messages, Message_.id));
             }
         }
         return specification;
@@ -0,0 +1,115 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * LRU cache of the number of entities matching a criteria, for approximate total counts.
+ * <p>
+ * Entries are keyed by the entity type and the string form of the criteria, which lists the filters in a fixed
+ * order whatever the order of the request parameters. An entry is served until it is older than the time to live,
+ * and is not evicted when entities are created or deleted: a count may be off by the changes of the last seconds.
+ */
+@Service
+public class CountCacheService {
+
+    private final Logger log = LoggerFactory.getLogger(CountCacheService.class);
+
+    private final int maxEntries;
+
+    private final long timeToLiveNanos;
+
+    private final LongSupplier nanoTime;
+
+    private final Map<String, Entry> entries;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    @Autowired
+    public CountCacheService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this(applicationProperties, meterRegistry, System::nanoTime);
+    }
+
+    CountCacheService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        ApplicationProperties.Criteria.CountCache cache = applicationProperties.getCriteria().getCountCache();
+        this.maxEntries = cache.getMaxEntries();
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(cache.getTimeToLiveSeconds());
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = meterRegistry.counter("criteria.count.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("criteria.count.cache.requests", "result", "miss");
+        meterRegistry.gauge("criteria.count.cache.size", this, CountCacheService::size);
+    }
+
+    /**
+     * Get the number of entities matching a criteria, counting them if it is not cached or too old.
+     *
+     * @param entityClass the type of the entities
+     * @param criteria the criteria, whose string form lists its filters
+     * @param counter counts the matching entities
+     * @return the number of matching entities, as of at most the time to live ago
+     */
+    public long count(Class<?> entityClass, Object criteria, LongSupplier counter) {
+        String key = entityClass.getName() + ':' + criteria;
+        long now = nanoTime.getAsLong();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.countedAt < timeToLiveNanos) {
+                hits.increment();
+                return entry.count;
+            }
+        }
+        misses.increment();
+        long count = counter.getAsLong();
+        if (maxEntries > 0) {
+            synchronized (this) {
+                entries.put(key, new Entry(count, now));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Evict every entry.
+     */
+    public synchronized void clear() {
+        log.debug("Clearing count cache");
+        entries.clear();
+    }
+
+    /**
+     * @return the number of cached entries, including expired ones
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        private final long count;
+
+        private final long countedAt;
+
+        private Entry(long count, long countedAt) {
+            this.count = count;
+            this.countedAt = countedAt;
+        }
+    }
+}
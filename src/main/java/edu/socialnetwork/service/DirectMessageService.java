@@ -10,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
 import java.util.Optional;
 
 /**
@@ -23,19 +24,52 @@ public class DirectMessageService {
 
     private final DirectMessageRepository directMessageRepository;
 
-    public DirectMessageService(DirectMessageRepository directMessageRepository) {
+    private final MediaStoreService mediaStoreService;
+
+    private final ProfileCounterService profileCounterService;
+
+    public DirectMessageService(DirectMessageRepository directMessageRepository, MediaStoreService mediaStoreService,
+                                ProfileCounterService profileCounterService) {
         this.directMessageRepository = directMessageRepository;
+        this.mediaStoreService = mediaStoreService;
+        this.profileCounterService = profileCounterService;
     }
 
     /**
-     * Save a directMessage.
+     * Save a directMessage, storing its new picture in the media store.
      *
      * @param directMessage the entity to save
      * @return the persisted entity
      */
     public DirectMessage save(DirectMessage directMessage) {
         log.debug("Request to save DirectMessage : {}", directMessage);
-        return directMessageRepository.save(directMessage);
+        Optional<DirectMessage> previous = directMessage.getId() != null
+            ? directMessageRepository.findById(directMessage.getId()).map(this::copyState)
+            : Optional.empty();
+        directMessage.setPictureHash(mediaStoreService.replace(previous.map(DirectMessage::getPictureHash).orElse(null),
+            directMessage.getPicture(), directMessage.getPictureContentType(), directMessage.getPictureHash()));
+        directMessage.setPicture(null);
+        DirectMessage result = directMessageRepository.save(directMessage);
+        profileCounterService.directMessageChanged(previous.orElse(null), copyState(result));
+        return result;
+    }
+
+    /**
+     * Mark a directMessage as read by its recipient, if it is not already.
+     *
+     * @param directMessage the entity to update
+     * @return the persisted entity
+     */
+    public DirectMessage markRead(DirectMessage directMessage) {
+        log.debug("Request to mark DirectMessage {} as read", directMessage.getId());
+        if (directMessage.getReadDate() != null) {
+            return directMessage;
+        }
+        DirectMessage before = copyState(directMessage);
+        directMessage.setReadDate(ZonedDateTime.now());
+        DirectMessage result = directMessageRepository.save(directMessage);
+        profileCounterService.directMessageChanged(before, copyState(result));
+        return result;
     }
 
     /**
@@ -70,6 +104,20 @@ public class DirectMessageService {
      */
     public void delete(Long id) {
         log.debug("Request to delete DirectMessage : {}", id);
+        directMessageRepository.findById(id).ifPresent(directMessage -> {
+            if (directMessage.getPictureHash() != null) {
+                mediaStoreService.release(directMessage.getPictureHash());
+            }
+            profileCounterService.directMessageChanged(copyState(directMessage), null);
+        });
         directMessageRepository.deleteById(id);
     }
+
+    /**
+     * Detach the recipient, read date and picture of a directMessage from the managed entity, which the save may modify.
+     */
+    private DirectMessage copyState(DirectMessage directMessage) {
+        return new DirectMessage().recipient(directMessage.getRecipient()).readDate(directMessage.getReadDate())
+            .pictureHash(directMessage.getPictureHash());
+    }
 }
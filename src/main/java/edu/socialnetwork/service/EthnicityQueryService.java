@@ -2,22 +2,24 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
-import javax.persistence.criteria.JoinType;
+import javax.persistence.EntityManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
+import edu.socialnetwork.config.ApplicationProperties;
 import edu.socialnetwork.domain.Ethnicity;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.EthnicityRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.EthnicityCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Ethnicity entities in the database.
@@ -27,13 +29,15 @@ import edu.socialnetwork.service.dto.EthnicityCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class EthnicityQueryService extends QueryService<Ethnicity> {
+public class EthnicityQueryService extends SemiJoinQueryService<Ethnicity> {
 
     private final Logger log = LoggerFactory.getLogger(EthnicityQueryService.class);
 
     private final EthnicityRepository ethnicityRepository;
 
-    public EthnicityQueryService(EthnicityRepository ethnicityRepository) {
+    public EthnicityQueryService(EthnicityRepository ethnicityRepository, ApplicationProperties applicationProperties,
+                                 EntityManager entityManager, CountCacheService countCacheService) {
+        super(Ethnicity.class, applicationProperties, entityManager, countCacheService);
         this.ethnicityRepository = ethnicityRepository;
     }
 
@@ -62,6 +66,37 @@ public class EthnicityQueryService extends QueryService<Ethnicity> {
         return ethnicityRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Ethnicity} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Ethnicity> findByCriteria(EthnicityCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Ethnicity> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> ethnicityRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Ethnicity} which matches the criteria from the database, by ascending id
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Ethnicity> findByCriteria(EthnicityCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Ethnicity> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Ethnicity_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -87,8 +122,7 @@ public class EthnicityQueryService extends QueryService<Ethnicity> {
                 specification = specification.and(buildStringSpecification(criteria.getEthnicity(), Ethnicity_.ethnicity));
             }
             if (criteria.getUserId() != null) {
-                specification = specification.and(buildSpecification(criteria.getUserId(),
-                    root -> root.join(Ethnicity_.users, JoinType.LEFT).get(Profile_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getUserId(), Ethnicity_.users, Profile_.id));
             }
         }
         return specification;
@@ -0,0 +1,886 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.repository.InvitationRepository;
+import edu.socialnetwork.service.util.CsrGraph;
+import edu.socialnetwork.service.util.SnapshotFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory graph of the friendships between profiles, that is the accepted invitations.
+ * <p>
+ * Every profile having had a friend gets a dense ordinal, and the friendships are kept as a {@link CsrGraph} over
+ * these ordinals, plus a delta log of the friendships added or removed since the graph was last compacted. The
+ * neighbours, degree and friendship of profiles are answered without touching the database.
+ * <p>
+ * The graph is built when the application starts, kept up to date by {@link InvitationService}, and compacted every
+ * minute, or as soon as the delta log gets large. It is rebuilt from the database once its last rebuild is older
+ * than the rebuild interval, which is checked every hour.
+ * <p>
+ * When a snapshot file is configured, the graph is also saved to it every 15 minutes and on shutdown, and loaded
+ * from it at startup instead of reading every accepted invitation: only the invitations modified since the
+ * snapshot are replayed. The invitations deleted since are not seen, so a snapshot keeps the time of the rebuild the
+ * graph comes from, and is ignored once it is older than the rebuild interval. As the graph loaded from it is
+ * rebuilt by then too, a deleted friendship lasts at most one rebuild interval.
+ */
+@Service
+public class FriendGraphService {
+
+    /**
+     * The delta log is compacted into the graph when it holds more changed edges than this, or than an eighth of
+     * the edges of the graph.
+     */
+    static final int MIN_COMPACTION_THRESHOLD = 1024;
+
+    private static final long[] NO_FRIENDS = new long[0];
+
+    private static final int SNAPSHOT_VERSION = 2;
+
+    /**
+     * The invitations modified this long before the high-water mark of a snapshot are replayed too, as they may
+     * have been committed after the snapshot was written.
+     */
+    private static final Duration REPLAY_MARGIN = Duration.ofMinutes(1);
+
+    private static final Comparator<Suggestion> SUGGESTION_ORDER = Comparator
+        .comparingInt(Suggestion::getMutualFriendCount).reversed()
+        .thenComparingLong(Suggestion::getProfileId);
+
+    private final Logger log = LoggerFactory.getLogger(FriendGraphService.class);
+
+    private final InvitationRepository invitationRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private long[] ids = new long[1024];
+
+    private int ordinalCount;
+
+    /**
+     * The degree of every ordinal, base graph and delta log included.
+     */
+    private int[] degrees = new int[1024];
+
+    private CsrGraph graph = CsrGraph.empty();
+
+    /**
+     * The edges changed since the last compaction, in both directions: true when added, false when removed.
+     */
+    private final Map<Integer, Map<Integer, Boolean>> delta = new HashMap<>();
+
+    private int deltaSize;
+
+    /**
+     * When the last rebuild the graph comes from started, or null if the graph was not loaded yet.
+     */
+    private Instant rebuiltAt;
+
+    /**
+     * The friendships set while the graph is being rebuilt, as (profile id, profile id, friends) rows, reapplied to
+     * the rebuilt graph as the database may have been read before they were committed. Null when not rebuilding.
+     */
+    private List<Object[]> changesWhileRebuilding;
+
+    public FriendGraphService(InvitationRepository invitationRepository, ApplicationProperties applicationProperties) {
+        this.invitationRepository = invitationRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Load the graph from its snapshot and replay the invitations modified since, or rebuild it if there is no
+     * valid snapshot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void load() {
+        Optional<Instant> highWaterMark = readSnapshot();
+        if (highWaterMark.isPresent()) {
+            replay(highWaterMark.get());
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * Load every accepted invitation into a new graph, which replaces the current one.
+     * <p>
+     * The database is read without holding the lock, so the graph keeps answering meanwhile, and the friendships set
+     * during the rebuild are reapplied to the new graph.
+     */
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        log.debug("Rebuilding friend graph");
+        Instant startedAt = Instant.now();
+        lock.writeLock().lock();
+        try {
+            changesWhileRebuilding = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, Integer> newOrdinals = new HashMap<>();
+        long[] newIds = new long[1024];
+        CsrGraph newGraph;
+        try {
+            CsrGraph.Builder builder = new CsrGraph.Builder();
+            int[] pair = new int[2];
+            for (Object[] row : invitationRepository.findAllFriendships()) {
+                for (int i = 0; i < 2; i++) {
+                    Long profileId = (Long) row[i];
+                    Integer ordinal = newOrdinals.get(profileId);
+                    if (ordinal == null) {
+                        ordinal = newOrdinals.size();
+                        if (ordinal == newIds.length) {
+                            newIds = Arrays.copyOf(newIds, newIds.length * 2);
+                        }
+                        newIds[ordinal] = profileId;
+                        newOrdinals.put(profileId, ordinal);
+                    }
+                    pair[i] = ordinal;
+                }
+                builder.add(pair[0], pair[1]);
+            }
+            newGraph = builder.build(newOrdinals.size());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesWhileRebuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        int changeCount;
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            ordinals.putAll(newOrdinals);
+            ordinalCount = newOrdinals.size();
+            ids = newIds;
+            degrees = new int[newIds.length];
+            setGraph(newGraph);
+            rebuiltAt = startedAt;
+            List<Object[]> changes = changesWhileRebuilding;
+            changesWhileRebuilding = null;
+            for (Object[] change : changes) {
+                changeFriends((Long) change[0], (Long) change[1], (Boolean) change[2]);
+            }
+            changeCount = changes.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Friend graph built with {} profiles and {} friendships, {} changed meanwhile", newOrdinals.size(),
+            newGraph.edgeCount(), changeCount);
+    }
+
+    /**
+     * Rebuild the graph if its last rebuild is older than the rebuild interval, as the deleted invitations are only
+     * seen by a rebuild when the graph comes from a snapshot.
+     * <p>
+     * This is scheduled to get fired every hour.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    @Transactional(readOnly = true)
+    public synchronized void rebuildIfOutdated() {
+        Instant lastRebuild;
+        lock.readLock().lock();
+        try {
+            lastRebuild = rebuiltAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Not loaded yet, which rebuilds it or loads a recent enough snapshot
+        if (lastRebuild != null && isOutdated(lastRebuild)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Save the compacted graph to its snapshot file, if any.
+     * <p>
+     * This is scheduled to get fired every 15 minutes, and called on shutdown.
+     */
+    @PreDestroy
+    @Scheduled(cron = "0 */15 * * * ?")
+    public synchronized void writeSnapshot() {
+        Path path = getSnapshotPath();
+        if (path == null) {
+            return;
+        }
+        // The changes made from now on are replayed
+        Instant highWaterMark = Instant.now();
+        compact();
+        CsrGraph snapshotGraph;
+        long[] snapshotIds;
+        Instant snapshotRebuiltAt;
+        lock.readLock().lock();
+        try {
+            snapshotGraph = graph;
+            snapshotIds = Arrays.copyOf(ids, graph.vertexCount());
+            snapshotRebuiltAt = rebuiltAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (snapshotRebuiltAt == null) {
+            return;
+        }
+        try {
+            SnapshotFile.write(path, SNAPSHOT_VERSION, highWaterMark.toEpochMilli(),
+                8 + 4 + 8L * snapshotIds.length + snapshotGraph.byteSize(), buffer -> {
+                    buffer.putLong(snapshotRebuiltAt.toEpochMilli());
+                    buffer.putInt(snapshotIds.length);
+                    buffer.asLongBuffer().put(snapshotIds);
+                    buffer.position(buffer.position() + 8 * snapshotIds.length);
+                    snapshotGraph.writeTo(buffer);
+                });
+            log.debug("Friend graph saved to {} with {} friendships", path, snapshotGraph.edgeCount());
+        } catch (IOException e) {
+            log.warn("Could not save the friend graph to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the graph with its snapshot, unless there is none or it comes from a rebuild older than the rebuild
+     * interval.
+     *
+     * @return the high-water mark of the snapshot, or an empty optional if it was not loaded
+     */
+    Optional<Instant> readSnapshot() {
+        Path path = getSnapshotPath();
+        if (path == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<SnapshotFile> snapshot = SnapshotFile.read(path, SNAPSHOT_VERSION);
+            if (!snapshot.isPresent()) {
+                return Optional.empty();
+            }
+            Instant highWaterMark = Instant.ofEpochMilli(snapshot.get().getHighWaterMark());
+            ByteBuffer payload = snapshot.get().getPayload();
+            Instant snapshotRebuiltAt = Instant.ofEpochMilli(payload.getLong());
+            if (isOutdated(snapshotRebuiltAt)) {
+                log.info("Ignoring the friend graph saved to {} at {}, rebuilt at {}", path, highWaterMark,
+                    snapshotRebuiltAt);
+                return Optional.empty();
+            }
+            long[] snapshotIds = new long[payload.getInt()];
+            payload.asLongBuffer().get(snapshotIds);
+            payload.position(payload.position() + 8 * snapshotIds.length);
+            CsrGraph snapshotGraph = CsrGraph.readFrom(payload);
+            lock.writeLock().lock();
+            try {
+                ordinals.clear();
+                ordinalCount = 0;
+                for (long profileId : snapshotIds) {
+                    ordinal(profileId);
+                }
+                setGraph(snapshotGraph);
+                rebuiltAt = snapshotRebuiltAt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Friend graph loaded from {} with {} profiles and {} friendships", path, ordinalCount,
+                snapshotGraph.edgeCount());
+            return Optional.of(highWaterMark);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load the friend graph from {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Apply the state of the invitations modified since the high-water mark of a snapshot.
+     */
+    private void replay(Instant highWaterMark) {
+        List<Object[]> rows = invitationRepository.findProfilePairsModifiedSince(highWaterMark.minus(REPLAY_MARGIN));
+        for (Object[] row : rows) {
+            setFriends((Long) row[0], (Long) row[1], Boolean.TRUE.equals(row[2]));
+        }
+        log.info("Friend graph replayed {} invitations modified since {}", rows.size(), highWaterMark);
+    }
+
+    /**
+     * Make two profiles friends, or not.
+     *
+     * @param profileId the id of a profile
+     * @param otherProfileId the id of the other profile
+     * @param friends whether the profiles have an accepted invitation
+     */
+    public void setFriends(long profileId, long otherProfileId, boolean friends) {
+        if (profileId == otherProfileId) {
+            return;
+        }
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (changesWhileRebuilding != null) {
+                changesWhileRebuilding.add(new Object[]{profileId, otherProfileId, friends});
+            }
+            changeFriends(profileId, otherProfileId, friends);
+            compact = deltaSize > Math.max(MIN_COMPACTION_THRESHOLD, graph.edgeCount() / 8);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            compact();
+        }
+    }
+
+    /**
+     * Remove every friendship of a profile.
+     *
+     * @param profileId the id of the profile
+     */
+    public void removeProfile(long profileId) {
+        for (long friendId : getFriends(profileId)) {
+            setFriends(profileId, friendId, false);
+        }
+    }
+
+    public boolean areFriends(long profileId, long otherProfileId) {
+        lock.readLock().lock();
+        try {
+            Integer a = ordinals.get(profileId);
+            Integer b = ordinals.get(otherProfileId);
+            return a != null && b != null && containsEdge(a, b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param profileId the id of a profile
+     * @return the number of friends of the profile
+     */
+    public int getDegree(long profileId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(profileId);
+            return ordinal != null ? degrees[ordinal] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param profileId the id of a profile
+     * @return the ids of the friends of the profile, in no particular order
+     */
+    public long[] getFriends(long profileId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(profileId);
+            if (ordinal == null || degrees[ordinal] == 0) {
+                return NO_FRIENDS;
+            }
+            return toIds(neighbours(ordinal), degrees[ordinal]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intersect the sorted neighbours of two profiles.
+     *
+     * @param profileId the id of a profile
+     * @param otherProfileId the id of the other profile
+     * @return the ids of the friends the profiles have in common, in no particular order
+     */
+    public long[] getMutualFriends(long profileId, long otherProfileId) {
+        lock.readLock().lock();
+        try {
+            Integer a = ordinals.get(profileId);
+            Integer b = ordinals.get(otherProfileId);
+            if (a == null || b == null || degrees[a] == 0 || degrees[b] == 0) {
+                return NO_FRIENDS;
+            }
+            int[] neighboursA = neighbours(a);
+            int[] neighboursB = neighbours(b);
+            int[] mutual = new int[Math.min(neighboursA.length, neighboursB.length)];
+            int size = 0;
+            for (int i = 0, j = 0; i < neighboursA.length && j < neighboursB.length; ) {
+                if (neighboursA[i] < neighboursB[j]) {
+                    i++;
+                } else if (neighboursA[i] > neighboursB[j]) {
+                    j++;
+                } else {
+                    mutual[size++] = neighboursA[i];
+                    i++;
+                    j++;
+                }
+            }
+            return toIds(mutual, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rank the friends of the friends of a profile by the number of friends they have in common with it.
+     * <p>
+     * The mutual friends are counted for every friend of a friend, in O(sum of the degrees of the friends), and
+     * the best ones are kept in a heap bounded by the limit.
+     *
+     * @param profileId the id of the profile
+     * @param limit the maximum number of suggestions
+     * @param excluded the profiles not to suggest, called once per candidate
+     * @return the suggestions, most mutual friends first, then by id
+     */
+    public List<Suggestion> suggestFriends(long profileId, int limit, LongPredicate excluded) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(profileId);
+            if (ordinal == null || degrees[ordinal] == 0 || limit < 1) {
+                return Collections.emptyList();
+            }
+            int[] friends = neighbours(ordinal);
+            BitSet skipped = new BitSet(ordinalCount);
+            skipped.set(ordinal);
+            for (int friend : friends) {
+                skipped.set(friend);
+            }
+            Map<Integer, Integer> mutualCounts = new HashMap<>();
+            for (int friend : friends) {
+                for (int candidate : neighbours(friend)) {
+                    if (!skipped.get(candidate)) {
+                        mutualCounts.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+            // Min-heap on the ranking, whose head is the worst suggestion kept
+            PriorityQueue<Suggestion> best = new PriorityQueue<>(limit + 1, SUGGESTION_ORDER.reversed());
+            for (Map.Entry<Integer, Integer> count : mutualCounts.entrySet()) {
+                Suggestion suggestion = new Suggestion(ids[count.getKey()], count.getValue());
+                if (best.size() == limit && SUGGESTION_ORDER.compare(suggestion, best.peek()) >= 0) {
+                    continue;
+                }
+                if (excluded.test(suggestion.getProfileId())) {
+                    continue;
+                }
+                best.add(suggestion);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Suggestion> suggestions = new ArrayList<>(best);
+            suggestions.sort(SUGGESTION_ORDER);
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find a shortest chain of friends between two profiles, with a bidirectional breadth-first search.
+     * <p>
+     * The side with the fewer profiles to expand is expanded one level at a time, so both searches meet in the
+     * middle after visiting about the square root of the profiles a one-sided search would. The first profile
+     * reached by both sides is on a shortest chain, as the previous levels did not meet.
+     *
+     * @param profileId the id of a profile
+     * @param otherProfileId the id of the other profile
+     * @param maxDistance the maximum number of hops to search
+     * @param nodeBudget the maximum number of profiles to visit, after which the search gives up
+     * @param excluded the profiles a chain may not go through, called once per profile reached; the two profiles
+     * themselves are not tested
+     * @return the separation of the profiles
+     */
+    public Separation findSeparation(long profileId, long otherProfileId, int maxDistance, int nodeBudget,
+                                     LongPredicate excluded) {
+        if (profileId == otherProfileId) {
+            return new Separation(0, new long[]{profileId}, true);
+        }
+        lock.readLock().lock();
+        try {
+            Integer from = ordinals.get(profileId);
+            Integer to = ordinals.get(otherProfileId);
+            if (from == null || to == null) {
+                return Separation.NOT_CONNECTED;
+            }
+            Frontier forward = new Frontier(from);
+            Frontier backward = new Frontier(to);
+            BitSet excludedOrdinals = new BitSet();
+            int visited = 2;
+            while (forward.depth + backward.depth < maxDistance) {
+                Frontier side = forward.pending() <= backward.pending() ? forward : backward;
+                Frontier other = side == forward ? backward : forward;
+                if (side.pending() == 0) {
+                    return Separation.NOT_CONNECTED;
+                }
+                int levelEnd = side.size;
+                for (int i = side.head; i < levelEnd; i++) {
+                    for (int neighbour : neighbours(side.queue[i])) {
+                        if (excludedOrdinals.get(neighbour)) {
+                            continue;
+                        }
+                        if (other.visited.get(neighbour)) {
+                            int otherIndex = other.indexOf(neighbour);
+                            long[] path = side == forward
+                                ? join(forward.path(i), backward.path(otherIndex))
+                                : join(forward.path(otherIndex), backward.path(i));
+                            return new Separation(path.length - 1, path, true);
+                        }
+                        if (!side.visited.get(neighbour)) {
+                            if (excluded.test(ids[neighbour])) {
+                                excludedOrdinals.set(neighbour);
+                                continue;
+                            }
+                            if (++visited > nodeBudget) {
+                                return Separation.BUDGET_EXCEEDED;
+                            }
+                            side.add(neighbour, i);
+                        }
+                    }
+                }
+                side.head = levelEnd;
+                side.depth++;
+            }
+            return Separation.NOT_CONNECTED;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merge the delta log into a new compressed graph.
+     */
+    @Scheduled(cron = "0 * * * * ?")
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (deltaSize == 0) {
+                return;
+            }
+            log.debug("Compacting friend graph with {} changed friendships", deltaSize);
+            CsrGraph.Builder builder = new CsrGraph.Builder();
+            for (int v = 0; v < ordinalCount; v++) {
+                Map<Integer, Boolean> changes = delta.get(v);
+                for (int i = graph.rowStart(v); i < graph.rowEnd(v); i++) {
+                    int target = graph.target(i);
+                    if (v < target && (changes == null || !Boolean.FALSE.equals(changes.get(target)))) {
+                        builder.add(v, target);
+                    }
+                }
+                if (changes != null) {
+                    for (Map.Entry<Integer, Boolean> change : changes.entrySet()) {
+                        if (v < change.getKey() && change.getValue()) {
+                            builder.add(v, change.getKey());
+                        }
+                    }
+                }
+            }
+            graph = builder.build(ordinalCount);
+            delta.clear();
+            deltaSize = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of profiles which have or had friends
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of edges changed since the last compaction
+     */
+    int deltaSize() {
+        lock.readLock().lock();
+        try {
+            return deltaSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void setGraph(CsrGraph newGraph) {
+        delta.clear();
+        deltaSize = 0;
+        graph = newGraph;
+        Arrays.fill(degrees, 0);
+        for (int v = 0; v < graph.vertexCount(); v++) {
+            degrees[v] = graph.degree(v);
+        }
+    }
+
+    private boolean isOutdated(Instant lastRebuild) {
+        Duration interval = Duration.ofHours(applicationProperties.getFriendGraph().getRebuildIntervalHours());
+        return !lastRebuild.isAfter(Instant.now().minus(interval));
+    }
+
+    private Path getSnapshotPath() {
+        String file = applicationProperties.getFriendGraph().getSnapshotFile();
+        return file == null || file.trim().isEmpty() ? null : Paths.get(file);
+    }
+
+    private int ordinal(long profileId) {
+        Integer ordinal = ordinals.get(profileId);
+        if (ordinal == null) {
+            ordinal = ordinalCount++;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                degrees = Arrays.copyOf(degrees, degrees.length * 2);
+            }
+            ids[ordinal] = profileId;
+            ordinals.put(profileId, ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * @return the sorted ordinals of the neighbours of an ordinal, base graph and delta log included
+     */
+    private int[] neighbours(int ordinal) {
+        int[] neighbours = new int[degrees[ordinal]];
+        int size = 0;
+        Map<Integer, Boolean> changes = delta.get(ordinal);
+        for (int i = graph.rowStart(ordinal); i < graph.rowEnd(ordinal); i++) {
+            int target = graph.target(i);
+            if (changes == null || !Boolean.FALSE.equals(changes.get(target))) {
+                neighbours[size++] = target;
+            }
+        }
+        if (changes != null) {
+            for (Map.Entry<Integer, Boolean> change : changes.entrySet()) {
+                if (change.getValue()) {
+                    neighbours[size++] = change.getKey();
+                }
+            }
+            Arrays.sort(neighbours);
+        }
+        return neighbours;
+    }
+
+    private long[] toIds(int[] ordinals, int size) {
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ids[ordinals[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Join the chain from the start of the forward search and the chain to the start of the backward search.
+     */
+    private long[] join(int[] forwardPath, int[] backwardPath) {
+        long[] path = new long[forwardPath.length + backwardPath.length];
+        for (int i = 0; i < forwardPath.length; i++) {
+            path[i] = ids[forwardPath[forwardPath.length - 1 - i]];
+        }
+        for (int i = 0; i < backwardPath.length; i++) {
+            path[forwardPath.length + i] = ids[backwardPath[i]];
+        }
+        return path;
+    }
+
+    /**
+     * Make two distinct profiles friends, or not, in the delta log. The write lock must be held.
+     */
+    private void changeFriends(long profileId, long otherProfileId, boolean friends) {
+        Integer a = ordinals.get(profileId);
+        Integer b = ordinals.get(otherProfileId);
+        if (!friends && (a == null || b == null)) {
+            return;
+        }
+        int ordinalA = a != null ? a : ordinal(profileId);
+        int ordinalB = b != null ? b : ordinal(otherProfileId);
+        if (containsEdge(ordinalA, ordinalB) == friends) {
+            return;
+        }
+        change(ordinalA, ordinalB, friends);
+        change(ordinalB, ordinalA, friends);
+    }
+
+    private boolean containsEdge(int a, int b) {
+        Map<Integer, Boolean> changes = delta.get(a);
+        Boolean changed = changes != null ? changes.get(b) : null;
+        return changed != null ? changed : graph.containsEdge(a, b);
+    }
+
+    /**
+     * Record in the delta log that an edge was added or removed, undoing an earlier change of the same edge.
+     */
+    private void change(int from, int to, boolean added) {
+        Map<Integer, Boolean> changes = delta.computeIfAbsent(from, key -> new HashMap<>());
+        if (changes.remove(to) != null) {
+            if (changes.isEmpty()) {
+                delta.remove(from);
+            }
+            if (from < to) {
+                deltaSize--;
+            }
+        } else {
+            changes.put(to, added);
+            if (from < to) {
+                deltaSize++;
+            }
+        }
+        degrees[from] += added ? 1 : -1;
+    }
+
+    /**
+     * A friend of friends, with the number of friends it has in common with the profile.
+     */
+    public static final class Suggestion {
+
+        private final long profileId;
+
+        private final int mutualFriendCount;
+
+        Suggestion(long profileId, int mutualFriendCount) {
+            this.profileId = profileId;
+            this.mutualFriendCount = mutualFriendCount;
+        }
+
+        public long getProfileId() {
+            return profileId;
+        }
+
+        public int getMutualFriendCount() {
+            return mutualFriendCount;
+        }
+    }
+
+    /**
+     * The degrees of separation of two profiles.
+     */
+    public static final class Separation {
+
+        static final Separation NOT_CONNECTED = new Separation(-1, null, true);
+
+        static final Separation BUDGET_EXCEEDED = new Separation(-1, null, false);
+
+        private final int distance;
+
+        private final long[] path;
+
+        private final boolean complete;
+
+        Separation(int distance, long[] path, boolean complete) {
+            this.distance = distance;
+            this.path = path;
+            this.complete = complete;
+        }
+
+        /**
+         * @return the number of hops between the profiles, or -1 if they are not connected within the maximum
+         * distance or the search gave up
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return the ids of the profiles of a shortest chain, both ends included, or null if there is none
+         */
+        public long[] getPath() {
+            return path;
+        }
+
+        /**
+         * @return false if the search gave up before the maximum distance, after visiting too many profiles
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * One side of a breadth-first search: the visited ordinals in visit order, each with the index of the one it
+     * was reached from, and the index of the first ordinal of the level to expand.
+     */
+    private static final class Frontier {
+
+        private int[] queue = new int[16];
+
+        private int[] parents = new int[16];
+
+        private int size;
+
+        private int head;
+
+        private int depth;
+
+        private final BitSet visited = new BitSet();
+
+        private Frontier(int start) {
+            add(start, -1);
+        }
+
+        private int pending() {
+            return size - head;
+        }
+
+        private void add(int ordinal, int parent) {
+            if (size == queue.length) {
+                queue = Arrays.copyOf(queue, size * 2);
+                parents = Arrays.copyOf(parents, size * 2);
+            }
+            queue[size] = ordinal;
+            parents[size++] = parent;
+            visited.set(ordinal);
+        }
+
+        private int indexOf(int ordinal) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (queue[i] == ordinal) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return the ordinals from the one at an index back to the start
+         */
+        private int[] path(int index) {
+            int length = 0;
+            for (int i = index; i >= 0; i = parents[i]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int i = index, j = 0; i >= 0; i = parents[i]) {
+                path[j++] = queue[i];
+            }
+            return path;
+        }
+    }
+}
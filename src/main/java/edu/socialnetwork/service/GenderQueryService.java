@@ -2,22 +2,24 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
-import javax.persistence.criteria.JoinType;
+import javax.persistence.EntityManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
+import edu.socialnetwork.config.ApplicationProperties;
 import edu.socialnetwork.domain.Gender;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.GenderRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.GenderCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Gender entities in the database.
@@ -27,13 +29,15 @@ import edu.socialnetwork.service.dto.GenderCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class GenderQueryService extends QueryService<Gender> {
+public class GenderQueryService extends SemiJoinQueryService<Gender> {
 
     private final Logger log = LoggerFactory.getLogger(GenderQueryService.class);
 
     private final GenderRepository genderRepository;
 
-    public GenderQueryService(GenderRepository genderRepository) {
+    public GenderQueryService(GenderRepository genderRepository, ApplicationProperties applicationProperties,
+                              EntityManager entityManager, CountCacheService countCacheService) {
+        super(Gender.class, applicationProperties, entityManager, countCacheService);
         this.genderRepository = genderRepository;
     }
 
@@ -62,6 +66,37 @@ public class GenderQueryService extends QueryService<Gender> {
         return genderRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Gender} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Gender> findByCriteria(GenderCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Gender> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> genderRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Gender} which matches the criteria from the database, by ascending id
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Gender> findByCriteria(GenderCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Gender> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Gender_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -87,8 +122,7 @@ public class GenderQueryService extends QueryService<Gender> {
                 specification = specification.and(buildStringSpecification(criteria.getType(), Gender_.type));
             }
             if (criteria.getUserId() != null) {
-                specification = specification.and(buildSpecification(criteria.getUserId(),
-                    root -> root.join(Gender_.users, JoinType.LEFT).get(Profile_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getUserId(), Gender_.users, Profile_.id));
             }
         }
         return specification;
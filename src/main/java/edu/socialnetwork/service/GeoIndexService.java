@@ -0,0 +1,388 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Location;
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.util.BoundingBox;
+import edu.socialnetwork.service.util.GeoHits;
+import edu.socialnetwork.service.util.GeoPointArray;
+import edu.socialnetwork.service.util.GeoUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index of profile coordinates.
+ * <p>
+ * The globe is divided in cells of {@link #CELL_SIZE_DEGREES} degrees, each cell holding the ids and
+ * coordinates of the profiles located inside it in a {@link GeoPointArray}. A radius query only visits the
+ * cells overlapping the bounding box of the requested circle, and tests the points found there against
+ * the radius without allocating.
+ * <p>
+ * The index is built when the application starts, and kept up to date by {@link ProfileService} and
+ * {@link LocationService}. Every move is reported to the {@link ProximityCacheService}.
+ */
+@Service
+public class GeoIndexService {
+
+    static final double CELL_SIZE_DEGREES = 0.1;
+
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_SIZE_DEGREES);
+
+    private static final int LON_CELLS = (int) Math.ceil(360 / CELL_SIZE_DEGREES);
+
+    /**
+     * Half the circumference of the Earth: no two points are farther apart.
+     */
+    private static final double MAX_DISTANCE = 180 * GeoUtil.KM_PER_DEGREE;
+
+    private final Logger log = LoggerFactory.getLogger(GeoIndexService.class);
+
+    private final ProfileRepository profileRepository;
+
+    private final Map<Long, GeoPointArray> cells = new ConcurrentHashMap<>();
+
+    private final Map<Long, Point> points = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> profileIdsByLocationId = new ConcurrentHashMap<>();
+
+    private final ProximityCacheService proximityCacheService;
+
+    public GeoIndexService(ProfileRepository profileRepository, ProximityCacheService proximityCacheService) {
+        this.profileRepository = profileRepository;
+        this.proximityCacheService = proximityCacheService;
+    }
+
+    /**
+     * Load the coordinates of every located profile into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.debug("Rebuilding geo index");
+        cells.clear();
+        points.clear();
+        profileIdsByLocationId.clear();
+        Map<Long, GeoPointArray.Builder> builders = new HashMap<>();
+        for (Object[] row : profileRepository.findAllProfileCoordinates()) {
+            Long profileId = (Long) row[0];
+            Point point = new Point((Long) row[1], (Double) row[2], (Double) row[3]);
+            builders.computeIfAbsent(point.cellKey, key -> new GeoPointArray.Builder())
+                .add(profileId, point.latitude, point.longitude);
+            points.put(profileId, point);
+            profileIdsByLocationId.put(point.locationId, profileId);
+        }
+        builders.forEach((cellKey, builder) -> cells.put(cellKey, builder.build()));
+        proximityCacheService.clear();
+        log.info("Geo index built with {} profiles in {} cells", points.size(), cells.size());
+    }
+
+    /**
+     * Index the location of a profile, or remove the profile if it has no location anymore.
+     *
+     * @param profile the persisted profile
+     */
+    public void update(Profile profile) {
+        Location location = profile.getLocation();
+        if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
+            remove(profile.getId());
+        } else {
+            put(profile.getId(), location.getId(), location.getLatitude(), location.getLongitude());
+        }
+    }
+
+    /**
+     * Move the profile owning this location, if any, to the new coordinates.
+     *
+     * @param location the persisted location
+     */
+    public void updateLocation(Location location) {
+        Long profileId = profileIdsByLocationId.get(location.getId());
+        if (profileId == null && location.getUser() != null) {
+            profileId = location.getUser().getId();
+        }
+        if (profileId != null) {
+            put(profileId, location.getId(), location.getLatitude(), location.getLongitude());
+        }
+    }
+
+    /**
+     * Remove the profile owning this location, if any, from the index.
+     *
+     * @param locationId the id of the deleted location
+     */
+    public void removeLocation(Long locationId) {
+        Long profileId = profileIdsByLocationId.get(locationId);
+        if (profileId != null) {
+            remove(profileId);
+        }
+    }
+
+    /**
+     * Remove a profile from the index.
+     *
+     * @param profileId the id of the profile
+     */
+    public void remove(Long profileId) {
+        Point[] removed = new Point[1];
+        points.computeIfPresent(profileId, (id, previous) -> {
+            removeFromCell(previous.cellKey, id);
+            profileIdsByLocationId.remove(previous.locationId, id);
+            removed[0] = previous;
+            return null;
+        });
+        if (removed[0] != null) {
+            proximityCacheService.invalidate(removed[0].latitude, removed[0].longitude);
+        }
+    }
+
+    /**
+     * Find the profiles located within a given distance.
+     *
+     * @param latitude the latitude of the center, in degrees
+     * @param longitude the longitude of the center, in degrees
+     * @param distance the radius, in kilometers
+     * @return the matching profiles, nearest first
+     */
+    public List<Hit> findWithin(double latitude, double longitude, double distance) {
+        GeoPointArray.Query query = new GeoPointArray.Query(latitude, longitude, distance);
+        GeoHits hits = new GeoHits();
+        for (GeoPointArray cell : cellsWithin(latitude, longitude, distance)) {
+            cell.collectWithin(query, hits);
+        }
+        hits.sortNearest(hits.size());
+        return toList(hits);
+    }
+
+    /**
+     * Find the coordinates of the profiles located within a given distance.
+     *
+     * @param latitude the latitude of the center, in degrees
+     * @param longitude the longitude of the center, in degrees
+     * @param distance the radius, in kilometers
+     * @return the ids and coordinates of the matching profiles
+     */
+    public GeoPointArray findPointsWithin(double latitude, double longitude, double distance) {
+        GeoPointArray.Query query = new GeoPointArray.Query(latitude, longitude, distance);
+        GeoHits hits = new GeoHits();
+        for (GeoPointArray cell : cellsWithin(latitude, longitude, distance)) {
+            cell.collectWithin(query, hits);
+        }
+        GeoPointArray.Builder builder = new GeoPointArray.Builder();
+        for (int i = 0; i < hits.size(); i++) {
+            Point point = points.get(hits.getId(i));
+            if (point != null) {
+                builder.add(hits.getId(i), point.latitude, point.longitude);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Find the k profiles nearest to a point, continuing after a previous page.
+     * <p>
+     * The search radius starts at one cell and doubles until the k nearest candidates found are all
+     * inside the searched circle, keeping only the best k candidates in a bounded heap.
+     *
+     * @param latitude the latitude of the center, in degrees
+     * @param longitude the longitude of the center, in degrees
+     * @param k the maximum number of profiles to return
+     * @param afterDistance the distance of the last profile of the previous page, or null for the first page
+     * @param afterId the id of the last profile of the previous page, or null for the first page
+     * @return the next profiles, nearest first
+     */
+    public List<Hit> findNearest(double latitude, double longitude, int k, Double afterDistance, Long afterId) {
+        GeoHits hits = new GeoHits(2 * k);
+        double radius = (afterDistance != null ? afterDistance : 0) + CELL_SIZE_DEGREES * GeoUtil.KM_PER_DEGREE;
+        while (true) {
+            hits.clear();
+            GeoPointArray.Query query = new GeoPointArray.Query(latitude, longitude, radius);
+            for (GeoPointArray cell : cellsWithin(latitude, longitude, radius)) {
+                cell.collectWithin(query, hits);
+            }
+            if (afterDistance != null) {
+                hits.retainAfter(afterDistance, afterId);
+            }
+            if (hits.size() >= k || radius >= MAX_DISTANCE) {
+                break;
+            }
+            radius = Math.min(radius * 2, MAX_DISTANCE);
+        }
+        hits.sortNearest(k);
+        return toList(hits);
+    }
+
+    /**
+     * @return the number of indexed profiles
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * The populated cells overlapping the bounding box of a circle.
+     */
+    private Collection<GeoPointArray> cellsWithin(double latitude, double longitude, double distance) {
+        BoundingBox box = BoundingBox.around(latitude, longitude, distance);
+        int minLatCell = latCell(box.getMinLatitude());
+        int maxLatCell = latCell(box.getMaxLatitude());
+        int firstLonCell;
+        int lonCellCount;
+        if (box.isFullLongitudeRange()) {
+            firstLonCell = 0;
+            lonCellCount = LON_CELLS;
+        } else {
+            firstLonCell = lonCell(box.getMinLongitude());
+            lonCellCount = Math.floorMod(lonCell(box.getMaxLongitude()) - firstLonCell, LON_CELLS) + 1;
+        }
+
+        long candidateCells = (long) (maxLatCell - minLatCell + 1) * lonCellCount;
+        if (candidateCells > cells.size()) {
+            // The circle covers more cells than there are populated ones: scan the populated cells instead.
+            return cells.values();
+        }
+        List<GeoPointArray> result = new ArrayList<>();
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int i = 0; i < lonCellCount; i++) {
+                GeoPointArray cell = cells.get(cellKey(latCell, (firstLonCell + i) % LON_CELLS));
+                if (cell != null) {
+                    result.add(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the key of the cell of a point
+     */
+    static long cellKeyOf(double latitude, double longitude) {
+        return cellKey(latCell(latitude), lonCell(longitude));
+    }
+
+    /**
+     * @return the keys of the cells overlapping the bounding box of a circle, populated or not
+     */
+    static long[] cellKeysAround(double latitude, double longitude, double distance) {
+        BoundingBox box = BoundingBox.around(latitude, longitude, distance);
+        int minLatCell = latCell(box.getMinLatitude());
+        int maxLatCell = latCell(box.getMaxLatitude());
+        int firstLonCell = box.isFullLongitudeRange() ? 0 : lonCell(box.getMinLongitude());
+        int lonCellCount = box.isFullLongitudeRange() ? LON_CELLS
+            : Math.floorMod(lonCell(box.getMaxLongitude()) - firstLonCell, LON_CELLS) + 1;
+        long[] result = new long[(maxLatCell - minLatCell + 1) * lonCellCount];
+        int size = 0;
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int i = 0; i < lonCellCount; i++) {
+                result[size++] = cellKey(latCell, (firstLonCell + i) % LON_CELLS);
+            }
+        }
+        return result;
+    }
+
+    static List<Hit> toList(GeoHits hits) {
+        List<Hit> result = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            result.add(new Hit(hits.getId(i), hits.getDistance(i)));
+        }
+        return result;
+    }
+
+    private void put(Long profileId, Long locationId, double latitude, double longitude) {
+        Point point = new Point(locationId, latitude, longitude);
+        Point[] replaced = new Point[1];
+        points.compute(profileId, (id, previous) -> {
+            if (previous != null) {
+                if (previous.cellKey != point.cellKey) {
+                    removeFromCell(previous.cellKey, id);
+                }
+                if (!previous.locationId.equals(locationId)) {
+                    profileIdsByLocationId.remove(previous.locationId, id);
+                }
+            }
+            cells.compute(point.cellKey, (key, cell) -> (cell != null ? cell : GeoPointArray.empty()).with(id, latitude, longitude));
+            profileIdsByLocationId.put(locationId, id);
+            replaced[0] = previous;
+            return point;
+        });
+        // The cache is told once the index changed, and not at all when the profile did not move
+        Point previous = replaced[0];
+        if (previous != null && previous.latitude == latitude && previous.longitude == longitude) {
+            return;
+        }
+        if (previous != null) {
+            proximityCacheService.invalidate(previous.latitude, previous.longitude);
+        }
+        proximityCacheService.invalidate(latitude, longitude);
+    }
+
+    private void removeFromCell(long cellKey, Long profileId) {
+        cells.computeIfPresent(cellKey, (key, cell) -> {
+            GeoPointArray result = cell.without(profileId);
+            return result.size() == 0 ? null : result;
+        });
+    }
+
+    private static int latCell(double latitude) {
+        return Math.min(LAT_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_SIZE_DEGREES));
+    }
+
+    private static int lonCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_SIZE_DEGREES), LON_CELLS);
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return (long) latCell * LON_CELLS + lonCell;
+    }
+
+    private static final class Point {
+
+        private final Long locationId;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        private final long cellKey;
+
+        private Point(Long locationId, double latitude, double longitude) {
+            this.locationId = locationId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cellKey = cellKey(latCell(latitude), lonCell(longitude));
+        }
+    }
+
+    /**
+     * A profile found by a radius query.
+     */
+    public static final class Hit {
+
+        private final Long profileId;
+
+        private final double distance;
+
+        public Hit(Long profileId, double distance) {
+            this.profileId = profileId;
+            this.distance = distance;
+        }
+
+        public Long getProfileId() {
+            return profileId;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
@@ -13,6 +13,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 
+import static edu.socialnetwork.service.util.TransactionUtil.afterCommit;
+
 /**
  * Service Implementation for managing Invitation.
  */
@@ -24,8 +26,15 @@ public class InvitationService {
 
     private final InvitationRepository invitationRepository;
 
-    public InvitationService(InvitationRepository invitationRepository) {
+    private final FriendGraphService friendGraphService;
+
+    private final ProfileCounterService profileCounterService;
+
+    public InvitationService(InvitationRepository invitationRepository, FriendGraphService friendGraphService,
+                             ProfileCounterService profileCounterService) {
         this.invitationRepository = invitationRepository;
+        this.friendGraphService = friendGraphService;
+        this.profileCounterService = profileCounterService;
     }
 
     /**
@@ -36,8 +45,32 @@ public class InvitationService {
      */
     public Invitation save(Invitation invitation) {
         log.debug("Request to save Invitation : {}", invitation);
+        Optional<Invitation> previous = invitation.getId() != null
+            ? invitationRepository.findById(invitation.getId()).map(this::copyState)
+            : Optional.empty();
         invitation.setCreatedDate(ZonedDateTime.now());
-        return invitationRepository.save(invitation);
+        Invitation result = invitationRepository.save(invitation);
+        previous.ifPresent(invitationBefore -> updateFriendGraph(invitationBefore, false));
+        updateFriendGraph(result, Boolean.TRUE.equals(result.isAccepted()));
+        profileCounterService.invitationChanged(previous.orElse(null), copyState(result));
+        return result;
+    }
+
+    /**
+     * Accept or decline an invitation, keeping its creation date.
+     *
+     * @param invitation the entity to update
+     * @param accepted whether the invitation is accepted
+     * @return the persisted entity
+     */
+    public Invitation changeState(Invitation invitation, boolean accepted) {
+        log.debug("Request to change the state of Invitation {} to {}", invitation.getId(), accepted);
+        Invitation before = copyState(invitation);
+        invitation.setAccepted(accepted);
+        Invitation result = invitationRepository.save(invitation);
+        updateFriendGraph(result, accepted);
+        profileCounterService.invitationChanged(before, copyState(result));
+        return result;
     }
 
     /**
@@ -65,6 +98,42 @@ public class InvitationService {
         return invitationRepository.findById(id);
     }
 
+    /**
+     * Check whether there is an invitation between two profiles, accepted or not, in either direction.
+     *
+     * @param profileId the id of a profile
+     * @param otherProfileId the id of the other profile
+     * @return whether one of the profiles invited the other
+     */
+    @Transactional(readOnly = true)
+    public boolean existsBetween(Long profileId, Long otherProfileId) {
+        return invitationRepository.existsByLowProfileIdAndHighProfileId(
+            Math.min(profileId, otherProfileId), Math.max(profileId, otherProfileId));
+    }
+
+    /**
+     * Check whether two profiles have an accepted invitation, in either direction.
+     * <p>
+     * The {@link FriendGraphService} is only trusted to answer no. A friendship found there is confirmed with a probe
+     * of the unique index on the pair of profiles, and removed from the graph when the database no longer has it.
+     *
+     * @param profileId the id of a profile
+     * @param otherProfileId the id of the other profile
+     * @return whether the profiles are friends
+     */
+    @Transactional(readOnly = true)
+    public boolean areFriends(Long profileId, Long otherProfileId) {
+        if (!friendGraphService.areFriends(profileId, otherProfileId)) {
+            return false;
+        }
+        boolean friends = invitationRepository.existsByLowProfileIdAndHighProfileIdAndAcceptedIsTrue(
+            Math.min(profileId, otherProfileId), Math.max(profileId, otherProfileId));
+        if (!friends) {
+            friendGraphService.setFriends(profileId, otherProfileId, false);
+        }
+        return friends;
+    }
+
     /**
      * Delete the invitation by id.
      *
@@ -72,6 +141,31 @@ public class InvitationService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Invitation : {}", id);
+        Optional<Invitation> invitation = invitationRepository.findById(id);
         invitationRepository.deleteById(id);
+        invitation.ifPresent(invitationBefore -> {
+            updateFriendGraph(invitationBefore, false);
+            profileCounterService.invitationChanged(invitationBefore, null);
+        });
+    }
+
+    /**
+     * Detach the sender, receiver and state of an invitation from the managed entity, which the save may modify.
+     */
+    private Invitation copyState(Invitation invitation) {
+        return new Invitation().sent(invitation.getSent()).received(invitation.getReceived()).accepted(invitation.isAccepted());
+    }
+
+    /**
+     * Update the friendship of the sender and receiver of an invitation, which is the only one between them, once the
+     * transaction is committed so that a rolled back change never reaches the graph.
+     */
+    private void updateFriendGraph(Invitation invitation, boolean accepted) {
+        if (invitation.getSent() == null || invitation.getReceived() == null) {
+            return;
+        }
+        Long senderId = invitation.getSent().getId();
+        Long receiverId = invitation.getReceived().getId();
+        afterCommit(() -> friendGraphService.setFriends(senderId, receiverId, accepted));
     }
 }
@@ -0,0 +1,201 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.service.dto.CountMode;
+import edu.socialnetwork.service.util.KeysetCursor;
+import edu.socialnetwork.service.util.KeysetSlice;
+import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
+import io.github.jhipster.service.QueryService;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Base service for executing complex queries returning entities without counting all of them.
+ * <p>
+ * With keyset pagination, instead of skipping the entities of the previous pages with an offset, which the
+ * database still reads, a slice starts right after the last entity of the previous slice, given by a
+ * {@link KeysetCursor}. With an index on the ordering columns, every slice costs the same however deep it is.
+ * <p>
+ * Offset pages can also skip the count query, or serve a count cached by the {@link CountCacheService}.
+ *
+ * @param <ENTITY> the type of the entity which is queried
+ */
+public abstract class KeysetQueryService<ENTITY> extends QueryService<ENTITY> {
+
+    /**
+     * The maximum number of entities of a slice.
+     */
+    public static final int MAX_SLICE_SIZE = 100;
+
+    private final Class<ENTITY> entityClass;
+
+    private final EntityManager entityManager;
+
+    private final CountCacheService countCacheService;
+
+    protected KeysetQueryService(Class<ENTITY> entityClass, EntityManager entityManager,
+                                 CountCacheService countCacheService) {
+        this.entityClass = entityClass;
+        this.entityManager = entityManager;
+        this.countCacheService = countCacheService;
+    }
+
+    protected EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    /**
+     * Find a slice of the entities matching a specification, by ascending id.
+     *
+     * @param specification the filters of the entities
+     * @param after the cursor of the last entity of the previous slice, or empty for the first slice
+     * @param size the maximum number of entities to return
+     * @param id the id attribute of the entity
+     * @return the slice
+     * @throws BadRequestAlertException if the cursor is invalid or the size out of range
+     */
+    protected KeysetSlice<ENTITY> findAfter(Specification<ENTITY> specification, String after, int size,
+                                            SingularAttribute<? super ENTITY, Long> id) {
+        return findAfter(specification, after, size, null, id);
+    }
+
+    /**
+     * Find a slice of the entities matching a specification, newest first: by descending creation date, then by
+     * descending id.
+     *
+     * @param specification the filters of the entities
+     * @param after the cursor of the last entity of the previous slice, or empty for the first slice
+     * @param size the maximum number of entities to return
+     * @param createdDate the creation date attribute of the entity, or null to order by ascending id
+     * @param id the id attribute of the entity
+     * @return the slice
+     * @throws BadRequestAlertException if the cursor is invalid or the size out of range
+     */
+    protected KeysetSlice<ENTITY> findAfter(Specification<ENTITY> specification, String after, int size,
+                                            SingularAttribute<? super ENTITY, ZonedDateTime> createdDate,
+                                            SingularAttribute<? super ENTITY, Long> id) {
+        String entityName = StringUtils.uncapitalize(entityClass.getSimpleName());
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new BadRequestAlertException("Slice size must be between 1 and " + MAX_SLICE_SIZE, entityName, "invalidsize");
+        }
+        KeysetCursor cursor = null;
+        if (StringUtils.isNotEmpty(after)) {
+            try {
+                cursor = KeysetCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("Invalid cursor", entityName, "invalidcursor");
+            }
+            if ((cursor.getCreatedDate() != null) != (createdDate != null)) {
+                throw new BadRequestAlertException("Invalid cursor", entityName, "invalidcursor");
+            }
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<ENTITY> root = query.from(entityClass);
+        Path<Long> idPath = root.get(id);
+        Path<ZonedDateTime> createdDatePath = createdDate != null ? root.get(createdDate) : null;
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filter = specification != null ? specification.toPredicate(root, query, builder) : null;
+        if (filter != null) {
+            predicates.add(filter);
+        }
+        if (cursor != null && createdDatePath != null) {
+            predicates.add(builder.or(
+                builder.lessThan(createdDatePath, cursor.getCreatedDate()),
+                builder.and(builder.equal(createdDatePath, cursor.getCreatedDate()), builder.lessThan(idPath, cursor.getId()))));
+        } else if (cursor != null) {
+            predicates.add(builder.greaterThan(idPath, cursor.getId()));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        if (createdDatePath != null) {
+            query.multiselect(root, idPath, createdDatePath);
+            query.orderBy(builder.desc(createdDatePath), builder.desc(idPath));
+        } else {
+            query.multiselect(root, idPath);
+            query.orderBy(builder.asc(idPath));
+        }
+
+        // One more entity than asked tells whether there is a next slice
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        List<ENTITY> content = new ArrayList<>(Math.min(size, rows.size()));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            content.add(entityClass.cast(rows.get(i).get(0)));
+        }
+        KeysetCursor next = null;
+        if (rows.size() > size) {
+            Tuple last = rows.get(size - 1);
+            next = createdDatePath != null
+                ? KeysetCursor.of(last.get(2, ZonedDateTime.class), last.get(1, Long.class))
+                : KeysetCursor.of(last.get(1, Long.class));
+        }
+        return new KeysetSlice<>(content, next);
+    }
+
+    /**
+     * Find a page of the entities matching a specification, without an exact count.
+     * <p>
+     * One more entity than asked is read to tell whether there is a next page. On the last page, the total is known
+     * without counting.
+     *
+     * @param specification the filters of the entities
+     * @param pageable the page to return
+     * @param count {@link CountMode#NONE} to return a {@link Slice}, or {@link CountMode#APPROXIMATE} to return a
+     *              {@link Page} whose total may be cached
+     * @param criteria the criteria the specification was created from, which keys the cached count
+     * @param counter counts the entities matching the specification
+     * @return the page
+     */
+    protected Slice<ENTITY> findSlice(Specification<ENTITY> specification, Pageable pageable, CountMode count,
+                                      Object criteria, LongSupplier counter) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ENTITY> query = builder.createQuery(entityClass);
+        Root<ENTITY> root = query.from(entityClass);
+        Predicate filter = specification != null ? specification.toPredicate(root, query, builder) : null;
+        if (filter != null) {
+            query.where(filter);
+        }
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<ENTITY> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<ENTITY> content = typedQuery.getResultList();
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+
+        if (count == CountMode.NONE) {
+            return new SliceImpl<>(content, pageable, hasNext);
+        }
+        long total;
+        if (!hasNext && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            total = pageable.getOffset() + content.size();
+        } else {
+            total = countCacheService.count(entityClass, criteria, counter);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+}
@@ -2,22 +2,24 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
 import edu.socialnetwork.domain.Location;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.LocationRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.LocationCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Location entities in the database.
@@ -27,13 +29,15 @@ import edu.socialnetwork.service.dto.LocationCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class LocationQueryService extends QueryService<Location> {
+public class LocationQueryService extends KeysetQueryService<Location> {
 
     private final Logger log = LoggerFactory.getLogger(LocationQueryService.class);
 
     private final LocationRepository locationRepository;
 
-    public LocationQueryService(LocationRepository locationRepository) {
+    public LocationQueryService(LocationRepository locationRepository, EntityManager entityManager,
+                                CountCacheService countCacheService) {
+        super(Location.class, entityManager, countCacheService);
         this.locationRepository = locationRepository;
     }
 
@@ -62,6 +66,37 @@ public class LocationQueryService extends QueryService<Location> {
         return locationRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Location} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Location> findByCriteria(LocationCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Location> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> locationRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Location} which matches the criteria from the database, by ascending id
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Location> findByCriteria(LocationCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Location> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Location_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -15,6 +15,8 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import static edu.socialnetwork.service.util.TransactionUtil.afterCommit;
+
 /**
  * Service Implementation for managing Location.
  */
@@ -26,8 +28,11 @@ public class LocationService {
 
     private final LocationRepository locationRepository;
 
-    public LocationService(LocationRepository locationRepository) {
+    private final GeoIndexService geoIndexService;
+
+    public LocationService(LocationRepository locationRepository, GeoIndexService geoIndexService) {
         this.locationRepository = locationRepository;
+        this.geoIndexService = geoIndexService;
     }
 
     /**
@@ -38,7 +43,9 @@ public class LocationService {
      */
     public Location save(Location location) {
         log.debug("Request to save Location : {}", location);
-        return locationRepository.save(location);
+        Location result = locationRepository.save(location);
+        afterCommit(() -> geoIndexService.updateLocation(result));
+        return result;
     }
 
     /**
@@ -102,5 +109,6 @@ public class LocationService {
     public void delete(Long id) {
         log.debug("Request to delete Location : {}", id);
         locationRepository.deleteById(id);
+        afterCommit(() -> geoIndexService.removeLocation(id));
     }
 }
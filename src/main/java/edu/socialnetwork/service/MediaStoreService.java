@@ -0,0 +1,417 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.domain.MediaObject;
+import edu.socialnetwork.repository.MediaObjectRepository;
+import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
+import edu.socialnetwork.web.rest.errors.MediaTooLargeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static edu.socialnetwork.service.util.TransactionUtil.afterCommit;
+
+/**
+ * Service Implementation for the media store.
+ * <p>
+ * Files are stored on disk, named after the SHA-256 hash of their content, so that a file saved many times
+ * is stored once. A {@link MediaObject} row holds the content type of each file and the number of entities
+ * referencing it: the file is deleted when the last reference is released.
+ * <p>
+ * Uploaded files are not referenced by any entity until one is saved with their hash: those still unreferenced
+ * after {@link #ORPHAN_RETENTION} are deleted.
+ * <p>
+ * A file is deleted once the deletion of its row is committed, unless the row exists again by then. So a row is
+ * inserted in its own transaction, without references, before its file is written: the files of a sub-directory
+ * are written and deleted under the same lock, so that a file is either deleted before it is written again, or
+ * kept because its row exists. The row of a file stored by a transaction rolled back is left unreferenced, and
+ * deleted as an orphan.
+ */
+@Service
+@Transactional
+public class MediaStoreService {
+
+    public static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    static final Duration ORPHAN_RETENTION = Duration.ofDays(1);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Enough leading bytes to recognize the supported picture formats.
+     */
+    private static final int SIGNATURE_LENGTH = 12;
+
+    private final Logger log = LoggerFactory.getLogger(MediaStoreService.class);
+
+    private final MediaObjectRepository mediaObjectRepository;
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * One lock per sub-directory of the store.
+     */
+    private final Object[] fileLocks = new Object[256];
+
+    public MediaStoreService(MediaObjectRepository mediaObjectRepository, ApplicationProperties applicationProperties,
+                             ApplicationEventPublisher eventPublisher) {
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.directory = Paths.get(applicationProperties.getMedia().getDirectory()).toAbsolutePath();
+        this.maxSize = applicationProperties.getMedia().getMaxSize();
+        this.eventPublisher = eventPublisher;
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Store a file, or add a reference to it if it is already stored.
+     *
+     * @param content the content of the file
+     * @param contentType the content type of the file
+     * @return the hash of the file
+     */
+    public String store(byte[] content, String contentType) {
+        String hash = hash(content);
+        Optional<MediaObject> existing = mediaObjectRepository.findById(hash).isPresent()
+            ? mediaObjectRepository.findOneForUpdate(hash) : Optional.empty();
+        MediaObject mediaObject = existing.orElseGet(() -> insertUnreferenced(hash, contentType != null ? contentType : "application/octet-stream",
+                content.length, () -> mediaObjectRepository.findOneForUpdate(hash)));
+        // Locked, so that the file cannot be released until this transaction ends
+        mediaObject.setReferenceCount(mediaObject.getReferenceCount() + 1);
+        writeFile(hash, content);
+        return hash;
+    }
+
+    /**
+     * Store an uploaded picture, streaming it to disk while computing its hash and recognizing its format.
+     * <p>
+     * The picture is not referenced until an entity is saved with its hash. No transaction is held while the
+     * content is received.
+     *
+     * @param input the content of the picture
+     * @return the stored picture
+     * @throws IOException if the content could not be read or written
+     * @throws MediaTooLargeException if the content is larger than the configured maximum size
+     * @throws BadRequestAlertException if the content is not a picture in a supported format
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MediaObject upload(InputStream input) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "upload", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            byte[] signature = new byte[SIGNATURE_LENGTH];
+            long size = 0;
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    if (size < SIGNATURE_LENGTH) {
+                        System.arraycopy(buffer, 0, signature, (int) size, (int) Math.min(read, SIGNATURE_LENGTH - size));
+                    }
+                    size += read;
+                    if (size > maxSize) {
+                        throw new MediaTooLargeException(maxSize);
+                    }
+                    digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                }
+            }
+            String contentType = detectContentType(signature, (int) Math.min(size, SIGNATURE_LENGTH))
+                .orElseThrow(() -> new BadRequestAlertException("Unsupported picture format", "media", "unsupportedFormat"));
+
+            String hash = toHex(digest.digest());
+            log.debug("Uploaded media {} ({}, {} bytes)", hash, contentType, size);
+            long uploadedSize = size;
+            MediaObject mediaObject = mediaObjectRepository.findById(hash)
+                .orElseGet(() -> insertUnreferenced(hash, contentType, uploadedSize, () -> mediaObjectRepository.findById(hash)));
+            // Written once the row is committed, so that a concurrent release does not delete it
+            moveFile(hash, temporary);
+            return mediaObject;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Update the picture referenced by an entity.
+     * <p>
+     * New content is stored; otherwise the requested hash, which must be stored already, is referenced.
+     * The previous picture is released if it is not referenced anymore by the entity.
+     *
+     * @param previousHash the hash of the picture currently referenced by the entity, or null
+     * @param content the new content of the picture, or null
+     * @param contentType the content type of the picture
+     * @param requestedHash the hash of the picture to reference when there is no new content, or null to remove it
+     * @return the hash of the picture to reference, or null
+     */
+    public String replace(String previousHash, byte[] content, String contentType, String requestedHash) {
+        String hash;
+        if (content != null) {
+            hash = store(content, contentType);
+        } else if (requestedHash == null || requestedHash.equals(previousHash)) {
+            hash = requestedHash;
+            if (hash != null) {
+                return hash;
+            }
+        } else {
+            MediaObject mediaObject = mediaObjectRepository.findOneForUpdate(requestedHash)
+                .orElseThrow(() -> new BadRequestAlertException("Unknown picture", "media", "mediaNotFound"));
+            mediaObject.setReferenceCount(mediaObject.getReferenceCount() + 1);
+            hash = requestedHash;
+        }
+        if (previousHash != null) {
+            release(previousHash);
+        }
+        return hash;
+    }
+
+    /**
+     * Release a reference to a file, and delete the file once the transaction commits if it was the last one.
+     *
+     * @param hash the hash of the file
+     */
+    public void release(String hash) {
+        mediaObjectRepository.findOneForUpdate(hash).ifPresent(mediaObject -> {
+            int referenceCount = mediaObject.getReferenceCount() - 1;
+            if (referenceCount > 0) {
+                mediaObject.setReferenceCount(referenceCount);
+                return;
+            }
+            log.debug("Deleting media {}", hash);
+            mediaObjectRepository.delete(mediaObject);
+            afterCommit(() -> deleteFile(hash));
+        });
+    }
+
+    /**
+     * Uploaded files not referenced by any entity should be deleted after a day.
+     * <p>
+     * This is scheduled to get fired every hour.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removeOrphans() {
+        mediaObjectRepository
+            .findAllByReferenceCountAndCreatedDateBefore(0, Instant.now().minus(ORPHAN_RETENTION))
+            .forEach(mediaObject -> {
+                log.debug("Deleting orphan media {}", mediaObject.getHash());
+                mediaObjectRepository.delete(mediaObject);
+                afterCommit(() -> deleteFile(mediaObject.getHash()));
+            });
+    }
+
+    /**
+     * Get the metadata of a file.
+     *
+     * @param hash the hash of the file
+     * @return the metadata of the file
+     */
+    @Transactional(readOnly = true)
+    public Optional<MediaObject> findOne(String hash) {
+        return mediaObjectRepository.findById(hash);
+    }
+
+    /**
+     * @param hash the hash of a file
+     * @return the content of the file
+     */
+    @Transactional(readOnly = true)
+    public byte[] read(String hash) {
+        try {
+            return Files.readAllBytes(getPath(hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read media " + hash, e);
+        }
+    }
+
+    /**
+     * @param hash the hash of a file
+     * @return the path of the file, spread over sub-directories named after the first characters of the hash
+     */
+    public Path getPath(String hash) {
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid media hash " + hash);
+        }
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * @param content some content
+     * @return the hexadecimal SHA-256 hash of the content
+     */
+    public static String hash(byte[] content) {
+        MessageDigest digest = newDigest();
+        return toHex(digest.digest(content));
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Insert the row of a file unless it exists, and read it, inserting it again if it is deleted meanwhile.
+     * <p>
+     * A second conflict cannot be another concurrent insert, and is thrown.
+     */
+    private MediaObject insertUnreferenced(String hash, String contentType, long size, Supplier<Optional<MediaObject>> reader) {
+        DataIntegrityViolationException conflict = null;
+        while (true) {
+            try {
+                mediaObjectRepository.insertUnreferenced(hash, contentType, size, Instant.now());
+            } catch (DataIntegrityViolationException e) {
+                if (conflict != null) {
+                    throw e;
+                }
+                // Stored concurrently
+                conflict = e;
+            }
+            Optional<MediaObject> mediaObject = reader.get();
+            if (mediaObject.isPresent()) {
+                return mediaObject.get();
+            }
+        }
+    }
+
+    private void writeFile(String hash, byte[] content) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, hash, ".tmp");
+            try {
+                Files.write(temporary, content);
+                moveFile(hash, temporary);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store media " + hash, e);
+        }
+    }
+
+    /**
+     * Move a temporary file to the path of a hash, unless the file is already there.
+     */
+    private void moveFile(String hash, Path temporary) throws IOException {
+        Path path = getPath(hash);
+        synchronized (fileLock(hash)) {
+            if (Files.exists(path)) {
+                return;
+            }
+            Files.createDirectories(path.getParent());
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        eventPublisher.publishEvent(new MediaStoredEvent(hash));
+    }
+
+    private Object fileLock(String hash) {
+        return fileLocks[Integer.parseInt(hash.substring(0, 2), 16)];
+    }
+
+    /**
+     * Recognize the supported picture formats from their first bytes.
+     */
+    static Optional<String> detectContentType(byte[] signature, int length) {
+        if (startsWith(signature, length, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of("image/jpeg");
+        }
+        if (startsWith(signature, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of("image/png");
+        }
+        if (startsWith(signature, length, 'G', 'I', 'F', '8')) {
+            return Optional.of("image/gif");
+        }
+        if (startsWith(signature, length, 'R', 'I', 'F', 'F') && length >= 12
+            && signature[8] == 'W' && signature[9] == 'E' && signature[10] == 'B' && signature[11] == 'P') {
+            return Optional.of("image/webp");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deleteFile(String hash) {
+        Path path = getPath(hash);
+        synchronized (fileLock(hash)) {
+            if (mediaObjectRepository.existsById(hash)) {
+                // Stored again since it was released
+                return;
+            }
+            try {
+                Files.deleteIfExists(path);
+                // Derived files, such as thumbnails, are named after the original
+                try (DirectoryStream<Path> derivedFiles = Files.newDirectoryStream(path.getParent(), hash + "-*")) {
+                    for (Path derivedFile : derivedFiles) {
+                        Files.deleteIfExists(derivedFile);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete media {}: {}", hash, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Published when a new file is written to the media store.
+     */
+    public static class MediaStoredEvent {
+
+        private final String hash;
+
+        public MediaStoredEvent(String hash) {
+            this.hash = hash;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+    }
+}
@@ -2,22 +2,24 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
 import edu.socialnetwork.domain.Message;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.MessageRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.MessageCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Message entities in the database.
@@ -27,13 +29,15 @@ import edu.socialnetwork.service.dto.MessageCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class MessageQueryService extends QueryService<Message> {
+public class MessageQueryService extends KeysetQueryService<Message> {
 
     private final Logger log = LoggerFactory.getLogger(MessageQueryService.class);
 
     private final MessageRepository messageRepository;
 
-    public MessageQueryService(MessageRepository messageRepository) {
+    public MessageQueryService(MessageRepository messageRepository, EntityManager entityManager,
+                               CountCacheService countCacheService) {
+        super(Message.class, entityManager, countCacheService);
         this.messageRepository = messageRepository;
     }
 
@@ -62,6 +66,37 @@ public class MessageQueryService extends QueryService<Message> {
         return messageRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Message} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Message> findByCriteria(MessageCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Message> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> messageRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Message} which matches the criteria from the database, newest first
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Message> findByCriteria(MessageCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Message> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Message_.createdDate, Message_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
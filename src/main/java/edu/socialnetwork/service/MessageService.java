@@ -23,18 +23,26 @@ public class MessageService {
 
     private final MessageRepository messageRepository;
 
-    public MessageService(MessageRepository messageRepository) {
+    private final MediaStoreService mediaStoreService;
+
+    public MessageService(MessageRepository messageRepository, MediaStoreService mediaStoreService) {
         this.messageRepository = messageRepository;
+        this.mediaStoreService = mediaStoreService;
     }
 
     /**
-     * Save a message.
+     * Save a message, storing its new picture in the media store.
      *
      * @param message the entity to save
      * @return the persisted entity
      */
     public Message save(Message message) {
         log.debug("Request to save Message : {}", message);
+        String previousHash = message.getId() != null ?
+            messageRepository.findPictureHashById(message.getId()).orElse(null) : null;
+        message.setPictureHash(mediaStoreService.replace(previousHash,
+            message.getPicture(), message.getPictureContentType(), message.getPictureHash()));
+        message.setPicture(null);
         return messageRepository.save(message);
     }
 
@@ -70,6 +78,7 @@ public class MessageService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Message : {}", id);
+        messageRepository.findPictureHashById(id).ifPresent(mediaStoreService::release);
         messageRepository.deleteById(id);
     }
 }
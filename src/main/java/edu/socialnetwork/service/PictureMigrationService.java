@@ -0,0 +1,77 @@
+package edu.socialnetwork.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Moves the pictures still stored in the legacy {@code picture} columns to the media store.
+ * <p>
+ * Each row is migrated in its own transaction, so that the job can be interrupted and resumed at the next
+ * startup: a row is done once its {@code picture_hash} is set and its {@code picture} cleared.
+ */
+@Service
+public class PictureMigrationService {
+
+    private static final String[] TABLES = {"profile", "message", "direct_message"};
+
+    private final Logger log = LoggerFactory.getLogger(PictureMigrationService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MediaStoreService mediaStoreService;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public PictureMigrationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   MediaStoreService mediaStoreService, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mediaStoreService = mediaStoreService;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Migrate every legacy picture.
+     *
+     * @return the number of migrated rows
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int migrate() {
+        int migrated = 0;
+        for (String table : TABLES) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE picture IS NOT NULL AND picture_hash IS NULL", Long.class);
+            for (Long id : ids) {
+                transactionTemplate.execute(status -> migrate(table, id));
+            }
+            if (!ids.isEmpty()) {
+                log.info("Moved {} pictures of table {} to the media store", ids.size(), table);
+            }
+            migrated += ids.size();
+        }
+        if (migrated > 0) {
+            entityManagerFactory.getCache().evictAll();
+        }
+        return migrated;
+    }
+
+    private Void migrate(String table, Long id) {
+        String hash = jdbcTemplate.queryForObject(
+            "SELECT picture, picture_content_type FROM " + table + " WHERE id = ?",
+            (resultSet, rowNum) -> mediaStoreService.store(resultSet.getBytes("picture"), resultSet.getString("picture_content_type")),
+            id);
+        jdbcTemplate.update("UPDATE " + table + " SET picture_hash = ?, picture = NULL WHERE id = ?", hash, id);
+        return null;
+    }
+}
@@ -0,0 +1,503 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Ethnicity;
+import edu.socialnetwork.domain.Gender;
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.domain.Relationship;
+import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.dto.ProfileCriteria;
+import edu.socialnetwork.service.dto.ProfileFacetsDTO;
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.RangeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory bitmap index of the low-cardinality attributes of the profiles, for matchmaking filters.
+ * <p>
+ * Every profile gets a dense ordinal, and every value of an {@link Attribute} a {@link BitSet} of the
+ * ordinals of the profiles having it, so that a criteria on these attributes is evaluated as bitmap ANDs
+ * and ORs instead of one join per attribute. Only the page of matching ids is then loaded from the
+ * database.
+ * <p>
+ * The index is built when the application starts, and kept up to date by {@link ProfileService}.
+ * Ordinals are assigned in id order, and are not reused before the next rebuild.
+ * <p>
+ * The birth dates are kept by ordinal too, to count the profiles by age bucket for the search facets.
+ */
+@Service
+public class ProfileBitmapIndexService {
+
+    /**
+     * The indexed attributes.
+     */
+    public enum Attribute {
+        GENDER, ETHNICITY, RELATIONSHIP, UNIT_SYSTEM, BANNED, SHOW_AGE
+    }
+
+    /**
+     * The lower bound of each age bucket of the facets.
+     */
+    static final int[] AGE_BUCKETS = {18, 25, 35, 45, 55, 65};
+
+    private static final int NO_BIRTH_DATE = Integer.MIN_VALUE;
+
+    private final Logger log = LoggerFactory.getLogger(ProfileBitmapIndexService.class);
+
+    private final ProfileRepository profileRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private long[] ids = new long[1024];
+
+    private int[] birthDates = new int[1024];
+
+    private int ordinalCount;
+
+    /**
+     * Whether ordinals are in id order, which is the case unless a profile was indexed after a profile with
+     * a greater id.
+     */
+    private boolean ordered = true;
+
+    /**
+     * The ordinals of the indexed profiles, without the removed ones.
+     */
+    private final BitSet live = new BitSet();
+
+    private final Map<Attribute, Map<Object, BitSet>> bitmaps = new EnumMap<>(Attribute.class);
+
+    public ProfileBitmapIndexService(ProfileRepository profileRepository) {
+        this.profileRepository = profileRepository;
+        for (Attribute attribute : Attribute.values()) {
+            bitmaps.put(attribute, new HashMap<>());
+        }
+    }
+
+    /**
+     * Load the attributes of every profile into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.debug("Rebuilding profile bitmap index");
+        List<Object[]> rows = profileRepository.findAllProfileAttributes();
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            ids = new long[Math.max(1024, rows.size())];
+            birthDates = new int[ids.length];
+            ordinalCount = 0;
+            ordered = true;
+            live.clear();
+            bitmaps.values().forEach(Map::clear);
+            for (Object[] row : rows) {
+                put((Long) row[0], Arrays.copyOfRange(row, 1, 7), (LocalDate) row[7]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Profile bitmap index built with {} profiles", rows.size());
+    }
+
+    /**
+     * Index the attributes of a profile.
+     *
+     * @param profile the persisted profile
+     */
+    public void update(Profile profile) {
+        Gender gender = profile.getGender();
+        Ethnicity ethnicity = profile.getEthnicity();
+        Relationship relationship = profile.getRelationship();
+        Object[] values = {
+            gender != null ? gender.getId() : null,
+            ethnicity != null ? ethnicity.getId() : null,
+            relationship != null ? relationship.getId() : null,
+            profile.getUnitSystem(),
+            profile.isBanned(),
+            profile.isShowAge()
+        };
+        lock.writeLock().lock();
+        try {
+            put(profile.getId(), values, profile.getBirthDate());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a profile from the index.
+     *
+     * @param profileId the id of the profile
+     */
+    public void remove(Long profileId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(profileId);
+            if (ordinal != null) {
+                live.clear(ordinal);
+                clearValues(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether a criteria can be evaluated by the index: it must filter on at least one indexed attribute, on
+     * no other attribute, with no other operator than equals, in and specified, and be sorted by id only.
+     *
+     * @param criteria the criteria
+     * @param sort the requested sort
+     * @return true if {@link #findIds} and {@link #count} can evaluate the criteria
+     */
+    public static boolean supports(ProfileCriteria criteria, Sort sort) {
+        return criteria != null && hasIndexedFilters(criteria) && !hasOtherFilters(criteria)
+            && sort.stream().allMatch(order -> order.getProperty().equals("id"));
+    }
+
+    /**
+     * @param criteria the criteria
+     * @return whether the criteria filters on an indexed attribute
+     */
+    public static boolean hasIndexedFilters(ProfileCriteria criteria) {
+        return isSet(criteria.getGenderId()) || isSet(criteria.getEthnicityId()) || isSet(criteria.getRelationshipId())
+            || isSet(criteria.getUnitSystem()) || isSet(criteria.getBanned()) || isSet(criteria.getShowAge());
+    }
+
+    /**
+     * @param criteria the criteria
+     * @return whether the criteria filters on an attribute which is not indexed, or with an operator which the
+     * index cannot evaluate
+     */
+    public static boolean hasOtherFilters(ProfileCriteria criteria) {
+        return hasRange(criteria.getGenderId()) || hasRange(criteria.getEthnicityId())
+            || hasRange(criteria.getRelationshipId())
+            || criteria.getId() != null || criteria.getBirthDate() != null
+            || criteria.getHeight() != null || criteria.getWeight() != null || criteria.getAboutMe() != null
+            || criteria.getDisplayName() != null || criteria.getFilterPreferences() != null
+            || criteria.getLocationId() != null || criteria.getUserId() != null
+            || criteria.getSentInvitationId() != null || criteria.getReceivedInvitationId() != null
+            || criteria.getSentBlockId() != null || criteria.getReceivedBlockId() != null
+            || criteria.getSentMessageId() != null || criteria.getSentDirectMessageId() != null
+            || criteria.getReceivedDirectMessageId() != null || criteria.getAdminChatroomId() != null
+            || criteria.getJoinedChatroomId() != null;
+    }
+
+    /**
+     * Copy a criteria without its filters on indexed attributes, but for their range operators.
+     *
+     * @param criteria the criteria
+     * @return the filters of the criteria which the index cannot evaluate
+     */
+    public static ProfileCriteria withoutIndexedFilters(ProfileCriteria criteria) {
+        ProfileCriteria result = new ProfileCriteria(criteria);
+        result.setGenderId(rangeOf(criteria.getGenderId()));
+        result.setEthnicityId(rangeOf(criteria.getEthnicityId()));
+        result.setRelationshipId(rangeOf(criteria.getRelationshipId()));
+        result.setUnitSystem(null);
+        result.setBanned(null);
+        result.setShowAge(null);
+        return result;
+    }
+
+    /**
+     * Find the ids of the profiles matching a criteria.
+     *
+     * @param criteria a criteria {@link #supports supported} by the index
+     * @param pageable the page to return, sorted by id
+     * @return the page of ids, with the total number of matching profiles
+     */
+    public Page<Long> findIds(ProfileCriteria criteria, Pageable pageable) {
+        boolean descending = pageable.getSort().stream().anyMatch(Sort.Order::isDescending);
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(live, criteria, null);
+            int total = matches.cardinality();
+            long offset = pageable.getOffset();
+            List<Long> content = new ArrayList<>(Math.min(pageable.getPageSize(), total));
+            if (offset < total) {
+                if (ordered) {
+                    collectInOrder(matches, descending, (int) offset, pageable.getPageSize(), content);
+                } else {
+                    collectSorted(matches, descending, (int) offset, pageable.getPageSize(), content);
+                }
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the profiles matching a criteria.
+     *
+     * @param criteria a criteria {@link #supports supported} by the index
+     * @return the number of matching profiles
+     */
+    public long count(ProfileCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            return match(live, criteria, null).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the profiles matching a criteria for every gender, ethnicity, relationship and age bucket, in one
+     * pass over the index.
+     * <p>
+     * The counts of an attribute ignore the filter of the criteria on that attribute. Profiles hiding their
+     * age are left out of the age buckets.
+     *
+     * @param criteria a criteria filtering on indexed attributes only, or null
+     * @param today the date the ages are computed at
+     * @return the counts
+     */
+    public ProfileFacetsDTO facets(ProfileCriteria criteria, LocalDate today) {
+        ProfileFacetsDTO facets = new ProfileFacetsDTO();
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(live, criteria, null);
+            facets.setTotal(matches.cardinality());
+            countValues(Attribute.GENDER, match(live, criteria, Attribute.GENDER), facets.getGenders());
+            countValues(Attribute.ETHNICITY, match(live, criteria, Attribute.ETHNICITY), facets.getEthnicities());
+            countValues(Attribute.RELATIONSHIP, match(live, criteria, Attribute.RELATIONSHIP), facets.getRelationships());
+            countAges(matches, today, facets.getAges());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return facets;
+    }
+
+    /**
+     * @param profileId the id of a profile
+     * @return whether the profile is indexed as banned
+     */
+    public boolean isBanned(long profileId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(profileId);
+            BitSet banned = bitmaps.get(Attribute.BANNED).get(Boolean.TRUE);
+            return ordinal != null && banned != null && banned.get(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed profiles
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Long profileId, Object[] values, LocalDate birthDate) {
+        Integer ordinal = ordinals.get(profileId);
+        if (ordinal == null) {
+            ordinal = ordinalCount++;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                birthDates = Arrays.copyOf(birthDates, ids.length);
+            }
+            ids[ordinal] = profileId;
+            ordered = ordered && (ordinal == 0 || ids[ordinal - 1] < profileId);
+            ordinals.put(profileId, ordinal);
+            live.set(ordinal);
+        } else {
+            clearValues(ordinal);
+        }
+        birthDates[ordinal] = birthDate != null ? (int) birthDate.toEpochDay() : NO_BIRTH_DATE;
+        for (Attribute attribute : Attribute.values()) {
+            bitmaps.get(attribute).computeIfAbsent(values[attribute.ordinal()], value -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private void clearValues(int ordinal) {
+        for (Map<Object, BitSet> values : bitmaps.values()) {
+            values.values().removeIf(bitmap -> {
+                bitmap.clear(ordinal);
+                return bitmap.isEmpty();
+            });
+        }
+    }
+
+    /**
+     * Evaluate the filters of a criteria on indexed attributes, but the excluded one.
+     */
+    private BitSet match(BitSet base, ProfileCriteria criteria, Attribute excluded) {
+        BitSet result = (BitSet) base.clone();
+        if (criteria == null) {
+            return result;
+        }
+        and(result, Attribute.GENDER, excluded, criteria.getGenderId());
+        and(result, Attribute.ETHNICITY, excluded, criteria.getEthnicityId());
+        and(result, Attribute.RELATIONSHIP, excluded, criteria.getRelationshipId());
+        and(result, Attribute.UNIT_SYSTEM, excluded, criteria.getUnitSystem());
+        and(result, Attribute.BANNED, excluded, criteria.getBanned());
+        and(result, Attribute.SHOW_AGE, excluded, criteria.getShowAge());
+        return result;
+    }
+
+    /**
+     * Restrict a result to a filter, with the precedence of the SQL specifications: equals, then in, then
+     * specified.
+     */
+    private void and(BitSet result, Attribute attribute, Attribute excluded, Filter<?> filter) {
+        if (attribute == excluded || !isSet(filter)) {
+            return;
+        }
+        Map<Object, BitSet> values = bitmaps.get(attribute);
+        if (filter.getEquals() != null) {
+            result.and(values.getOrDefault(filter.getEquals(), new BitSet()));
+        } else if (filter.getIn() != null) {
+            BitSet union = new BitSet();
+            for (Object value : filter.getIn()) {
+                if (value != null && values.containsKey(value)) {
+                    union.or(values.get(value));
+                }
+            }
+            result.and(union);
+        } else if (filter.getSpecified()) {
+            BitSet unspecified = values.get(null);
+            if (unspecified != null) {
+                result.andNot(unspecified);
+            }
+        } else {
+            result.and(values.getOrDefault(null, new BitSet()));
+        }
+    }
+
+    private void countValues(Attribute attribute, BitSet matches, Map<Long, Long> counts) {
+        bitmaps.get(attribute).forEach((value, bitmap) -> {
+            if (value != null) {
+                BitSet intersection = (BitSet) bitmap.clone();
+                intersection.and(matches);
+                counts.put((Long) value, (long) intersection.cardinality());
+            }
+        });
+    }
+
+    private void countAges(BitSet matches, LocalDate today, Map<String, Long> counts) {
+        AgeCounts ages = new AgeCounts(today);
+        BitSet showingAge = bitmaps.get(Attribute.SHOW_AGE).get(Boolean.TRUE);
+        if (showingAge != null) {
+            BitSet candidates = (BitSet) matches.clone();
+            candidates.and(showingAge);
+            for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                if (birthDates[ordinal] != NO_BIRTH_DATE) {
+                    ages.add(birthDates[ordinal], 1);
+                }
+            }
+        }
+        ages.putInto(counts);
+    }
+
+    private void collectInOrder(BitSet matches, boolean descending, int offset, int size, List<Long> content) {
+        int skipped = 0;
+        int ordinal = descending ? matches.previousSetBit(ordinalCount - 1) : matches.nextSetBit(0);
+        while (ordinal >= 0 && content.size() < size) {
+            if (skipped++ >= offset) {
+                content.add(ids[ordinal]);
+            }
+            ordinal = descending ? matches.previousSetBit(ordinal - 1) : matches.nextSetBit(ordinal + 1);
+        }
+    }
+
+    private void collectSorted(BitSet matches, boolean descending, int offset, int size, List<Long> content) {
+        long[] matchingIds = matches.stream().mapToLong(ordinal -> ids[ordinal]).sorted().toArray();
+        for (int i = offset; i < matchingIds.length && content.size() < size; i++) {
+            content.add(matchingIds[descending ? matchingIds.length - 1 - i : i]);
+        }
+    }
+
+    private static boolean isSet(Filter<?> filter) {
+        return filter != null && (filter.getEquals() != null || filter.getIn() != null || filter.getSpecified() != null);
+    }
+
+    private static boolean hasRange(RangeFilter<?> filter) {
+        return filter != null && (filter.getGreaterThan() != null || filter.getGreaterOrEqualThan() != null
+            || filter.getLessThan() != null || filter.getLessOrEqualThan() != null);
+    }
+
+    /**
+     * @return the range operators of a filter, or null if it has none
+     */
+    private static LongFilter rangeOf(LongFilter filter) {
+        if (!hasRange(filter)) {
+            return null;
+        }
+        LongFilter range = new LongFilter();
+        range.setGreaterThan(filter.getGreaterThan());
+        range.setGreaterOrEqualThan(filter.getGreaterOrEqualThan());
+        range.setLessThan(filter.getLessThan());
+        range.setLessOrEqualThan(filter.getLessOrEqualThan());
+        return range;
+    }
+
+    /**
+     * The number of profiles of each age bucket of the facets.
+     */
+    static final class AgeCounts {
+
+        /**
+         * A profile is at least AGE_BUCKETS[i] years old if born on or before latestBirthDates[i], in epoch days.
+         */
+        private final int[] latestBirthDates = new int[AGE_BUCKETS.length];
+
+        private final long[] counts = new long[AGE_BUCKETS.length];
+
+        AgeCounts(LocalDate today) {
+            for (int i = 0; i < AGE_BUCKETS.length; i++) {
+                latestBirthDates[i] = (int) today.minusYears(AGE_BUCKETS[i]).toEpochDay();
+            }
+        }
+
+        void add(int birthDate, long count) {
+            for (int i = AGE_BUCKETS.length - 1; i >= 0; i--) {
+                if (birthDate <= latestBirthDates[i]) {
+                    counts[i] += count;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Put the counts labelled such as "25-34", youngest first.
+         */
+        void putInto(Map<String, Long> ages) {
+            for (int i = 0; i < AGE_BUCKETS.length; i++) {
+                String label = i + 1 < AGE_BUCKETS.length ? AGE_BUCKETS[i] + "-" + (AGE_BUCKETS[i + 1] - 1) : AGE_BUCKETS[i] + "+";
+                ages.put(label, counts[i]);
+            }
+        }
+    }
+}
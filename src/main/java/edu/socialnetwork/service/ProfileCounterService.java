@@ -0,0 +1,307 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.DirectMessage;
+import edu.socialnetwork.domain.Invitation;
+import edu.socialnetwork.domain.ProfileCounter;
+import edu.socialnetwork.repository.JobLockRepository;
+import edu.socialnetwork.repository.ProfileCounterRepository;
+import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.dto.ProfileCountersDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import static edu.socialnetwork.service.util.TransactionUtil.afterCommit;
+
+/**
+ * Service maintaining the badge counts of the profiles: friends, pending invitations and unread direct messages.
+ * <p>
+ * The changes of the invitations and direct messages are recorded once their transaction is committed, in
+ * {@link LongAdder}s which concurrent requests update without contention, and are added to the
+ * {@link ProfileCounter} table by a periodic flush, in a single update statement per profile. The counts read
+ * are the ones of the table plus the changes not flushed yet. A nightly repair recomputes the table from the
+ * invitations and direct messages, to fix any drift, such as the changes lost by a restart before a flush or
+ * made without this service. It runs in the database, one range of profile ids at a time, and on one instance
+ * only, the one holding the {@link edu.socialnetwork.domain.JobLock} of the repair.
+ * <p>
+ * The changes of every instance not flushed yet are already counted by a repair, if they were committed before it.
+ * So every repair increments the repair version of the counters it recounts, and each change is recorded with the
+ * repair version of the counters it affects, read with a share lock in its own transaction: a repair cannot
+ * recount them until the change is committed. The changes recorded with an older repair version than the one of
+ * the counters are neither read nor flushed.
+ */
+@Service
+public class ProfileCounterService {
+
+    static final String REPAIR_LOCK = "profile-counter-repair";
+
+    /**
+     * The number of profiles whose counters are recomputed per statement.
+     */
+    private static final int REPAIR_BATCH_SIZE = 1000;
+
+    /**
+     * The time after which the lock of a repair which did not release it, because its instance stopped, expires.
+     */
+    private static final Duration REPAIR_LOCK_DURATION = Duration.ofHours(1);
+
+    private final Logger log = LoggerFactory.getLogger(ProfileCounterService.class);
+
+    private final ProfileCounterRepository profileCounterRepository;
+
+    private final ProfileRepository profileRepository;
+
+    private final JobLockRepository jobLockRepository;
+
+    /**
+     * Writers share the read lock to add to the deltas, a flush takes the write lock to swap them.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Deltas> deltas = new ConcurrentHashMap<>();
+
+    public ProfileCounterService(ProfileCounterRepository profileCounterRepository, ProfileRepository profileRepository,
+                                 JobLockRepository jobLockRepository) {
+        this.profileCounterRepository = profileCounterRepository;
+        this.profileRepository = profileRepository;
+        this.jobLockRepository = jobLockRepository;
+    }
+
+    /**
+     * Count the change of an invitation, once the current transaction is committed.
+     *
+     * @param before the invitation before the change, or null if it is created
+     * @param after the invitation after the change, or null if it is deleted
+     */
+    @Transactional
+    public void invitationChanged(Invitation before, Invitation after) {
+        Map<Long, Long> repairVersions = new TreeMap<>();
+        for (Invitation invitation : new Invitation[]{before, after}) {
+            if (invitation != null && invitation.getSent() != null) {
+                repairVersions.put(invitation.getSent().getId(), null);
+            }
+            if (invitation != null && invitation.getReceived() != null) {
+                repairVersions.put(invitation.getReceived().getId(), null);
+            }
+        }
+        lockRepairVersions(repairVersions);
+        afterCommit(() -> {
+            addInvitation(before, -1, repairVersions);
+            addInvitation(after, 1, repairVersions);
+        });
+    }
+
+    /**
+     * Count the change of a direct message, once the current transaction is committed.
+     *
+     * @param before the direct message before the change, or null if it is created
+     * @param after the direct message after the change, or null if it is deleted
+     */
+    @Transactional
+    public void directMessageChanged(DirectMessage before, DirectMessage after) {
+        Map<Long, Long> repairVersions = new TreeMap<>();
+        for (DirectMessage directMessage : new DirectMessage[]{before, after}) {
+            if (directMessage != null && directMessage.getRecipient() != null) {
+                repairVersions.put(directMessage.getRecipient().getId(), null);
+            }
+        }
+        lockRepairVersions(repairVersions);
+        afterCommit(() -> {
+            addDirectMessage(before, -1, repairVersions);
+            addDirectMessage(after, 1, repairVersions);
+        });
+    }
+
+    /**
+     * Get the counts of a profile, including the changes not flushed yet.
+     *
+     * @param profileId the id of the profile
+     * @return the counts of the profile
+     */
+    @Transactional(readOnly = true)
+    public ProfileCountersDTO getCounters(Long profileId) {
+        ProfileCounter counter = profileCounterRepository.findById(profileId)
+            .orElseGet(() -> new ProfileCounter().friendCount(0L).pendingInvitationCount(0L).unreadDirectMessageCount(0L)
+                .repairVersion(0L));
+        long friends = counter.getFriendCount();
+        long pendingInvitations = counter.getPendingInvitationCount();
+        long unreadDirectMessages = counter.getUnreadDirectMessageCount();
+        lock.readLock().lock();
+        try {
+            Deltas pending = deltas.get(profileId);
+            if (pending != null && pending.repairVersion == counter.getRepairVersion()) {
+                friends += pending.friends.sum();
+                pendingInvitations += pending.pendingInvitations.sum();
+                unreadDirectMessages += pending.unreadDirectMessages.sum();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ProfileCountersDTO(friends, pendingInvitations, unreadDirectMessages);
+    }
+
+    /**
+     * Add the changes counted since the last flush to the table.
+     * <p>
+     * This is scheduled to get fired every 5 seconds.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public synchronized void flush() {
+        Map<Long, Deltas> flushed;
+        lock.writeLock().lock();
+        try {
+            if (deltas.isEmpty()) {
+                return;
+            }
+            flushed = deltas;
+            deltas = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Flushing the counters of {} profiles", flushed.size());
+        flushed.forEach((profileId, pending) -> {
+            long friends = pending.friends.sum();
+            long pendingInvitations = pending.pendingInvitations.sum();
+            long unreadDirectMessages = pending.unreadDirectMessages.sum();
+            if (friends == 0 && pendingInvitations == 0 && unreadDirectMessages == 0) {
+                return;
+            }
+            try {
+                // Not added if the counters were recounted by a repair since
+                if (profileCounterRepository.increment(profileId, pending.repairVersion, friends, pendingInvitations,
+                    unreadDirectMessages) == 0 && !profileCounterRepository.existsById(profileId)
+                    && profileRepository.existsById(profileId)) {
+                    insert(profileId, friends, pendingInvitations, unreadDirectMessages);
+                }
+            } catch (DataAccessException e) {
+                // Counted again by the next repair
+                log.warn("Could not flush the counters of Profile {}: {}", profileId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Recompute the counts of every profile from the invitations and direct messages, unless another instance is
+     * already doing it.
+     * <p>
+     * Each range of profile ids is recomputed by its own statements and transactions, so that the tables are
+     * never locked for long.
+     * <p>
+     * This is scheduled to get fired every day, at 04:15 (am).
+     */
+    @Scheduled(cron = "0 15 4 * * ?")
+    public void repair() {
+        String owner = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        if (jobLockRepository.lock(REPAIR_LOCK, owner, now, now.plus(REPAIR_LOCK_DURATION)) == 0) {
+            log.debug("The counters are being repaired by another instance");
+            return;
+        }
+        try {
+            long profiles = 0;
+            long afterId = 0;
+            List<Long> ids;
+            while (!(ids = profileRepository.findIdsAfter(afterId, PageRequest.of(0, REPAIR_BATCH_SIZE))).isEmpty()) {
+                long lastId = ids.get(ids.size() - 1);
+                profileCounterRepository.insertMissing(afterId, lastId);
+                profiles += profileCounterRepository.recount(afterId, lastId);
+                afterId = lastId;
+            }
+            log.debug("Repaired the counters of {} profiles", profiles);
+        } finally {
+            jobLockRepository.unlock(REPAIR_LOCK, owner, Instant.now());
+        }
+    }
+
+    private void insert(Long profileId, long friends, long pendingInvitations, long unreadDirectMessages) {
+        try {
+            profileCounterRepository.saveAndFlush(new ProfileCounter().profileId(profileId)
+                .friendCount(friends).pendingInvitationCount(pendingInvitations).unreadDirectMessageCount(unreadDirectMessages));
+        } catch (DataIntegrityViolationException e) {
+            // Inserted meanwhile by another instance, or by a repair which counted the changes already
+            profileCounterRepository.increment(profileId, 0L, friends, pendingInvitations, unreadDirectMessages);
+        }
+    }
+
+    /**
+     * Read the repair versions of the counters of some profiles, locking them in ascending id order.
+     */
+    private void lockRepairVersions(Map<Long, Long> repairVersions) {
+        repairVersions.replaceAll((profileId, repairVersion) -> profileCounterRepository.findOneForShare(profileId)
+            .map(ProfileCounter::getRepairVersion)
+            .orElse(0L));
+    }
+
+    private void addInvitation(Invitation invitation, int sign, Map<Long, Long> repairVersions) {
+        if (invitation == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(invitation.isAccepted())) {
+            if (invitation.getSent() != null && invitation.getReceived() != null) {
+                add(invitation.getSent().getId(), repairVersions, deltas -> deltas.friends, sign);
+                add(invitation.getReceived().getId(), repairVersions, deltas -> deltas.friends, sign);
+            }
+        } else if (invitation.isAccepted() == null && invitation.getReceived() != null) {
+            add(invitation.getReceived().getId(), repairVersions, deltas -> deltas.pendingInvitations, sign);
+        }
+    }
+
+    private void addDirectMessage(DirectMessage directMessage, int sign, Map<Long, Long> repairVersions) {
+        if (directMessage != null && directMessage.getReadDate() == null && directMessage.getRecipient() != null) {
+            add(directMessage.getRecipient().getId(), repairVersions, deltas -> deltas.unreadDirectMessages, sign);
+        }
+    }
+
+    private void add(Long profileId, Map<Long, Long> repairVersions, Function<Deltas, LongAdder> counter, int delta) {
+        long repairVersion = repairVersions.get(profileId);
+        lock.readLock().lock();
+        try {
+            // The changes recorded with an older repair version were counted by the repair
+            Deltas pending = deltas.compute(profileId, (id, current) ->
+                current == null || current.repairVersion < repairVersion ? new Deltas(repairVersion) : current);
+            if (pending.repairVersion == repairVersion) {
+                counter.apply(pending).add(delta);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The changes of the counts of a profile since the last flush.
+     */
+    private static final class Deltas {
+
+        /**
+         * The repair version of the counters the changes were made to.
+         */
+        private final long repairVersion;
+
+        private final LongAdder friends = new LongAdder();
+
+        private final LongAdder pendingInvitations = new LongAdder();
+
+        private final LongAdder unreadDirectMessages = new LongAdder();
+
+        private Deltas(long repairVersion) {
+            this.repairVersion = repairVersion;
+        }
+    }
+}
@@ -1,40 +1,69 @@
 package edu.socialnetwork.service;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
+import edu.socialnetwork.config.ApplicationProperties;
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.ProfileCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
+import edu.socialnetwork.service.dto.ProfileFacetsDTO;
 
 /**
  * Service for executing complex queries for Profile entities in the database.
  * The main input is a {@link ProfileCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
  * It returns a {@link List} of {@link Profile} or a {@link Page} of {@link Profile} which fulfills the criteria.
+ * Pages and counts filtering only on low-cardinality attributes are evaluated on the {@link ProfileBitmapIndexService}.
  */
 @Service
 @Transactional(readOnly = true)
-public class ProfileQueryService extends QueryService<Profile> {
+public class ProfileQueryService extends SemiJoinQueryService<Profile> {
 
     private final Logger log = LoggerFactory.getLogger(ProfileQueryService.class);
 
     private final ProfileRepository profileRepository;
 
-    public ProfileQueryService(ProfileRepository profileRepository) {
+    private final ProfileBitmapIndexService profileBitmapIndexService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProfileQueryService(ProfileRepository profileRepository, ProfileBitmapIndexService profileBitmapIndexService,
+                               ApplicationProperties applicationProperties, EntityManager entityManager,
+                               CountCacheService countCacheService) {
+        super(Profile.class, applicationProperties, entityManager, countCacheService);
         this.profileRepository = profileRepository;
+        this.profileBitmapIndexService = profileBitmapIndexService;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -58,10 +87,50 @@ public class ProfileQueryService extends QueryService<Profile> {
     @Transactional(readOnly = true)
     public Page<Profile> findByCriteria(ProfileCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        if (isIndexed(criteria, page.getSort())) {
+            return findByIndex(criteria, page);
+        }
         final Specification<Profile> specification = createSpecification(criteria);
         return profileRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Profile} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}. They are
+     * evaluated on the bitmap index whatever the count mode, when the criteria allow it.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Profile> findByCriteria(ProfileCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        if (isIndexed(criteria, page.getSort())) {
+            // The index counts exactly for free, only the slice needs to drop the total
+            Page<Profile> indexed = findByIndex(criteria, page);
+            return count == CountMode.NONE ? new SliceImpl<>(indexed.getContent(), page, indexed.hasNext()) : indexed;
+        }
+        final Specification<Profile> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> profileRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Profile} which matches the criteria from the database, by ascending id
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Profile> findByCriteria(ProfileCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Profile> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Profile_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -70,14 +139,107 @@ public class ProfileQueryService extends QueryService<Profile> {
     @Transactional(readOnly = true)
     public long countByCriteria(ProfileCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
+        if (isIndexed(criteria, Sort.unsorted())) {
+            return profileBitmapIndexService.count(criteria);
+        }
         final Specification<Profile> specification = createSpecification(criteria);
         return profileRepository.count(specification);
     }
 
+    /**
+     * Count the profiles matching the criteria by gender, ethnicity, relationship and age bucket. The counts of
+     * an attribute ignore the filter of the criteria on that attribute.
+     * <p>
+     * They are counted on the {@link ProfileBitmapIndexService} when the criteria filters on indexed attributes
+     * only, and with the memory strategy only, as the index misses the profiles saved without
+     * {@link ProfileService}. Otherwise they are counted in SQL, by one grouped count per attribute, which only
+     * returns the values of at least one matching profile.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the counts.
+     */
+    @Transactional(readOnly = true)
+    public ProfileFacetsDTO findFacets(ProfileCriteria criteria) {
+        log.debug("find facets by criteria : {}", criteria);
+        LocalDate today = LocalDate.now();
+        if (applicationProperties.getProfileFilter().getStrategy() == ApplicationProperties.ProfileFilter.Strategy.MEMORY
+            && (criteria == null || !ProfileBitmapIndexService.hasOtherFilters(criteria))) {
+            return profileBitmapIndexService.facets(criteria, today);
+        }
+        ProfileCriteria all = criteria != null ? criteria : new ProfileCriteria();
+        ProfileFacetsDTO facets = new ProfileFacetsDTO();
+        facets.setTotal(profileRepository.count(createSpecification(all)));
+
+        ProfileCriteria anyGender = new ProfileCriteria(all);
+        anyGender.setGenderId(null);
+        facets.getGenders().putAll(countBy(createSpecification(anyGender),
+            root -> root.join(Profile_.gender).get(Gender_.id)));
+        ProfileCriteria anyEthnicity = new ProfileCriteria(all);
+        anyEthnicity.setEthnicityId(null);
+        facets.getEthnicities().putAll(countBy(createSpecification(anyEthnicity),
+            root -> root.join(Profile_.ethnicity).get(Ethnicity_.id)));
+        ProfileCriteria anyRelationship = new ProfileCriteria(all);
+        anyRelationship.setRelationshipId(null);
+        facets.getRelationships().putAll(countBy(createSpecification(anyRelationship),
+            root -> root.join(Profile_.relationship).get(Relationship_.id)));
+
+        // Profiles hiding their age are left out of the age buckets
+        Specification<Profile> showingAge = createSpecification(all)
+            .and((root, query, builder) -> builder.isTrue(root.get(Profile_.showAge)));
+        ProfileBitmapIndexService.AgeCounts ages = new ProfileBitmapIndexService.AgeCounts(today);
+        countBy(showingAge, root -> root.get(Profile_.birthDate)).forEach((birthDate, count) -> {
+            if (birthDate != null) {
+                ages.add((int) birthDate.toEpochDay(), count);
+            }
+        });
+        ages.putInto(facets.getAges());
+        return facets;
+    }
+
+    /**
+     * Count the profiles matching a specification by the value of an expression, in a single grouped query.
+     */
+    private <K> Map<K, Long> countBy(Specification<Profile> specification, Function<Root<Profile>, Expression<K>> key) {
+        CriteriaBuilder builder = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Profile> root = query.from(Profile.class);
+        Expression<K> value = key.apply(root);
+        // Distinct, as collection filters may join
+        Expression<Long> count = builder.countDistinct(root);
+        query.multiselect(value, count).groupBy(value);
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        Map<K, Long> counts = new HashMap<>();
+        for (Tuple tuple : getEntityManager().createQuery(query).getResultList()) {
+            counts.put(tuple.get(value), tuple.get(count));
+        }
+        return counts;
+    }
+
+    private boolean isIndexed(ProfileCriteria criteria, Sort sort) {
+        return applicationProperties.getProfileFilter().getStrategy() == ApplicationProperties.ProfileFilter.Strategy.MEMORY
+            && ProfileBitmapIndexService.supports(criteria, sort);
+    }
+
+    /**
+     * Evaluate the criteria on the bitmap index, and only load the profiles of the requested page.
+     */
+    private Page<Profile> findByIndex(ProfileCriteria criteria, Pageable page) {
+        Page<Long> ids = profileBitmapIndexService.findIds(criteria, page);
+        Map<Long, Profile> profiles = profileRepository.findAllById(ids.getContent()).stream()
+            .collect(Collectors.toMap(Profile::getId, Function.identity()));
+        List<Profile> content = ids.getContent().stream()
+            .map(profiles::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, page, ids.getTotalElements());
+    }
+
     /**
      * Function to convert ProfileCriteria to a {@link Specification}
      */
-    private Specification<Profile> createSpecification(ProfileCriteria criteria) {
+    protected Specification<Profile> createSpecification(ProfileCriteria criteria) {
         Specification<Profile> specification = Specification.where(null);
         if (criteria != null) {
             if (criteria.getId() != null) {
@@ -131,40 +293,31 @@ public class ProfileQueryService extends QueryService<Profile> {
                     root -> root.join(Profile_.ethnicity, JoinType.LEFT).get(Ethnicity_.id)));
             }
             if (criteria.getSentInvitationId() != null) {
-                specification = specification.and(buildSpecification(criteria.getSentInvitationId(),
-                    root -> root.join(Profile_.sentInvitations, JoinType.LEFT).get(Invitation_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getSentInvitationId(), Profile_.sentInvitations, Invitation_.id));
             }
             if (criteria.getReceivedInvitationId() != null) {
-                specification = specification.and(buildSpecification(criteria.getReceivedInvitationId(),
-                    root -> root.join(Profile_.receivedInvitations, JoinType.LEFT).get(Invitation_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getReceivedInvitationId(), Profile_.receivedInvitations, Invitation_.id));
             }
             if (criteria.getSentBlockId() != null) {
-                specification = specification.and(buildSpecification(criteria.getSentBlockId(),
-                    root -> root.join(Profile_.sentBlocks, JoinType.LEFT).get(Block_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getSentBlockId(), Profile_.sentBlocks, Block_.id));
             }
             if (criteria.getReceivedBlockId() != null) {
-                specification = specification.and(buildSpecification(criteria.getReceivedBlockId(),
-                    root -> root.join(Profile_.receivedBlocks, JoinType.LEFT).get(Block_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getReceivedBlockId(), Profile_.receivedBlocks, Block_.id));
             }
             if (criteria.getSentMessageId() != null) {
-                specification = specification.and(buildSpecification(criteria.getSentMessageId(),
-                    root -> root.join(Profile_.sentMessages, JoinType.LEFT).get(Message_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getSentMessageId(), Profile_.sentMessages, Message_.id));
             }
             if (criteria.getSentDirectMessageId() != null) {
-                specification = specification.and(buildSpecification(criteria.getSentDirectMessageId(),
-                    root -> root.join(Profile_.sentDirectMessages, JoinType.LEFT).get(DirectMessage_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getSentDirectMessageId(), Profile_.sentDirectMessages, DirectMessage_.id));
             }
             if (criteria.getReceivedDirectMessageId() != null) {
-                specification = specification.and(buildSpecification(criteria.getReceivedDirectMessageId(),
-                    root -> root.join(Profile_.receivedDirectMessages, JoinType.LEFT).get(DirectMessage_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getReceivedDirectMessageId(), Profile_.receivedDirectMessages, DirectMessage_.id));
             }
             if (criteria.getAdminChatroomId() != null) {
-                specification = specification.and(buildSpecification(criteria.getAdminChatroomId(),
-                    root -> root.join(Profile_.adminChatrooms, JoinType.LEFT).get(Chatroom_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getAdminChatroomId(), Profile_.adminChatrooms, Chatroom_.id));
             }
             if (criteria.getJoinedChatroomId() != null) {
-                specification = specification.and(buildSpecification(criteria.getJoinedChatroomId(),
-                    root -> root.join(Profile_.joinedChatrooms, JoinType.LEFT).get(Chatroom_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getJoinedChatroomId(), Profile_.joinedChatrooms, Chatroom_.id));
             }
         }
         return specification;
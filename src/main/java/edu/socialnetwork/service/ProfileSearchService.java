@@ -0,0 +1,265 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.util.PostingList;
+import edu.socialnetwork.service.util.TextTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory inverted index of the display name and the "about me" text of the profiles.
+ * <p>
+ * Both fields are split into normalized terms by the {@link TextTokenizer}, and every term maps to the
+ * {@link PostingList} of the profiles containing it. A term of the display name counts
+ * {@link #DISPLAY_NAME_WEIGHT} times. A search returns the profiles containing every term of the query,
+ * ranked by BM25.
+ * <p>
+ * The index is built when the application starts, and kept up to date by {@link ProfileService}.
+ */
+@Service
+public class ProfileSearchService {
+
+    static final int DISPLAY_NAME_WEIGHT = 3;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble(Hit::getScore).reversed()
+        .thenComparingLong(Hit::getProfileId);
+
+    private final Logger log = LoggerFactory.getLogger(ProfileSearchService.class);
+
+    private final ProfileRepository profileRepository;
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalLength = new AtomicLong();
+
+    public ProfileSearchService(ProfileRepository profileRepository) {
+        this.profileRepository = profileRepository;
+    }
+
+    /**
+     * Load the text of every profile into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.debug("Rebuilding profile search index");
+        Map<String, PostingList.Builder> builders = new HashMap<>();
+        Map<Long, Document> newDocuments = new HashMap<>();
+        long newTotalLength = 0;
+        for (Object[] row : profileRepository.findAllProfileTexts()) {
+            Long profileId = (Long) row[0];
+            Document document = Document.of((String) row[1], (String) row[2]);
+            document.frequencies.forEach((term, frequency) ->
+                builders.computeIfAbsent(term, key -> new PostingList.Builder()).add(profileId, frequency));
+            newDocuments.put(profileId, document);
+            newTotalLength += document.length;
+        }
+        postings.clear();
+        documents.clear();
+        builders.forEach((term, builder) -> postings.put(term, builder.build()));
+        documents.putAll(newDocuments);
+        totalLength.set(newTotalLength);
+        log.info("Profile search index built with {} profiles and {} terms", documents.size(), postings.size());
+    }
+
+    /**
+     * Index the text of a profile.
+     *
+     * @param profile the persisted profile
+     */
+    public void update(Profile profile) {
+        Document document = Document.of(profile.getDisplayName(), profile.getAboutMe());
+        documents.compute(profile.getId(), (id, previous) -> {
+            if (previous != null) {
+                for (String term : previous.frequencies.keySet()) {
+                    if (!document.frequencies.containsKey(term)) {
+                        removePosting(term, id);
+                    }
+                }
+                totalLength.addAndGet(-previous.length);
+            }
+            document.frequencies.forEach((term, frequency) -> {
+                if (previous == null || !frequency.equals(previous.frequencies.get(term))) {
+                    postings.compute(term, (key, list) -> (list != null ? list : PostingList.empty()).with(id, frequency));
+                }
+            });
+            totalLength.addAndGet(document.length);
+            return document;
+        });
+    }
+
+    /**
+     * Remove a profile from the index.
+     *
+     * @param profileId the id of the profile
+     */
+    public void remove(Long profileId) {
+        documents.computeIfPresent(profileId, (id, previous) -> {
+            previous.frequencies.keySet().forEach(term -> removePosting(term, id));
+            totalLength.addAndGet(-previous.length);
+            return null;
+        });
+    }
+
+    /**
+     * Find the profiles containing every term of a query, best match first.
+     *
+     * @param query the free text query
+     * @param pageable the page to return; its sort is ignored, hits are sorted by relevance
+     * @return the page of hits, with the total number of matching profiles
+     */
+    public Page<Hit> search(String query, Pageable pageable) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        PostingList[] lists = new PostingList[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new PageImpl<>(Collections.emptyList(), pageable, 0);
+            }
+            lists[i++] = list;
+        }
+        // Walk the rarest term, and look the candidates up in the others
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+
+        int documentCount = Math.max(1, documents.size());
+        double averageLength = Math.max(1, (double) totalLength.get() / documentCount);
+        double[] idfs = new double[lists.length];
+        for (int t = 0; t < lists.length; t++) {
+            idfs[t] = Math.log(1 + (documentCount - lists[t].size() + 0.5) / (lists[t].size() + 0.5));
+        }
+
+        long offset = pageable.getOffset();
+        int limit = (int) Math.min(Integer.MAX_VALUE - 1, offset + pageable.getPageSize());
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, lists[0].size()) + 1, BEST_FIRST.reversed());
+        int total = 0;
+        PostingList rarest = lists[0];
+        candidates:
+        for (int c = 0; c < rarest.size(); c++) {
+            long id = rarest.getId(c);
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            double lengthNorm = K1 * (1 - B + B * document.length / averageLength);
+            double score = 0;
+            for (int t = 0; t < lists.length; t++) {
+                int index = t == 0 ? c : lists[t].indexOf(id);
+                if (index < 0) {
+                    continue candidates;
+                }
+                int frequency = lists[t].getFrequency(index);
+                score += idfs[t] * frequency * (K1 + 1) / (frequency + lengthNorm);
+            }
+            total++;
+            Hit hit = new Hit(id, score);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (BEST_FIRST.compare(hit, best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        List<Hit> sorted = new ArrayList<>(best);
+        sorted.sort(BEST_FIRST);
+        List<Hit> content = offset < sorted.size() ? sorted.subList((int) offset, sorted.size()) : Collections.emptyList();
+        return new PageImpl<>(new ArrayList<>(content), pageable, total);
+    }
+
+    /**
+     * @return the number of indexed profiles
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    private void removePosting(String term, Long profileId) {
+        postings.computeIfPresent(term, (key, list) -> {
+            PostingList result = list.without(profileId);
+            return result.size() == 0 ? null : result;
+        });
+    }
+
+    /**
+     * The weighted term frequencies of a profile.
+     */
+    private static final class Document {
+
+        private final Map<String, Integer> frequencies;
+
+        private final int length;
+
+        private Document(Map<String, Integer> frequencies, int length) {
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+
+        private static Document of(String displayName, String aboutMe) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String term : TextTokenizer.tokenize(displayName)) {
+                frequencies.merge(term, DISPLAY_NAME_WEIGHT, Integer::sum);
+                length += DISPLAY_NAME_WEIGHT;
+            }
+            for (String term : TextTokenizer.tokenize(aboutMe)) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+            return new Document(frequencies, length);
+        }
+    }
+
+    /**
+     * A profile found by a search.
+     */
+    public static final class Hit {
+
+        private final Long profileId;
+
+        private final double score;
+
+        public Hit(Long profileId, double score) {
+            this.profileId = profileId;
+            this.score = score;
+        }
+
+        public Long getProfileId() {
+            return profileId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
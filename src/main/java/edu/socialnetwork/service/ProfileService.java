@@ -1,16 +1,41 @@
 package edu.socialnetwork.service;
 
+import edu.socialnetwork.config.ApplicationProperties;
 import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.repository.BlockRepository;
+import edu.socialnetwork.repository.LocationRepository;
 import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.dto.FriendDistanceDTO;
+import edu.socialnetwork.service.dto.FriendSuggestionDTO;
+import edu.socialnetwork.service.dto.ProfileDistanceDTO;
+import edu.socialnetwork.service.dto.ProfileSuggestionDTO;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
+import edu.socialnetwork.service.util.BoundingBox;
+import edu.socialnetwork.service.util.GeoHits;
+import edu.socialnetwork.service.util.GeoPointArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+import static edu.socialnetwork.service.util.TransactionUtil.afterCommit;
 
 /**
  * Service Implementation for managing Profile.
@@ -23,19 +48,67 @@ public class ProfileService {
 
     private final ProfileRepository profileRepository;
 
-    public ProfileService(ProfileRepository profileRepository) {
+    private final LocationRepository locationRepository;
+
+    private final BlockRepository blockRepository;
+
+    private final GeoIndexService geoIndexService;
+
+    private final ProfileSearchService profileSearchService;
+
+    private final ProfileSuggestService profileSuggestService;
+
+    private final ProfileBitmapIndexService profileBitmapIndexService;
+
+    private final ProximityCacheService proximityCacheService;
+
+    private final MediaStoreService mediaStoreService;
+
+    private final FriendGraphService friendGraphService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProfileService(ProfileRepository profileRepository, LocationRepository locationRepository,
+                          BlockRepository blockRepository, GeoIndexService geoIndexService, ProfileSearchService profileSearchService,
+                          ProfileSuggestService profileSuggestService, ProfileBitmapIndexService profileBitmapIndexService,
+                          ProximityCacheService proximityCacheService, MediaStoreService mediaStoreService,
+                          FriendGraphService friendGraphService, ApplicationProperties applicationProperties) {
         this.profileRepository = profileRepository;
+        this.locationRepository = locationRepository;
+        this.blockRepository = blockRepository;
+        this.geoIndexService = geoIndexService;
+        this.profileSearchService = profileSearchService;
+        this.profileSuggestService = profileSuggestService;
+        this.profileBitmapIndexService = profileBitmapIndexService;
+        this.proximityCacheService = proximityCacheService;
+        this.mediaStoreService = mediaStoreService;
+        this.friendGraphService = friendGraphService;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
-     * Save a profile.
+     * Save a profile, storing its new picture in the media store.
+     * <p>
+     * The in-memory indexes are updated once the transaction is committed, so a rolled back save never reaches them.
      *
      * @param profile the entity to save
      * @return the persisted entity
      */
     public Profile save(Profile profile) {
         log.debug("Request to save Profile : {}", profile);
-        return profileRepository.save(profile);
+        String previousHash = profile.getId() != null ?
+            profileRepository.findPictureHashById(profile.getId()).orElse(null) : null;
+        profile.setPictureHash(mediaStoreService.replace(previousHash,
+            profile.getPicture(), profile.getPictureContentType(), profile.getPictureHash()));
+        profile.setPicture(null);
+        Profile result = profileRepository.save(profile);
+        afterCommit(() -> {
+            geoIndexService.update(result);
+            profileSearchService.update(result);
+            profileSuggestService.update(result);
+            profileBitmapIndexService.update(result);
+        });
+        return result;
     }
 
     /**
@@ -70,6 +143,273 @@ public class ProfileService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Profile : {}", id);
+        profileRepository.findPictureHashById(id).ifPresent(mediaStoreService::release);
         profileRepository.deleteById(id);
+        afterCommit(() -> {
+            geoIndexService.remove(id);
+            profileSearchService.remove(id);
+            profileSuggestService.remove(id);
+            profileBitmapIndexService.remove(id);
+            friendGraphService.removeProfile(id);
+        });
+    }
+
+    /**
+     * Search the profiles by display name and "about me" text, from the {@link ProfileSearchService}.
+     *
+     * @param query the free text query, every term of which must match
+     * @param pageable the pagination information
+     * @return the page of profile summaries, best match first
+     */
+    @Transactional(readOnly = true)
+    public Page<ProfileSummaryDTO> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Profiles for query {}", query);
+        Page<ProfileSearchService.Hit> hits = profileSearchService.search(query, pageable);
+        List<ProfileSummaryDTO> summaries = findSummaries(hits.getContent().stream()
+            .map(ProfileSearchService.Hit::getProfileId)
+            .collect(Collectors.toList()));
+        return new PageImpl<>(summaries, pageable, hits.getTotalElements());
+    }
+
+    /**
+     * Suggest the profiles whose display name starts with a prefix, from the {@link ProfileSuggestService}.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit the maximum number of profiles to return
+     * @return the list of suggested profiles
+     */
+    @Transactional(readOnly = true)
+    public List<ProfileSuggestionDTO> suggest(String prefix, int limit) {
+        log.debug("Request to suggest {} Profiles for prefix {}", limit, prefix);
+        return profileSuggestService.suggest(prefix, limit);
+    }
+
+    /**
+     * Get the profiles located within a given distance, nearest first.
+     * <p>
+     * The candidates are taken from the {@link ProximityCacheService}, which loads them from the geo index
+     * or the database on a miss.
+     *
+     * @param latitude the latitude of the center, in degrees
+     * @param longitude the longitude of the center, in degrees
+     * @param distance the radius, in kilometers
+     * @return the list of profiles with their distance
+     */
+    @Transactional(readOnly = true)
+    public List<ProfileDistanceDTO> findByLocationNear(double latitude, double longitude, double distance) {
+        log.debug("Request to get Profiles within {} km of ({}, {})", distance, latitude, longitude);
+        GeoPointArray candidates = proximityCacheService.get(latitude, longitude, distance, this::findPointsWithin);
+        GeoHits hits = new GeoHits();
+        candidates.collectWithin(new GeoPointArray.Query(latitude, longitude, distance), hits);
+        hits.sortNearest(hits.size());
+        return toProfileDistances(GeoIndexService.toList(hits));
+    }
+
+    /**
+     * Get the profiles nearest to a point, one page at a time.
+     *
+     * @param latitude the latitude of the point, in degrees
+     * @param longitude the longitude of the point, in degrees
+     * @param size the maximum number of profiles to return
+     * @param afterDistance the distance of the last profile of the previous page, or null for the first page
+     * @param afterId the id of the last profile of the previous page, or null for the first page
+     * @return the profiles with their distance, nearest first, and the position of the next page
+     */
+    @Transactional(readOnly = true)
+    public NearestSlice findNearest(double latitude, double longitude, int size, Double afterDistance, Long afterId) {
+        log.debug("Request to get {} Profiles nearest to ({}, {}) after ({}, {})", size, latitude, longitude, afterDistance, afterId);
+        List<GeoIndexService.Hit> hits = geoIndexService.findNearest(latitude, longitude, size, afterDistance, afterId);
+        // The page ends at the last hit of the index, even if its profile was deleted meanwhile
+        GeoIndexService.Hit last = hits.size() == size ? hits.get(hits.size() - 1) : null;
+        return new NearestSlice(toProfileDistances(hits), last);
+    }
+
+    /**
+     * Get the friends two profiles have in common, from the {@link FriendGraphService}.
+     * <p>
+     * The banned profiles, and the profiles blocking or blocked by the first profile, are left out.
+     *
+     * @param profileId the id of the profile asking
+     * @param otherProfileId the id of the other profile
+     * @param pageable the pagination information
+     * @return the page of profile summaries, by id
+     */
+    @Transactional(readOnly = true)
+    public Page<ProfileSummaryDTO> findMutualFriends(Long profileId, Long otherProfileId, Pageable pageable) {
+        log.debug("Request to get the mutual friends of Profiles {} and {}", profileId, otherProfileId);
+        LongPredicate excluded = excludedFor(profileId);
+        long[] mutualFriends = friendGraphService.getMutualFriends(profileId, otherProfileId);
+        Arrays.sort(mutualFriends);
+        List<Long> ids = Arrays.stream(mutualFriends)
+            .filter(id -> !excluded.test(id))
+            .boxed()
+            .collect(Collectors.toList());
+        List<Long> pageIds = ids.subList(
+            (int) Math.min(pageable.getOffset(), ids.size()),
+            (int) Math.min(pageable.getOffset() + pageable.getPageSize(), ids.size()));
+        return new PageImpl<>(findSummaries(pageIds), pageable, ids.size());
+    }
+
+    /**
+     * Suggest the friends of the friends of a profile, from the {@link FriendGraphService}.
+     * <p>
+     * The banned profiles, and the profiles blocking or blocked by the profile, are never suggested.
+     *
+     * @param profileId the id of the profile
+     * @param size the maximum number of suggestions
+     * @return the suggestions, most mutual friends first
+     */
+    @Transactional(readOnly = true)
+    public List<FriendSuggestionDTO> suggestFriends(Long profileId, int size) {
+        log.debug("Request to suggest {} friends to Profile {}", size, profileId);
+        List<FriendGraphService.Suggestion> suggestions = friendGraphService.suggestFriends(profileId, size, excludedFor(profileId));
+        Map<Long, ProfileSummaryDTO> summaries = findSummariesById(suggestions.stream()
+            .map(FriendGraphService.Suggestion::getProfileId)
+            .collect(Collectors.toList()));
+        return suggestions.stream()
+            .filter(suggestion -> summaries.containsKey(suggestion.getProfileId()))
+            .map(suggestion -> new FriendSuggestionDTO(summaries.get(suggestion.getProfileId()), suggestion.getMutualFriendCount()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the degrees of separation between two profiles, from the {@link FriendGraphService}.
+     * <p>
+     * The chains go through none of the profiles not to show to the first one, and there is none to a profile not to
+     * show.
+     *
+     * @param profileId the id of a profile
+     * @param otherProfileId the id of the other profile
+     * @param maxDistance the maximum number of hops to search
+     * @param withPath whether to return a shortest chain of friends between the profiles
+     * @return the distance, and the summaries of the profiles of the chain if requested
+     */
+    @Transactional(readOnly = true)
+    public FriendDistanceDTO findDistance(Long profileId, Long otherProfileId, int maxDistance, boolean withPath) {
+        log.debug("Request to get the distance between Profiles {} and {}", profileId, otherProfileId);
+        LongPredicate excluded = excludedFor(profileId);
+        if (!profileId.equals(otherProfileId) && excluded.test(otherProfileId)) {
+            return new FriendDistanceDTO(null, true, null);
+        }
+        FriendGraphService.Separation separation = friendGraphService.findSeparation(profileId, otherProfileId,
+            maxDistance, applicationProperties.getFriendGraph().getDistanceNodeBudget(), excluded);
+        List<ProfileSummaryDTO> path = null;
+        if (withPath && separation.getPath() != null) {
+            path = findSummaries(Arrays.stream(separation.getPath()).boxed().collect(Collectors.toList()));
+        }
+        return new FriendDistanceDTO(separation.getDistance() >= 0 ? separation.getDistance() : null,
+            separation.isComplete(), path);
+    }
+
+    /**
+     * Get the summaries of profiles, without loading their pictures.
+     *
+     * @param ids the ids of the profiles
+     * @return the summaries of the profiles which exist, in the order of the ids
+     */
+    @Transactional(readOnly = true)
+    public List<ProfileSummaryDTO> findSummaries(List<Long> ids) {
+        log.debug("Request to get the summaries of Profiles : {}", ids);
+        Map<Long, ProfileSummaryDTO> summaries = findSummariesById(ids);
+        return ids.stream()
+            .map(summaries::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    private Map<Long, ProfileSummaryDTO> findSummariesById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return profileRepository.findSummariesByIdIn(ids).stream()
+            .collect(Collectors.toMap(ProfileSummaryDTO::getId, Function.identity()));
+    }
+
+    /**
+     * The profiles not to show to a profile: the banned ones, and the ones with a block between them and the
+     * profile. The banned ones are read from the {@link ProfileBitmapIndexService} with the memory strategy of the
+     * profile filters only, as the index misses the profiles saved without this service.
+     */
+    private LongPredicate excludedFor(Long profileId) {
+        Set<Long> blocked = new HashSet<>();
+        for (Object[] row : blockRepository.findProfileIdsByProfileId(profileId)) {
+            blocked.add((Long) row[0]);
+            blocked.add((Long) row[1]);
+        }
+        if (applicationProperties.getProfileFilter().getStrategy() == ApplicationProperties.ProfileFilter.Strategy.MEMORY) {
+            return id -> blocked.contains(id) || profileBitmapIndexService.isBanned(id);
+        }
+        blocked.addAll(profileRepository.findBannedIds());
+        return blocked::contains;
+    }
+
+    private List<ProfileDistanceDTO> toProfileDistances(List<GeoIndexService.Hit> hits) {
+        Map<Long, ProfileSummaryDTO> summaries = findSummariesById(
+            hits.stream().map(GeoIndexService.Hit::getProfileId).collect(Collectors.toList()));
+        return hits.stream()
+            .filter(hit -> summaries.containsKey(hit.getProfileId()))
+            .map(hit -> new ProfileDistanceDTO(summaries.get(hit.getProfileId()), hit.getDistance()))
+            .collect(Collectors.toList());
+    }
+
+    private GeoPointArray findPointsWithin(double latitude, double longitude, double distance) {
+        if (applicationProperties.getProximity().getStrategy() == ApplicationProperties.Proximity.Strategy.DATABASE) {
+            return findPointsWithinFromDatabase(latitude, longitude, distance);
+        }
+        return geoIndexService.findPointsWithin(latitude, longitude, distance);
+    }
+
+    /**
+     * Prefilter the locations on the bounding box of the circle in SQL. The box is a superset of the circle,
+     * the points outside the circle are dropped by the caller.
+     */
+    private GeoPointArray findPointsWithinFromDatabase(double latitude, double longitude, double distance) {
+        BoundingBox box = BoundingBox.around(latitude, longitude, distance);
+        List<Object[]> rows;
+        if (box.crossesAntimeridian()) {
+            rows = new ArrayList<>(locationRepository.findProfileCoordinatesInBox(
+                box.getMinLatitude(), box.getMaxLatitude(), box.getMinLongitude(), 180));
+            rows.addAll(locationRepository.findProfileCoordinatesInBox(
+                box.getMinLatitude(), box.getMaxLatitude(), -180, box.getMaxLongitude()));
+        } else {
+            rows = locationRepository.findProfileCoordinatesInBox(
+                box.getMinLatitude(), box.getMaxLatitude(), box.getMinLongitude(), box.getMaxLongitude());
+        }
+        GeoPointArray.Builder builder = new GeoPointArray.Builder();
+        for (Object[] row : rows) {
+            builder.add((Long) row[0], (Double) row[1], (Double) row[2]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A page of the profiles nearest to a point, with the position of the next page.
+     */
+    public static final class NearestSlice {
+
+        private final List<ProfileDistanceDTO> content;
+
+        private final GeoIndexService.Hit last;
+
+        public NearestSlice(List<ProfileDistanceDTO> content, GeoIndexService.Hit last) {
+            this.content = content;
+            this.last = last;
+        }
+
+        public List<ProfileDistanceDTO> getContent() {
+            return content;
+        }
+
+        /**
+         * @return the last hit of the geo index for this page, which the next page continues after, or null if
+         * this is the last page
+         */
+        public GeoIndexService.Hit getLast() {
+            return last;
+        }
+
+        public boolean hasNext() {
+            return last != null;
+        }
     }
 }
@@ -0,0 +1,191 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.dto.ProfileSuggestionDTO;
+import edu.socialnetwork.service.util.TextTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory sorted index of the profile display names, for typeahead suggestions.
+ * <p>
+ * Display names are normalized by the {@link TextTokenizer}, and every word of a name is a key of a sorted
+ * map, so that the names starting with a prefix are a range of the map found in logarithmic time. Names
+ * starting with the prefix are suggested before names with a later word starting with it, then both in
+ * alphabetical order.
+ * <p>
+ * The index is built when the application starts, and kept up to date by {@link ProfileService}.
+ */
+@Service
+public class ProfileSuggestService {
+
+    /**
+     * Separates the normalized name from the profile id in the keys, and sorts before any word character.
+     */
+    private static final char SEPARATOR = '\u0000';
+
+    private final Logger log = LoggerFactory.getLogger(ProfileSuggestService.class);
+
+    private final ProfileRepository profileRepository;
+
+    /**
+     * The normalized names, from their first word.
+     */
+    private final NavigableMap<String, ProfileSuggestionDTO> names = new ConcurrentSkipListMap<>();
+
+    /**
+     * The normalized names, from each of their other words.
+     */
+    private final NavigableMap<String, ProfileSuggestionDTO> words = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, String> displayNames = new ConcurrentHashMap<>();
+
+    public ProfileSuggestService(ProfileRepository profileRepository) {
+        this.profileRepository = profileRepository;
+    }
+
+    /**
+     * Load the display name of every profile into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.debug("Rebuilding profile suggestion index");
+        names.clear();
+        words.clear();
+        displayNames.clear();
+        for (Object[] row : profileRepository.findAllProfileDisplayNames()) {
+            put((Long) row[0], (String) row[1]);
+        }
+        log.info("Profile suggestion index built with {} profiles", displayNames.size());
+    }
+
+    /**
+     * Index the display name of a profile.
+     *
+     * @param profile the persisted profile
+     */
+    public void update(Profile profile) {
+        displayNames.compute(profile.getId(), (id, previous) -> {
+            if (previous != null) {
+                removeKeys(id, previous);
+            }
+            if (profile.getDisplayName() == null) {
+                return null;
+            }
+            putKeys(id, profile.getDisplayName());
+            return profile.getDisplayName();
+        });
+    }
+
+    /**
+     * Remove a profile from the index.
+     *
+     * @param profileId the id of the profile
+     */
+    public void remove(Long profileId) {
+        displayNames.computeIfPresent(profileId, (id, previous) -> {
+            removeKeys(id, previous);
+            return null;
+        });
+    }
+
+    /**
+     * Find the profiles whose display name, or a word of it, starts with a prefix.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit the maximum number of profiles to return
+     * @return the matching profiles, names starting with the prefix first
+     */
+    public List<ProfileSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<ProfileSuggestionDTO> result = new ArrayList<>(limit);
+        Set<Long> ids = new HashSet<>();
+        collect(names, normalized, limit, result, ids);
+        collect(words, normalized, limit, result, ids);
+        return result;
+    }
+
+    /**
+     * @return the number of indexed profiles
+     */
+    public int size() {
+        return displayNames.size();
+    }
+
+    private void put(Long profileId, String displayName) {
+        if (displayName != null) {
+            displayNames.put(profileId, displayName);
+            putKeys(profileId, displayName);
+        }
+    }
+
+    private void putKeys(Long profileId, String displayName) {
+        List<String> keys = keys(profileId, displayName);
+        if (keys.isEmpty()) {
+            return;
+        }
+        ProfileSuggestionDTO suggestion = new ProfileSuggestionDTO(profileId, displayName);
+        names.put(keys.get(0), suggestion);
+        for (String key : keys.subList(1, keys.size())) {
+            words.put(key, suggestion);
+        }
+    }
+
+    private void removeKeys(Long profileId, String displayName) {
+        List<String> keys = keys(profileId, displayName);
+        if (keys.isEmpty()) {
+            return;
+        }
+        names.remove(keys.get(0));
+        for (String key : keys.subList(1, keys.size())) {
+            words.remove(key);
+        }
+    }
+
+    private static void collect(NavigableMap<String, ProfileSuggestionDTO> map, String prefix, int limit,
+                                List<ProfileSuggestionDTO> result, Set<Long> ids) {
+        for (Map.Entry<String, ProfileSuggestionDTO> entry : map.tailMap(prefix, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                return;
+            }
+            if (ids.add(entry.getValue().getId())) {
+                result.add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * The keys of a display name: the normalized name from each of its words, followed by the profile id.
+     */
+    private static List<String> keys(Long profileId, String displayName) {
+        List<String> terms = TextTokenizer.tokenize(displayName);
+        List<String> keys = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            keys.add(String.join(" ", terms.subList(i, terms.size())) + SEPARATOR + profileId);
+        }
+        return keys;
+    }
+
+    private static String normalize(String prefix) {
+        return String.join(" ", TextTokenizer.tokenize(prefix));
+    }
+}
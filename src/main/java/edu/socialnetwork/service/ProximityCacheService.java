@@ -0,0 +1,349 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.service.util.GeoPointArray;
+import edu.socialnetwork.service.util.GeoUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LRU cache of the candidates of proximity queries.
+ * <p>
+ * Query centers are rounded to a grid of {@code coordinateStep} degrees, and radii rounded up to a multiple of
+ * {@code radiusStep} kilometers, so that queries made from nearly the same place share an entry. An entry holds
+ * every profile within its rounded radius of its rounded center, plus the distance between the rounded and the
+ * actual center: it contains all the results of any query it stands for, which are then selected exactly from it.
+ * Queries with a radius larger than {@code maxRadius} are not cached, and the entries are bounded by the total
+ * number of candidates they hold, evicting the least recently used ones.
+ * <p>
+ * Every entry is registered in the cells of the {@link GeoIndexService} its circle overlaps before it is loaded.
+ * When a profile moves, only the entries of the cells of its previous and its new position are tested, and those
+ * whose circle contains either position are evicted, even while they are being loaded so that they are not stored.
+ */
+@Service
+public class ProximityCacheService {
+
+    /**
+     * Entries overlapping more cells of the geo index are not cached, which only happens near the poles.
+     */
+    static final int MAX_CELLS_PER_ENTRY = 4096;
+
+    private final Logger log = LoggerFactory.getLogger(ProximityCacheService.class);
+
+    private final long maxCandidates;
+
+    private final double maxRadius;
+
+    private final double coordinateStep;
+
+    private final double radiusStep;
+
+    /**
+     * The farthest a query center can be from the rounded center of its entry, in kilometers.
+     */
+    private final double centerSlack;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The entries, loaded or being loaded, whose bounding box overlaps each cell of the geo index.
+     */
+    private final ConcurrentMap<Long, Set<Entry>> entriesByCell = new ConcurrentHashMap<>();
+
+    /**
+     * The number of candidates held by the loaded entries, plus one per entry.
+     */
+    private final AtomicLong candidateCount = new AtomicLong();
+
+    /**
+     * Stamps the accesses to the entries, for the least recently used to be evicted first.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Held by the request evicting entries to make room, which the others do not wait for.
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter bypasses;
+
+    private final Counter invalidations;
+
+    public ProximityCacheService(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Proximity.Cache cache = applicationProperties.getProximity().getCache();
+        this.maxCandidates = cache.getMaxCandidates();
+        this.maxRadius = cache.getMaxRadius();
+        this.coordinateStep = cache.getCoordinateStep();
+        this.radiusStep = cache.getRadiusStep();
+        this.centerSlack = Math.sqrt(2) / 2 * coordinateStep * GeoUtil.KM_PER_DEGREE;
+        this.hits = meterRegistry.counter("proximity.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("proximity.cache.requests", "result", "miss");
+        this.bypasses = meterRegistry.counter("proximity.cache.requests", "result", "bypass");
+        this.invalidations = meterRegistry.counter("proximity.cache.invalidations");
+        meterRegistry.gauge("proximity.cache.size", this, ProximityCacheService::size);
+        meterRegistry.gauge("proximity.cache.candidates", candidateCount);
+    }
+
+    /**
+     * Get the points which may lie within a given distance of a center, loading them on a cache miss.
+     *
+     * @param latitude the latitude of the center, in degrees
+     * @param longitude the longitude of the center, in degrees
+     * @param distance the radius, in kilometers
+     * @param loader loads the points within a radius of a center, if they are not cached
+     * @return a superset of the points within the distance of the center
+     */
+    public GeoPointArray get(double latitude, double longitude, double distance, Loader loader) {
+        if (maxCandidates <= 0 || distance > maxRadius) {
+            bypasses.increment();
+            return loader.load(latitude, longitude, distance);
+        }
+        long latKey = Math.round(latitude / coordinateStep);
+        long lonKey = Math.round(longitude / coordinateStep);
+        long radiusKey = (long) Math.ceil(distance / radiusStep);
+        Key key = new Key(latKey, lonKey, radiusKey);
+        Entry entry = entries.get(key);
+        GeoPointArray cached = entry != null ? entry.points : null;
+        if (cached != null) {
+            entry.lastAccess = clock.incrementAndGet();
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        double entryLatitude = latKey * coordinateStep;
+        double entryLongitude = lonKey * coordinateStep;
+        double entryRadius = radiusKey * radiusStep + centerSlack;
+        long[] cellKeys = GeoIndexService.cellKeysAround(entryLatitude, entryLongitude, entryRadius);
+        Entry loading = new Entry(key, entryLatitude, entryLongitude, entryRadius, cellKeys);
+        if (entry != null || cellKeys.length > MAX_CELLS_PER_ENTRY || entries.putIfAbsent(key, loading) != null) {
+            // Being loaded by another request, or too large to keep track of
+            return loader.load(entryLatitude, entryLongitude, entryRadius);
+        }
+        for (long cellKey : cellKeys) {
+            entriesByCell.computeIfAbsent(cellKey, cell -> ConcurrentHashMap.newKeySet()).add(loading);
+        }
+        GeoPointArray points;
+        try {
+            points = loader.load(entryLatitude, entryLongitude, entryRadius);
+        } catch (RuntimeException e) {
+            evict(loading);
+            throw e;
+        }
+        if (points.size() >= maxCandidates || !loading.loaded(points, clock.incrementAndGet(), candidateCount)) {
+            evict(loading);
+            return points;
+        }
+        if (candidateCount.get() > maxCandidates) {
+            evictLeastRecentlyUsed();
+        }
+        return points;
+    }
+
+    /**
+     * Evict the entries whose circle contains a point, because a profile moved from or to it.
+     *
+     * @param latitude the latitude of the point, in degrees
+     * @param longitude the longitude of the point, in degrees
+     */
+    public void invalidate(double latitude, double longitude) {
+        Set<Entry> overlapping = entriesByCell.get(GeoIndexService.cellKeyOf(latitude, longitude));
+        if (overlapping == null) {
+            return;
+        }
+        for (Entry entry : overlapping) {
+            if (GeoUtil.distance(entry.latitude, entry.longitude, latitude, longitude) <= entry.radius
+                && evict(entry)) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Evict every entry.
+     */
+    public void clear() {
+        log.debug("Clearing proximity cache");
+        for (Entry entry : entries.values()) {
+            evict(entry);
+        }
+    }
+
+    /**
+     * @return the number of cached entries, loaded or being loaded
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of candidates held by the loaded entries, plus one per entry
+     */
+    long candidateCount() {
+        return candidateCount.get();
+    }
+
+    /**
+     * Evict the least recently used entries, down to nine tenths of the maximum number of candidates so that this
+     * runs once per many loads.
+     */
+    private void evictLeastRecentlyUsed() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Entry> loaded = new ArrayList<>(entries.values());
+            loaded.removeIf(entry -> entry.points == null);
+            loaded.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+            long target = maxCandidates - maxCandidates / 10;
+            for (int i = 0; i < loaded.size() && candidateCount.get() > target; i++) {
+                evict(loaded.get(i));
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the entry was already evicted
+     */
+    private boolean evict(Entry entry) {
+        if (!entry.evict(candidateCount)) {
+            return false;
+        }
+        entries.remove(entry.key, entry);
+        for (long cellKey : entry.cellKeys) {
+            entriesByCell.computeIfPresent(cellKey, (cell, overlapping) -> {
+                overlapping.remove(entry);
+                return overlapping.isEmpty() ? null : overlapping;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Loads the points within a radius of a center.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        GeoPointArray load(double latitude, double longitude, double distance);
+    }
+
+    private static final class Key {
+
+        private final long latitude;
+
+        private final long longitude;
+
+        private final long radius;
+
+        private Key(long latitude, long longitude, long radius) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radius = radius;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return latitude == key.latitude && longitude == key.longitude && radius == key.radius;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(latitude, longitude, radius);
+        }
+    }
+
+    /**
+     * A cached query, whose points are null while it is being loaded. Its own monitor orders its loading and its
+     * eviction, and their accounting of its candidates, so that an entry evicted while loading is never counted
+     * and an entry evicted as soon as it is loaded is uncounted once it was counted.
+     */
+    private static final class Entry {
+
+        private final Key key;
+
+        private final double latitude;
+
+        private final double longitude;
+
+        private final double radius;
+
+        private final long[] cellKeys;
+
+        private volatile GeoPointArray points;
+
+        private volatile long lastAccess;
+
+        private boolean evicted;
+
+        private Entry(Key key, double latitude, double longitude, double radius, long[] cellKeys) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radius = radius;
+            this.cellKeys = cellKeys;
+        }
+
+        /**
+         * Publish the points of the entry, and add the candidates it counts for.
+         *
+         * @return false if the entry was evicted while it was being loaded
+         */
+        private synchronized boolean loaded(GeoPointArray points, long access, AtomicLong candidateCount) {
+            if (evicted) {
+                return false;
+            }
+            this.lastAccess = access;
+            this.points = points;
+            candidateCount.addAndGet(weight());
+            return true;
+        }
+
+        /**
+         * Mark the entry evicted, and subtract the candidates it counted for.
+         *
+         * @return false if the entry was already evicted
+         */
+        private synchronized boolean evict(AtomicLong candidateCount) {
+            if (evicted) {
+                return false;
+            }
+            evicted = true;
+            candidateCount.addAndGet(-weight());
+            return true;
+        }
+
+        /**
+         * @return the number of candidates the entry counts for, zero until it is loaded
+         */
+        private long weight() {
+            return points != null ? points.size() + 1 : 0;
+        }
+    }
+}
@@ -2,22 +2,24 @@ package edu.socialnetwork.service;
 
 import java.util.List;
 
-import javax.persistence.criteria.JoinType;
+import javax.persistence.EntityManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import io.github.jhipster.service.QueryService;
-
+import edu.socialnetwork.config.ApplicationProperties;
 import edu.socialnetwork.domain.Relationship;
 import edu.socialnetwork.domain.*; // for static metamodels
 import edu.socialnetwork.repository.RelationshipRepository;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.RelationshipCriteria;
+import edu.socialnetwork.service.util.KeysetSlice;
 
 /**
  * Service for executing complex queries for Relationship entities in the database.
@@ -27,13 +29,15 @@ import edu.socialnetwork.service.dto.RelationshipCriteria;
  */
 @Service
 @Transactional(readOnly = true)
-public class RelationshipQueryService extends QueryService<Relationship> {
+public class RelationshipQueryService extends SemiJoinQueryService<Relationship> {
 
     private final Logger log = LoggerFactory.getLogger(RelationshipQueryService.class);
 
     private final RelationshipRepository relationshipRepository;
 
-    public RelationshipQueryService(RelationshipRepository relationshipRepository) {
+    public RelationshipQueryService(RelationshipRepository relationshipRepository, ApplicationProperties applicationProperties,
+                                    EntityManager entityManager, CountCacheService countCacheService) {
+        super(Relationship.class, applicationProperties, entityManager, countCacheService);
         this.relationshipRepository = relationshipRepository;
     }
 
@@ -62,6 +66,37 @@ public class RelationshipQueryService extends QueryService<Relationship> {
         return relationshipRepository.findAll(specification, page);
     }
 
+    /**
+     * Return a {@link Slice} of {@link Relationship} which matches the criteria from the database
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param count How the total number of matching entities is computed.
+     * @return the matching entities: a {@link Page} unless the count mode is {@link CountMode#NONE}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Relationship> findByCriteria(RelationshipCriteria criteria, Pageable page, CountMode count) {
+        if (count == CountMode.EXACT) {
+            return findByCriteria(criteria, page);
+        }
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, count);
+        final Specification<Relationship> specification = createSpecification(criteria);
+        return findSlice(specification, page, count, criteria, () -> relationshipRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link KeysetSlice} of {@link Relationship} which matches the criteria from the database, by ascending id
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The cursor of the last entity of the previous slice, or empty for the first slice.
+     * @param size The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Relationship> findByCriteria(RelationshipCriteria criteria, String after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specification<Relationship> specification = createSpecification(criteria);
+        return findAfter(specification, after, size, Relationship_.id);
+    }
+
     /**
      * Return the number of matching entities in the database
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -87,8 +122,7 @@ public class RelationshipQueryService extends QueryService<Relationship> {
                 specification = specification.and(buildStringSpecification(criteria.getStatus(), Relationship_.status));
             }
             if (criteria.getUserId() != null) {
-                specification = specification.and(buildSpecification(criteria.getUserId(),
-                    root -> root.join(Relationship_.users, JoinType.LEFT).get(Profile_.id)));
+                specification = specification.and(buildCollectionSpecification(criteria.getUserId(), Relationship_.users, Profile_.id));
             }
         }
         return specification;
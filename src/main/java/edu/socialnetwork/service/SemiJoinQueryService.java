@@ -0,0 +1,85 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import io.github.jhipster.service.filter.Filter;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.SetAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.function.Function;
+
+/**
+ * Base service for executing complex queries filtering entities on the elements of their collections.
+ * <p>
+ * A filter on a one-to-many or many-to-many association joined to the root multiplies the rows of every
+ * entity by the number of its elements, which breaks page counts and requires a DISTINCT. In the
+ * {@link ApplicationProperties.Criteria.CollectionFilter#EXISTS EXISTS} mode, such a filter is a correlated
+ * EXISTS subquery instead: a semi-join, which returns every entity at most once and lets the database stop
+ * at the first matching element.
+ *
+ * @param <ENTITY> the type of the entity which is queried
+ */
+public abstract class SemiJoinQueryService<ENTITY> extends KeysetQueryService<ENTITY> {
+
+    private final ApplicationProperties applicationProperties;
+
+    protected SemiJoinQueryService(Class<ENTITY> entityClass, ApplicationProperties applicationProperties,
+                                   EntityManager entityManager, CountCacheService countCacheService) {
+        super(entityClass, entityManager, countCacheService);
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Helper function to return a specification for filtering on the ids of the elements of a collection,
+     * with the same precedence as {@link #buildSpecification}: equals, then in, then specified.
+     *
+     * @param filter the filter on the ids of the elements
+     * @param collection the collection of the entity
+     * @param id the id attribute of the elements
+     * @param <X> the type of the elements
+     * @return the matching specification, or null if the filter is empty
+     */
+    protected <X> Specification<ENTITY> buildCollectionSpecification(Filter<Long> filter,
+                                                                      SetAttribute<? super ENTITY, X> collection,
+                                                                      SingularAttribute<? super X, Long> id) {
+        if (applicationProperties.getCriteria().getCollectionFilter() == ApplicationProperties.Criteria.CollectionFilter.JOIN) {
+            return buildSpecification(filter, root -> root.join(collection, JoinType.LEFT).get(id));
+        }
+        if (filter.getEquals() != null) {
+            return (root, query, builder) -> builder.exists(
+                elementSubquery(root, query, collection, id, path -> builder.equal(path, filter.getEquals())));
+        } else if (filter.getIn() != null) {
+            return (root, query, builder) -> builder.exists(
+                elementSubquery(root, query, collection, id, path -> path.in(filter.getIn())));
+        } else if (filter.getSpecified() != null) {
+            return (root, query, builder) -> {
+                Predicate exists = builder.exists(elementSubquery(root, query, collection, id, null));
+                return filter.getSpecified() ? exists : builder.not(exists);
+            };
+        }
+        return null;
+    }
+
+    /**
+     * The subquery selecting the elements of the collection of the current root which match a condition.
+     */
+    private <X> Subquery<Long> elementSubquery(Root<ENTITY> root, CriteriaQuery<?> query,
+                                               SetAttribute<? super ENTITY, X> collection,
+                                               SingularAttribute<? super X, Long> id,
+                                               Function<Path<Long>, Predicate> condition) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Path<Long> elementId = subquery.correlate(root).join(collection).get(id);
+        subquery.select(elementId);
+        if (condition != null) {
+            subquery.where(condition.apply(elementId));
+        }
+        return subquery;
+    }
+}
@@ -0,0 +1,266 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service generating the thumbnails of the pictures of the media store.
+ * <p>
+ * Each picture gets a thumbnail fitting in a square of each of the {@link #SIZES}, stored next to it as
+ * {@code <hash>-<size>.png} if it has transparency, {@code <hash>-<size>.jpg} otherwise. Thumbnails are generated
+ * on the {@code thumbnailExecutor} once the picture is stored.
+ * <p>
+ * A picture is not scheduled again while its thumbnails are being generated, nor after they failed to be: the
+ * hashes of the last {@link #MAX_FAILED_HASHES} failures are remembered.
+ */
+@Service
+public class ThumbnailService {
+
+    /**
+     * Sizes of the thumbnails, in pixels.
+     */
+    public static final int[] SIZES = {Constants.LIST_THUMBNAIL_SIZE, 256};
+
+    static final int MAX_FAILED_HASHES = 10000;
+
+    private static final String[] FORMATS = {"jpg", "png"};
+
+    private final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final MediaStoreService mediaStoreService;
+
+    private final Executor thumbnailExecutor;
+
+    /**
+     * The hashes of the pictures whose thumbnails are being generated.
+     */
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The hashes of the pictures whose thumbnails could not be generated, least recently failed first.
+     */
+    private final Map<String, Boolean> failed = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_FAILED_HASHES;
+        }
+    };
+
+    public ThumbnailService(MediaStoreService mediaStoreService, @Qualifier("thumbnailExecutor") Executor thumbnailExecutor) {
+        this.mediaStoreService = mediaStoreService;
+        this.thumbnailExecutor = thumbnailExecutor;
+    }
+
+    /**
+     * Generate the thumbnails of a new picture, once the transaction storing it commits.
+     *
+     * @param event the event published by the media store
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaStored(MediaStoreService.MediaStoredEvent event) {
+        generate(event.getHash());
+    }
+
+    /**
+     * Generate the thumbnails of a picture in the background, unless they are being generated already or failed to be.
+     *
+     * @param hash the hash of the picture
+     */
+    public void generate(String hash) {
+        if (hasFailed(hash) || !scheduled.add(hash)) {
+            return;
+        }
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    createThumbnails(hash);
+                } finally {
+                    scheduled.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Scheduled again when the thumbnail is requested
+            scheduled.remove(hash);
+            log.warn("Thumbnail queue is full, not generating the thumbnails of media {}", hash);
+        }
+    }
+
+    /**
+     * @param hash the hash of a picture
+     * @return whether the thumbnails of the picture recently failed to be generated
+     */
+    public boolean hasFailed(String hash) {
+        synchronized (failed) {
+            return failed.containsKey(hash);
+        }
+    }
+
+    /**
+     * Generate the missing thumbnails of a picture.
+     *
+     * @param hash the hash of the picture
+     * @return true if the thumbnails exist, false if the file is not a readable picture
+     */
+    public boolean createThumbnails(String hash) {
+        BufferedImage source = null;
+        for (int size : SIZES) {
+            if (findThumbnail(hash, size).isPresent()) {
+                continue;
+            }
+            try {
+                if (source == null) {
+                    source = read(mediaStoreService.getPath(hash));
+                    if (source == null) {
+                        log.debug("Media {} is not a readable picture", hash);
+                        return fail(hash);
+                    }
+                }
+                writeThumbnail(hash, size, source);
+            } catch (IOException e) {
+                log.warn("Could not create the thumbnails of media {}: {}", hash, e.getMessage());
+                return fail(hash);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the thumbnail of a picture.
+     *
+     * @param hash the hash of the picture
+     * @param size the size of the thumbnail, one of {@link #SIZES}
+     * @return the path of the thumbnail, if it was generated
+     */
+    public Optional<Path> findThumbnail(String hash, int size) {
+        for (String format : FORMATS) {
+            Path path = getThumbnailPath(hash, size, format);
+            if (Files.exists(path)) {
+                return Optional.of(path);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param size a size in pixels
+     * @return whether thumbnails are generated with this size
+     */
+    public static boolean isSupportedSize(int size) {
+        for (int supportedSize : SIZES) {
+            if (supportedSize == size) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param thumbnail the path of a thumbnail
+     * @return the content type of the thumbnail
+     */
+    public static String getContentType(Path thumbnail) {
+        return thumbnail.getFileName().toString().endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private boolean fail(String hash) {
+        synchronized (failed) {
+            failed.put(hash, Boolean.TRUE);
+        }
+        return false;
+    }
+
+    /**
+     * Decode a picture, skipping pixels when it is much larger than the largest thumbnail, so that a huge
+     * picture is never fully decoded in memory.
+     */
+    private static BufferedImage read(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int largestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, largestSide / (2 * SIZES[SIZES.length - 1]));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeThumbnail(String hash, int size, BufferedImage source) throws IOException {
+        boolean transparent = source.getColorModel().hasAlpha();
+        String format = transparent ? "png" : "jpg";
+        BufferedImage thumbnail = scale(source, size, transparent);
+        Path path = getThumbnailPath(hash, size, format);
+        Path temporary = Files.createTempFile(path.getParent(), hash, ".tmp");
+        try {
+            ImageIO.write(thumbnail, format, temporary.toFile());
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log.debug("Created thumbnail {} of media {}", size, hash);
+    }
+
+    /**
+     * Scale an image down to fit in a square, halving it step by step so that every pixel contributes.
+     */
+    private static BufferedImage scale(BufferedImage source, int size, boolean transparent) {
+        double ratio = Math.min(1, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        int type = transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage image = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            image = step;
+        } while (width != targetWidth || height != targetHeight);
+        return image;
+    }
+
+    private Path getThumbnailPath(String hash, int size, String format) {
+        return mediaStoreService.getPath(hash).resolveSibling(hash + "-" + size + "." + format);
+    }
+}
@@ -5,7 +5,6 @@ import edu.socialnetwork.domain.Authority;
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.domain.User;
 import edu.socialnetwork.repository.AuthorityRepository;
-import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.repository.UserRepository;
 import edu.socialnetwork.security.AuthoritiesConstants;
 import edu.socialnetwork.security.SecurityUtils;
@@ -47,14 +46,14 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
-    private final ProfileRepository profileRepository;
+    private final ProfileService profileService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager, ProfileRepository profileRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager, ProfileService profileService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
-        this.profileRepository = profileRepository;
+        this.profileService = profileService;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -132,7 +131,7 @@ public class UserService {
         profile.setUser(newUser);
         profile.setDisplayName(newUser.getLogin());
         profile.setUnitSystem(METRIC);
-        profileRepository.save(profile);
+        profileService.save(profile);
 
 
         this.clearUserCaches(newUser);
@@ -0,0 +1,22 @@
+package edu.socialnetwork.service.dto;
+
+/**
+ * How the total number of entities matching a criteria is computed for a paged request.
+ */
+public enum CountMode {
+
+    /**
+     * Count the matching entities with a second query.
+     */
+    EXACT,
+
+    /**
+     * Serve the count of the same criteria cached in the last seconds, or count them if there is none.
+     */
+    APPROXIMATE,
+
+    /**
+     * Do not count: only tell whether there is a next page.
+     */
+    NONE
+}
@@ -0,0 +1,36 @@
+package edu.socialnetwork.service.dto;
+
+import java.util.List;
+
+/**
+ * A DTO representing the degrees of separation between two profiles, with an example chain of friends.
+ */
+public class FriendDistanceDTO {
+    private Integer distance;
+    private Boolean complete;
+    private List<ProfileSummaryDTO> path;
+
+    public FriendDistanceDTO(Integer distance, Boolean complete, List<ProfileSummaryDTO> path) {
+        this.distance = distance;
+        this.complete = complete;
+        this.path = path;
+    }
+
+    /**
+     * @return the number of hops between the profiles, or null if they are farther apart or not connected
+     */
+    public Integer getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return false if the search gave up before the maximum distance, so that the profiles may be connected
+     */
+    public Boolean getComplete() {
+        return complete;
+    }
+
+    public List<ProfileSummaryDTO> getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,22 @@
+package edu.socialnetwork.service.dto;
+
+/**
+ * A DTO representing a profile suggested as a friend, with the number of friends in common.
+ */
+public class FriendSuggestionDTO {
+    private ProfileSummaryDTO profile;
+    private Integer mutualFriendCount;
+
+    public FriendSuggestionDTO(ProfileSummaryDTO profile, Integer mutualFriendCount) {
+        this.profile = profile;
+        this.mutualFriendCount = mutualFriendCount;
+    }
+
+    public ProfileSummaryDTO getProfile() {
+        return profile;
+    }
+
+    public Integer getMutualFriendCount() {
+        return mutualFriendCount;
+    }
+}
@@ -0,0 +1,31 @@
+package edu.socialnetwork.service.dto;
+
+/**
+ * A DTO representing the badge counts of a profile.
+ */
+public class ProfileCountersDTO {
+    private Long friends;
+    private Long pendingInvitations;
+    private Long unreadDirectMessages;
+
+    public ProfileCountersDTO(Long friends, Long pendingInvitations, Long unreadDirectMessages) {
+        this.friends = friends;
+        this.pendingInvitations = pendingInvitations;
+        this.unreadDirectMessages = unreadDirectMessages;
+    }
+
+    public Long getFriends() {
+        return friends;
+    }
+
+    /**
+     * @return the number of invitations received and neither accepted nor declined yet
+     */
+    public Long getPendingInvitations() {
+        return pendingInvitations;
+    }
+
+    public Long getUnreadDirectMessages() {
+        return unreadDirectMessages;
+    }
+}
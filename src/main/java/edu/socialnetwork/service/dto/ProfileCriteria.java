@@ -71,6 +71,41 @@ public class ProfileCriteria implements Serializable {
 
     private LongFilter joinedChatroomId;
 
+    public ProfileCriteria() {
+    }
+
+    /**
+     * Copy the filters of another criteria. The filters themselves are shared.
+     *
+     * @param other the criteria to copy
+     */
+    public ProfileCriteria(ProfileCriteria other) {
+        this.id = other.id;
+        this.birthDate = other.birthDate;
+        this.height = other.height;
+        this.weight = other.weight;
+        this.unitSystem = other.unitSystem;
+        this.aboutMe = other.aboutMe;
+        this.displayName = other.displayName;
+        this.showAge = other.showAge;
+        this.banned = other.banned;
+        this.filterPreferences = other.filterPreferences;
+        this.locationId = other.locationId;
+        this.userId = other.userId;
+        this.relationshipId = other.relationshipId;
+        this.genderId = other.genderId;
+        this.ethnicityId = other.ethnicityId;
+        this.sentInvitationId = other.sentInvitationId;
+        this.receivedInvitationId = other.receivedInvitationId;
+        this.sentBlockId = other.sentBlockId;
+        this.receivedBlockId = other.receivedBlockId;
+        this.sentMessageId = other.sentMessageId;
+        this.sentDirectMessageId = other.sentDirectMessageId;
+        this.receivedDirectMessageId = other.receivedDirectMessageId;
+        this.adminChatroomId = other.adminChatroomId;
+        this.joinedChatroomId = other.joinedChatroomId;
+    }
+
     public LongFilter getId() {
         return id;
     }
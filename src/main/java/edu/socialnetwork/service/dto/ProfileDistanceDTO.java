@@ -1,17 +1,15 @@
 package edu.socialnetwork.service.dto;
 
-import edu.socialnetwork.domain.Profile;
-
 public class ProfileDistanceDTO {
-    private Profile profile;
+    private ProfileSummaryDTO profile;
     private Double distance;
 
-    public ProfileDistanceDTO(Profile profile, Double distance) {
+    public ProfileDistanceDTO(ProfileSummaryDTO profile, Double distance) {
         this.profile = profile;
         this.distance = distance;
     }
 
-    public Profile getProfile() {
+    public ProfileSummaryDTO getProfile() {
         return profile;
     }
 
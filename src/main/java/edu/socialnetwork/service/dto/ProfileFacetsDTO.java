@@ -0,0 +1,74 @@
+package edu.socialnetwork.service.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A DTO representing the number of profiles matching a criteria for every value of the search filters.
+ * <p>
+ * The counts of a filter ignore the criteria on that filter itself, so that they tell how many profiles
+ * selecting another value would match.
+ */
+public class ProfileFacetsDTO {
+
+    private long total;
+
+    private final Map<Long, Long> genders = new TreeMap<>();
+
+    private final Map<Long, Long> ethnicities = new TreeMap<>();
+
+    private final Map<Long, Long> relationships = new TreeMap<>();
+
+    private final Map<String, Long> ages = new LinkedHashMap<>();
+
+    /**
+     * @return the number of profiles matching the whole criteria
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * @return the number of profiles by gender id
+     */
+    public Map<Long, Long> getGenders() {
+        return genders;
+    }
+
+    /**
+     * @return the number of profiles by ethnicity id
+     */
+    public Map<Long, Long> getEthnicities() {
+        return ethnicities;
+    }
+
+    /**
+     * @return the number of profiles by relationship id
+     */
+    public Map<Long, Long> getRelationships() {
+        return relationships;
+    }
+
+    /**
+     * @return the number of profiles showing their age by age bucket, such as "25-34", youngest first
+     */
+    public Map<String, Long> getAges() {
+        return ages;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileFacetsDTO{" +
+            "total=" + total +
+            ", genders=" + genders +
+            ", ethnicities=" + ethnicities +
+            ", relationships=" + relationships +
+            ", ages=" + ages +
+            "}";
+    }
+}
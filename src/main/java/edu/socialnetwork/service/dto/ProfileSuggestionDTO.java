@@ -0,0 +1,32 @@
+package edu.socialnetwork.service.dto;
+
+/**
+ * A DTO representing a profile suggested while typing its display name.
+ */
+public class ProfileSuggestionDTO {
+
+    private Long id;
+
+    private String displayName;
+
+    public ProfileSuggestionDTO(Long id, String displayName) {
+        this.id = id;
+        this.displayName = displayName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileSuggestionDTO{" +
+            "id=" + id +
+            ", displayName='" + displayName + "'" +
+            "}";
+    }
+}
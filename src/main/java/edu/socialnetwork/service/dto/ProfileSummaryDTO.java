@@ -0,0 +1,113 @@
+package edu.socialnetwork.service.dto;
+
+import edu.socialnetwork.config.Constants;
+import edu.socialnetwork.domain.Profile;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * A DTO representing the card of a profile in lists: it never holds the picture itself, only the URL to fetch it.
+ */
+public class ProfileSummaryDTO {
+
+    private Long id;
+
+    private String displayName;
+
+    private Integer age;
+
+    private String genderType;
+
+    private String relationshipStatus;
+
+    private String thumbnailUrl;
+
+    public ProfileSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    /**
+     * Constructor used by the JPQL constructor expressions of ProfileRepository, which only select these columns.
+     */
+    public ProfileSummaryDTO(Long id, String displayName, LocalDate birthDate, Boolean showAge,
+                             String genderType, String relationshipStatus, String pictureHash) {
+        this.id = id;
+        this.displayName = displayName;
+        if (Boolean.TRUE.equals(showAge) && birthDate != null) {
+            this.age = Period.between(birthDate, LocalDate.now()).getYears();
+        }
+        this.genderType = genderType;
+        this.relationshipStatus = relationshipStatus;
+        if (pictureHash != null) {
+            this.thumbnailUrl = "/media/" + pictureHash + "/thumbnail/" + Constants.LIST_THUMBNAIL_SIZE;
+        }
+    }
+
+    public ProfileSummaryDTO(Profile profile) {
+        this(profile.getId(), profile.getDisplayName(), profile.getBirthDate(), profile.isShowAge(),
+            profile.getGender() != null ? profile.getGender().getType() : null,
+            profile.getRelationship() != null ? profile.getRelationship().getStatus() : null,
+            profile.getPictureHash());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public String getGenderType() {
+        return genderType;
+    }
+
+    public void setGenderType(String genderType) {
+        this.genderType = genderType;
+    }
+
+    public String getRelationshipStatus() {
+        return relationshipStatus;
+    }
+
+    public void setRelationshipStatus(String relationshipStatus) {
+        this.relationshipStatus = relationshipStatus;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileSummaryDTO{" +
+            "id=" + id +
+            ", displayName='" + displayName + "'" +
+            ", age=" + age +
+            ", genderType='" + genderType + "'" +
+            ", relationshipStatus='" + relationshipStatus + "'" +
+            ", thumbnailUrl='" + thumbnailUrl + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,23 @@
+package edu.socialnetwork.service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import edu.socialnetwork.domain.Profile;
+
+import java.io.IOException;
+
+/**
+ * Serializes a {@link Profile} embedded in another entity as a {@link ProfileSummaryDTO}.
+ */
+public class ProfileSummarySerializer extends StdSerializer<Profile> {
+
+    public ProfileSummarySerializer() {
+        super(Profile.class);
+    }
+
+    @Override
+    public void serialize(Profile profile, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        provider.defaultSerializeValue(new ProfileSummaryDTO(profile), generator);
+    }
+}
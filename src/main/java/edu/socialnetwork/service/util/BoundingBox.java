@@ -0,0 +1,79 @@
+package edu.socialnetwork.service.util;
+
+/**
+ * Latitude/longitude rectangle enclosing a circle on the globe.
+ * <p>
+ * When the circle crosses the antimeridian, {@link #getMinLongitude()} is greater than
+ * {@link #getMaxLongitude()} and the box covers both ends of the longitude range.
+ */
+public final class BoundingBox {
+
+    private final double minLatitude;
+
+    private final double maxLatitude;
+
+    private final double minLongitude;
+
+    private final double maxLongitude;
+
+    private BoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    /**
+     * Compute the bounding box of a circle.
+     *
+     * @param latitude the latitude of the center, in degrees
+     * @param longitude the longitude of the center, in degrees
+     * @param distance the radius, in kilometers
+     * @return the bounding box
+     */
+    public static BoundingBox around(double latitude, double longitude, double distance) {
+        double deltaLat = distance / GeoUtil.KM_PER_DEGREE;
+        double minLat = Math.max(-90, latitude - deltaLat);
+        double maxLat = Math.min(90, latitude + deltaLat);
+        double maxAbsLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double deltaLon = maxAbsLat >= 90 ? 180 : deltaLat / Math.cos(Math.toRadians(maxAbsLat));
+        if (deltaLon >= 180) {
+            return new BoundingBox(minLat, maxLat, -180, 180);
+        }
+        return new BoundingBox(minLat, maxLat, normalizeLongitude(longitude - deltaLon), normalizeLongitude(longitude + deltaLon));
+    }
+
+    private static double normalizeLongitude(double longitude) {
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        if (longitude > 180) {
+            return longitude - 360;
+        }
+        return longitude;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    public boolean isFullLongitudeRange() {
+        return minLongitude == -180 && maxLongitude == 180;
+    }
+
+    public boolean crossesAntimeridian() {
+        return minLongitude > maxLongitude;
+    }
+}
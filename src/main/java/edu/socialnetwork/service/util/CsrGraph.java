@@ -0,0 +1,172 @@
+package edu.socialnetwork.service.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable undirected graph over dense vertex ordinals, in compressed sparse row form.
+ * <p>
+ * The neighbours of every vertex are stored sorted and contiguously in a single array, and the row of vertex
+ * {@code v} spans {@code offsets[v]} to {@code offsets[v + 1]}: the degree of a vertex is a subtraction, and an
+ * edge lookup a binary search in a row.
+ */
+public final class CsrGraph {
+
+    private static final CsrGraph EMPTY = new CsrGraph(new int[1], new int[0]);
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private CsrGraph(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    public static CsrGraph empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the number of vertices, including the ones without neighbours
+     */
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the number of undirected edges
+     */
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    public int degree(int vertex) {
+        return vertex < vertexCount() ? offsets[vertex + 1] - offsets[vertex] : 0;
+    }
+
+    /**
+     * @return the index of the first neighbour of a vertex in the rows
+     */
+    public int rowStart(int vertex) {
+        return vertex < vertexCount() ? offsets[vertex] : 0;
+    }
+
+    /**
+     * @return the index after the last neighbour of a vertex in the rows
+     */
+    public int rowEnd(int vertex) {
+        return vertex < vertexCount() ? offsets[vertex + 1] : 0;
+    }
+
+    /**
+     * @param index an index between the {@link #rowStart} and the {@link #rowEnd} of a vertex
+     * @return the neighbour at this index
+     */
+    public int target(int index) {
+        return targets[index];
+    }
+
+    public boolean containsEdge(int a, int b) {
+        return a < vertexCount() && Arrays.binarySearch(targets, offsets[a], offsets[a + 1], b) >= 0;
+    }
+
+    /**
+     * @return the number of bytes {@link #writeTo} puts
+     */
+    public long byteSize() {
+        return 8 + 4L * offsets.length + 4L * targets.length;
+    }
+
+    /**
+     * Put the graph into a buffer, as its vertex and directed edge counts followed by its rows.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(vertexCount()).putInt(targets.length);
+        buffer.asIntBuffer().put(offsets).put(targets);
+        buffer.position(buffer.position() + 4 * (offsets.length + targets.length));
+    }
+
+    /**
+     * Get a graph put into a buffer by {@link #writeTo}.
+     */
+    public static CsrGraph readFrom(ByteBuffer buffer) {
+        int[] offsets = new int[buffer.getInt() + 1];
+        int[] targets = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(offsets).get(targets);
+        buffer.position(buffer.position() + 4 * (offsets.length + targets.length));
+        if (offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("Invalid graph rows");
+        }
+        return new CsrGraph(offsets, targets);
+    }
+
+    /**
+     * Builder of a graph from edges added in any order, duplicates included.
+     */
+    public static final class Builder {
+
+        private int[] sources = new int[16];
+
+        private int[] destinations = new int[16];
+
+        private int size;
+
+        private int vertexCount;
+
+        /**
+         * Add an undirected edge.
+         */
+        public Builder add(int a, int b) {
+            if (a == b) {
+                return this;
+            }
+            if (size + 2 > sources.length) {
+                sources = Arrays.copyOf(sources, sources.length * 2);
+                destinations = Arrays.copyOf(destinations, destinations.length * 2);
+            }
+            sources[size] = a;
+            destinations[size++] = b;
+            sources[size] = b;
+            destinations[size++] = a;
+            vertexCount = Math.max(vertexCount, Math.max(a, b) + 1);
+            return this;
+        }
+
+        /**
+         * @param minVertexCount the number of vertices of the graph, if more than the ones having edges
+         */
+        public CsrGraph build(int minVertexCount) {
+            int count = Math.max(vertexCount, minVertexCount);
+            // Counting sort of the directed edges by source
+            int[] offsets = new int[count + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[sources[i] + 1]++;
+            }
+            for (int v = 0; v < count; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] targets = new int[size];
+            int[] next = Arrays.copyOf(offsets, count);
+            for (int i = 0; i < size; i++) {
+                targets[next[sources[i]]++] = destinations[i];
+            }
+            // Sort every row and drop duplicate edges, compacting the rows in place
+            int write = 0;
+            int start = 0;
+            for (int v = 0; v < count; v++) {
+                int end = offsets[v + 1];
+                Arrays.sort(targets, start, end);
+                offsets[v] = write;
+                for (int i = start; i < end; i++) {
+                    if (i == start || targets[i] != targets[i - 1]) {
+                        targets[write++] = targets[i];
+                    }
+                }
+                start = end;
+            }
+            offsets[count] = write;
+            return new CsrGraph(offsets, write == size ? targets : Arrays.copyOf(targets, write));
+        }
+    }
+}
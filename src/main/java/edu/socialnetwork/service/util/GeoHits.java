@@ -0,0 +1,128 @@
+package edu.socialnetwork.service.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of (id, distance) pairs filled by {@link GeoPointArray#collectWithin}.
+ * <p>
+ * Hits are ordered by distance, then by id.
+ */
+public final class GeoHits {
+
+    private long[] ids;
+
+    private double[] distances;
+
+    private int size;
+
+    public GeoHits() {
+        this(16);
+    }
+
+    public GeoHits(int capacity) {
+        this.ids = new long[Math.max(1, capacity)];
+        this.distances = new double[Math.max(1, capacity)];
+    }
+
+    public void add(long id, double distance) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            distances = Arrays.copyOf(distances, size * 2);
+        }
+        ids[size] = id;
+        distances[size] = distance;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public double getDistance(int index) {
+        return distances[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drop the hits ordered before or at a cursor.
+     *
+     * @param distance the distance of the cursor
+     * @param id the id of the cursor
+     */
+    public void retainAfter(double distance, long id) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (distances[i] > distance || (distances[i] == distance && ids[i] > id)) {
+                ids[kept] = ids[i];
+                distances[kept] = distances[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Keep the k nearest hits, sorted.
+     * <p>
+     * The k nearest hits are selected with a bounded max-heap built in place over the first k slots,
+     * which is then sorted: O(n log k) time, no allocation.
+     *
+     * @param k the number of hits to keep
+     */
+    public void sortNearest(int k) {
+        int heapSize = Math.min(k, size);
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i, heapSize);
+        }
+        for (int i = heapSize; i < size; i++) {
+            if (before(i, 0)) {
+                swap(i, 0);
+                siftDown(0, heapSize);
+            }
+        }
+        size = heapSize;
+        for (int end = heapSize - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && before(largest, left)) {
+                largest = left;
+            }
+            if (right < heapSize && before(largest, right)) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return distances[a] < distances[b] || (distances[a] == distances[b] && ids[a] < ids[b]);
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+    }
+}
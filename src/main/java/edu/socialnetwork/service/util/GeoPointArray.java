@@ -0,0 +1,244 @@
+package edu.socialnetwork.service.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable block of points stored in parallel primitive arrays.
+ * <p>
+ * The sine and cosine of every latitude and longitude are computed once, when the point is added, so
+ * that testing a point against a radius is a handful of multiplications: by the spherical law of
+ * cosines, the cosine of the angle between two points is
+ * {@code sin(lat1) sin(lat2) + cos(lat1) cos(lat2) (cos(lon1) cos(lon2) + sin(lon1) sin(lon2))},
+ * which is compared to the cosine of the radius. Only the points inside the radius pay for an
+ * {@code acos} to report their distance, and no object is allocated per point.
+ * <p>
+ * Updates return a new block, so a block can be read concurrently without locking.
+ */
+public final class GeoPointArray {
+
+    private static final GeoPointArray EMPTY = new GeoPointArray(new long[0], new double[0], new double[0],
+        new double[0], new double[0], new double[0], new double[0]);
+
+    private final long[] ids;
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    private final double[] sinLatitudes;
+
+    private final double[] cosLatitudes;
+
+    private final double[] sinLongitudes;
+
+    private final double[] cosLongitudes;
+
+    private GeoPointArray(long[] ids, double[] latitudes, double[] longitudes, double[] sinLatitudes,
+                          double[] cosLatitudes, double[] sinLongitudes, double[] cosLongitudes) {
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.sinLatitudes = sinLatitudes;
+        this.cosLatitudes = cosLatitudes;
+        this.sinLongitudes = sinLongitudes;
+        this.cosLongitudes = cosLongitudes;
+    }
+
+    public static GeoPointArray empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * @param id the id of a point
+     * @return the index of the point, or -1 if it is not in this block
+     */
+    public int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add a point, or move it if it is already in this block.
+     *
+     * @param id the id of the point
+     * @param latitude the latitude, in degrees
+     * @param longitude the longitude, in degrees
+     * @return the updated block
+     */
+    public GeoPointArray with(long id, double latitude, double longitude) {
+        int index = indexOf(id);
+        GeoPointArray result;
+        if (index < 0) {
+            index = ids.length;
+            result = copyOf(ids.length + 1);
+        } else {
+            result = copyOf(ids.length);
+        }
+        setPoint(result, index, id, latitude, longitude);
+        return result;
+    }
+
+    /**
+     * Remove a point.
+     *
+     * @param id the id of the point
+     * @return the updated block, which may be empty
+     */
+    public GeoPointArray without(long id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this;
+        }
+        int last = ids.length - 1;
+        GeoPointArray result = copyOf(last);
+        if (index < last) {
+            result.ids[index] = ids[last];
+            result.latitudes[index] = latitudes[last];
+            result.longitudes[index] = longitudes[last];
+            result.sinLatitudes[index] = sinLatitudes[last];
+            result.cosLatitudes[index] = cosLatitudes[last];
+            result.sinLongitudes[index] = sinLongitudes[last];
+            result.cosLongitudes[index] = cosLongitudes[last];
+        }
+        return result;
+    }
+
+    /**
+     * Append the points located within the radius of a query to a buffer.
+     *
+     * @param query the center and radius
+     * @param hits the buffer receiving the ids and distances of the matching points
+     */
+    public void collectWithin(Query query, GeoHits hits) {
+        final double sinLat = query.sinLatitude;
+        final double cosLat = query.cosLatitude;
+        final double sinLon = query.sinLongitude;
+        final double cosLon = query.cosLongitude;
+        final double threshold = query.cosRadius;
+        final double distance = query.distance;
+        for (int i = 0; i < ids.length; i++) {
+            double cosAngle = sinLat * sinLatitudes[i] +
+                cosLat * cosLatitudes[i] * (cosLon * cosLongitudes[i] + sinLon * sinLongitudes[i]);
+            if (cosAngle >= threshold) {
+                double d = Math.toDegrees(Math.acos(Math.min(1, cosAngle))) * GeoUtil.KM_PER_DEGREE;
+                if (d <= distance) {
+                    hits.add(ids[i], d);
+                }
+            }
+        }
+    }
+
+    private static void setPoint(GeoPointArray block, int index, long id, double latitude, double longitude) {
+        double latRad = Math.toRadians(latitude);
+        double lonRad = Math.toRadians(longitude);
+        block.ids[index] = id;
+        block.latitudes[index] = latitude;
+        block.longitudes[index] = longitude;
+        block.sinLatitudes[index] = Math.sin(latRad);
+        block.cosLatitudes[index] = Math.cos(latRad);
+        block.sinLongitudes[index] = Math.sin(lonRad);
+        block.cosLongitudes[index] = Math.cos(lonRad);
+    }
+
+    private GeoPointArray copyOf(int length) {
+        return new GeoPointArray(
+            Arrays.copyOf(ids, length),
+            Arrays.copyOf(latitudes, length),
+            Arrays.copyOf(longitudes, length),
+            Arrays.copyOf(sinLatitudes, length),
+            Arrays.copyOf(cosLatitudes, length),
+            Arrays.copyOf(sinLongitudes, length),
+            Arrays.copyOf(cosLongitudes, length));
+    }
+
+    /**
+     * Collects points to build a block in one go, rather than copying the arrays for each point.
+     */
+    public static final class Builder {
+
+        private long[] ids = new long[16];
+
+        private double[] latitudes = new double[16];
+
+        private double[] longitudes = new double[16];
+
+        private int size;
+
+        public Builder add(long id, double latitude, double longitude) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            ids[size] = id;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+            return this;
+        }
+
+        public GeoPointArray build() {
+            GeoPointArray block = EMPTY.copyOf(size);
+            for (int i = 0; i < size; i++) {
+                setPoint(block, i, ids[i], latitudes[i], longitudes[i]);
+            }
+            return block;
+        }
+    }
+
+    /**
+     * The center and radius of a proximity query, with their trigonometry computed once.
+     */
+    public static final class Query {
+
+        private final double sinLatitude;
+
+        private final double cosLatitude;
+
+        private final double sinLongitude;
+
+        private final double cosLongitude;
+
+        private final double distance;
+
+        private final double cosRadius;
+
+        /**
+         * @param latitude the latitude of the center, in degrees
+         * @param longitude the longitude of the center, in degrees
+         * @param distance the radius, in kilometers
+         */
+        public Query(double latitude, double longitude, double distance) {
+            double latRad = Math.toRadians(latitude);
+            double lonRad = Math.toRadians(longitude);
+            this.sinLatitude = Math.sin(latRad);
+            this.cosLatitude = Math.cos(latRad);
+            this.sinLongitude = Math.sin(lonRad);
+            this.cosLongitude = Math.cos(lonRad);
+            this.distance = distance;
+            double angle = Math.toRadians(distance / GeoUtil.KM_PER_DEGREE);
+            // Leave some slack for rounding errors, the distance of the points passing it is checked exactly.
+            this.cosRadius = angle >= Math.PI ? -1 : Math.cos(angle) - 1e-12;
+        }
+    }
+}
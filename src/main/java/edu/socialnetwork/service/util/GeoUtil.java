@@ -0,0 +1,35 @@
+package edu.socialnetwork.service.util;
+
+/**
+ * Utility class for geographic computations.
+ */
+public final class GeoUtil {
+
+    /**
+     * Kilometers covered by one degree of latitude (and of longitude at the equator).
+     */
+    public static final double KM_PER_DEGREE = 60 * 1.1515 * 1.609344;
+
+    private GeoUtil() {
+    }
+
+    /**
+     * Great-circle distance between two points, using the spherical law of cosines.
+     *
+     * @param lat1 latitude of the first point, in degrees
+     * @param lon1 longitude of the first point, in degrees
+     * @param lat2 latitude of the second point, in degrees
+     * @param lon2 longitude of the second point, in degrees
+     * @return the distance in kilometers
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        if ((lat1 == lat2) && (lon1 == lon2)) {
+            return 0;
+        }
+        double theta = lon1 - lon2;
+        double dist = Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2)) +
+                      Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(theta));
+        dist = Math.acos(Math.min(1, Math.max(-1, dist)));
+        return Math.toDegrees(dist) * KM_PER_DEGREE;
+    }
+}
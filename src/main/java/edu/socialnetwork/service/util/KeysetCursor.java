@@ -0,0 +1,107 @@
+package edu.socialnetwork.service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * The position of the last entity of a keyset-paginated slice: its id, and its creation date when entities are
+ * ordered by creation date.
+ * <p>
+ * Clients get the cursor as an opaque URL-safe string, which they send back to get the next slice.
+ */
+public final class KeysetCursor {
+
+    private final ZonedDateTime createdDate;
+
+    private final long id;
+
+    private KeysetCursor(ZonedDateTime createdDate, long id) {
+        this.createdDate = createdDate;
+        this.id = id;
+    }
+
+    public static KeysetCursor of(long id) {
+        return new KeysetCursor(null, id);
+    }
+
+    public static KeysetCursor of(ZonedDateTime createdDate, long id) {
+        return new KeysetCursor(Objects.requireNonNull(createdDate), id);
+    }
+
+    /**
+     * @return the creation date of the entity, or null if entities are ordered by id only
+     */
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the opaque string form of this cursor
+     */
+    public String encode() {
+        String value = Long.toString(id);
+        if (createdDate != null) {
+            Instant instant = createdDate.toInstant();
+            value = instant.getEpochSecond() + "." + instant.getNano() + "." + value;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parse the opaque string form of a cursor.
+     *
+     * @param value the string returned by {@link #encode()}
+     * @return the cursor
+     * @throws IllegalArgumentException if the string is not a cursor
+     */
+    public static KeysetCursor decode(String value) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII).split("\\.", -1);
+        try {
+            if (parts.length == 1) {
+                return of(Long.parseLong(parts[0]));
+            }
+            if (parts.length == 3) {
+                Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+                return of(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC), Long.parseLong(parts[2]));
+            }
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id && Objects.equals(createdDate == null ? null : createdDate.toInstant(),
+            that.createdDate == null ? null : that.createdDate.toInstant());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createdDate == null ? null : createdDate.toInstant(), id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "createdDate=" + createdDate +
+            ", id=" + id +
+            "}";
+    }
+}
@@ -0,0 +1,38 @@
+package edu.socialnetwork.service.util;
+
+import java.util.List;
+
+/**
+ * A slice of entities returned by keyset pagination, with the cursor of the next slice.
+ * <p>
+ * Unlike a {@link org.springframework.data.domain.Page}, a slice does not know the total number of entities, so
+ * getting it never needs a count query.
+ *
+ * @param <T> the type of the entities
+ */
+public final class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final KeysetCursor next;
+
+    public KeysetSlice(List<T> content, KeysetCursor next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the cursor of the last entity of this slice, or null if this is the last slice
+     */
+    public KeysetCursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,237 @@
+package edu.socialnetwork.service.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable list of the documents containing a term, sorted by id.
+ * <p>
+ * Ids and term frequencies are stored in parallel primitive arrays, so that intersecting lists is a
+ * binary search per candidate without allocating. Updates return a new list, so a list can be read
+ * concurrently without locking.
+ * <p>
+ * The documents are split into chunks of at most {@link #MAX_CHUNK_SIZE}, which lists share: an update copies
+ * the chunk it changes and the references to the chunks, not every document of a term as common as to be in
+ * most profiles.
+ */
+public final class PostingList {
+
+    static final int MAX_CHUNK_SIZE = 256;
+
+    private static final PostingList EMPTY = new PostingList(new Chunk[0]);
+
+    private final Chunk[] chunks;
+
+    /**
+     * The index of the first document of each chunk, followed by the size of the list.
+     */
+    private final int[] offsets;
+
+    /**
+     * The greatest id of each chunk.
+     */
+    private final long[] lastIds;
+
+    private PostingList(Chunk[] chunks) {
+        this.chunks = chunks;
+        this.offsets = new int[chunks.length + 1];
+        this.lastIds = new long[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            offsets[i + 1] = offsets[i] + chunks[i].ids.length;
+            lastIds[i] = chunks[i].ids[chunks[i].ids.length - 1];
+        }
+    }
+
+    public static PostingList empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return offsets[chunks.length];
+    }
+
+    public long getId(int index) {
+        int chunk = chunkAt(index);
+        return chunks[chunk].ids[index - offsets[chunk]];
+    }
+
+    public int getFrequency(int index) {
+        int chunk = chunkAt(index);
+        return chunks[chunk].frequencies[index - offsets[chunk]];
+    }
+
+    /**
+     * @param id the id of a document
+     * @return the index of the document, or a negative value if it is not in this list
+     */
+    public int indexOf(long id) {
+        int chunk = chunkFor(id);
+        if (chunk == chunks.length) {
+            return -size() - 1;
+        }
+        int index = Arrays.binarySearch(chunks[chunk].ids, id);
+        return index >= 0 ? offsets[chunk] + index : index - offsets[chunk];
+    }
+
+    /**
+     * Add a document, or replace its frequency if it is already in this list.
+     *
+     * @param id the id of the document
+     * @param frequency the weighted frequency of the term in the document
+     * @return the updated list
+     */
+    public PostingList with(long id, int frequency) {
+        if (chunks.length == 0) {
+            return new PostingList(new Chunk[]{new Chunk(new long[]{id}, new int[]{frequency})});
+        }
+        int chunk = Math.min(chunkFor(id), chunks.length - 1);
+        return new PostingList(replace(chunk, chunks[chunk].with(id, frequency)));
+    }
+
+    /**
+     * Remove a document.
+     *
+     * @param id the id of the document
+     * @return the updated list, which may be empty
+     */
+    public PostingList without(long id) {
+        int chunk = chunkFor(id);
+        if (chunk == chunks.length) {
+            return this;
+        }
+        int index = Arrays.binarySearch(chunks[chunk].ids, id);
+        if (index < 0) {
+            return this;
+        }
+        if (chunks[chunk].ids.length == 1) {
+            return chunks.length == 1 ? EMPTY : new PostingList(replace(chunk));
+        }
+        return new PostingList(replace(chunk, chunks[chunk].without(index)));
+    }
+
+    /**
+     * @return the index of the first chunk whose ids are not all lower than the id, or the number of chunks
+     */
+    private int chunkFor(long id) {
+        int chunk = Arrays.binarySearch(lastIds, id);
+        return chunk >= 0 ? chunk : -chunk - 1;
+    }
+
+    /**
+     * @return the index of the chunk holding the document at an index of the list
+     */
+    private int chunkAt(int index) {
+        int chunk = Arrays.binarySearch(offsets, index);
+        return chunk >= 0 ? chunk : -chunk - 2;
+    }
+
+    private Chunk[] replace(int index, Chunk... replacement) {
+        Chunk[] newChunks = new Chunk[chunks.length - 1 + replacement.length];
+        System.arraycopy(chunks, 0, newChunks, 0, index);
+        System.arraycopy(replacement, 0, newChunks, index, replacement.length);
+        System.arraycopy(chunks, index + 1, newChunks, index + replacement.length, chunks.length - index - 1);
+        return newChunks;
+    }
+
+    /**
+     * A non-empty run of documents, sorted by id.
+     */
+    private static final class Chunk {
+
+        private final long[] ids;
+
+        private final int[] frequencies;
+
+        private Chunk(long[] ids, int[] frequencies) {
+            this.ids = ids;
+            this.frequencies = frequencies;
+        }
+
+        /**
+         * @return the updated chunk, or two halves of it if it grows larger than {@link #MAX_CHUNK_SIZE}
+         */
+        private Chunk[] with(long id, int frequency) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                int[] newFrequencies = frequencies.clone();
+                newFrequencies[index] = frequency;
+                return new Chunk[]{new Chunk(ids, newFrequencies)};
+            }
+            int insertion = -index - 1;
+            long[] newIds = new long[ids.length + 1];
+            int[] newFrequencies = new int[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, insertion);
+            System.arraycopy(frequencies, 0, newFrequencies, 0, insertion);
+            newIds[insertion] = id;
+            newFrequencies[insertion] = frequency;
+            System.arraycopy(ids, insertion, newIds, insertion + 1, ids.length - insertion);
+            System.arraycopy(frequencies, insertion, newFrequencies, insertion + 1, ids.length - insertion);
+            if (newIds.length <= MAX_CHUNK_SIZE) {
+                return new Chunk[]{new Chunk(newIds, newFrequencies)};
+            }
+            int half = newIds.length / 2;
+            return new Chunk[]{
+                new Chunk(Arrays.copyOfRange(newIds, 0, half), Arrays.copyOfRange(newFrequencies, 0, half)),
+                new Chunk(Arrays.copyOfRange(newIds, half, newIds.length), Arrays.copyOfRange(newFrequencies, half, newIds.length))
+            };
+        }
+
+        private Chunk without(int index) {
+            long[] newIds = new long[ids.length - 1];
+            int[] newFrequencies = new int[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(frequencies, 0, newFrequencies, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+            System.arraycopy(frequencies, index + 1, newFrequencies, index, ids.length - index - 1);
+            return new Chunk(newIds, newFrequencies);
+        }
+    }
+
+    /**
+     * Builder of a list from documents added in any order.
+     */
+    public static final class Builder {
+
+        private long[] ids = new long[8];
+
+        private int[] frequencies = new int[8];
+
+        private int size;
+
+        public Builder add(long id, int frequency) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ids[size] = id;
+            frequencies[size] = frequency;
+            size++;
+            return this;
+        }
+
+        public PostingList build() {
+            long[] builtIds = Arrays.copyOf(ids, size);
+            int[] builtFrequencies = new int[size];
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = builtIds[i - 1] < builtIds[i];
+            }
+            if (sorted) {
+                System.arraycopy(frequencies, 0, builtFrequencies, 0, size);
+            } else {
+                Arrays.sort(builtIds);
+                for (int i = 0; i < size; i++) {
+                    builtFrequencies[Arrays.binarySearch(builtIds, ids[i])] = frequencies[i];
+                }
+            }
+            // Half-full chunks, so that most insertions do not split them
+            int chunkSize = MAX_CHUNK_SIZE / 2;
+            Chunk[] chunks = new Chunk[(size + chunkSize - 1) / chunkSize];
+            for (int i = 0; i < chunks.length; i++) {
+                int from = i * chunkSize;
+                int to = Math.min(size, from + chunkSize);
+                chunks[i] = new Chunk(Arrays.copyOfRange(builtIds, from, to), Arrays.copyOfRange(builtFrequencies, from, to));
+            }
+            return chunks.length == 0 ? EMPTY : new PostingList(chunks);
+        }
+    }
+}
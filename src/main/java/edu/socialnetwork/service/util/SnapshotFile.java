@@ -0,0 +1,130 @@
+package edu.socialnetwork.service.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of an in-memory index, written and read back memory-mapped.
+ * <p>
+ * The file starts with a header holding a magic number, the format version of the index, the high-water mark of
+ * the snapshot, that is the point from which the changes of the source rows must be replayed, and the length and
+ * CRC-32 of the payload. It is written to a temporary file then moved over the previous snapshot, so that a crash
+ * while writing leaves the previous snapshot intact.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x534E4150;
+
+    static final int HEADER_SIZE = 32;
+
+    private final long highWaterMark;
+
+    private final ByteBuffer payload;
+
+    private SnapshotFile(long highWaterMark, ByteBuffer payload) {
+        this.highWaterMark = highWaterMark;
+        this.payload = payload;
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return the payload, positioned at its start
+     */
+    public ByteBuffer getPayload() {
+        return payload;
+    }
+
+    /**
+     * Write a snapshot.
+     *
+     * @param path the file of the snapshot, replaced if it exists
+     * @param version the format version of the payload
+     * @param highWaterMark the high-water mark of the snapshot
+     * @param payloadSize the number of bytes the writer puts
+     * @param writer the writer of the payload into a buffer of exactly this size
+     * @throws IOException if the file cannot be written, or the payload is larger than 2 GB
+     */
+    public static void write(Path path, int version, long highWaterMark, long payloadSize,
+                             Consumer<ByteBuffer> writer) throws IOException {
+        if (payloadSize > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IOException("Snapshot of " + payloadSize + " bytes is too large");
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + payloadSize);
+                buffer.position(HEADER_SIZE);
+                ByteBuffer payload = buffer.slice();
+                writer.accept(payload);
+                if (payload.position() != payloadSize) {
+                    throw new IllegalStateException("Wrote " + payload.position() + " bytes instead of " + payloadSize);
+                }
+                payload.flip();
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                buffer.putInt(0, MAGIC)
+                    .putInt(4, version)
+                    .putLong(8, highWaterMark)
+                    .putLong(16, payloadSize)
+                    .putLong(24, crc.getValue());
+                buffer.force();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Map a snapshot and check its header and checksum.
+     *
+     * @param path the file of the snapshot
+     * @param version the expected format version of the payload
+     * @return the snapshot, or an empty optional if there is no such file
+     * @throws IOException if the file cannot be read, or is not a valid snapshot of this version
+     */
+    public static Optional<SnapshotFile> read(Path path, int version) throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size " + size);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot");
+        }
+        if (buffer.getInt(4) != version) {
+            throw new IOException("Snapshot version " + buffer.getInt(4) + " instead of " + version);
+        }
+        if (buffer.getLong(16) != buffer.capacity() - HEADER_SIZE) {
+            throw new IOException("Truncated snapshot");
+        }
+        buffer.position(HEADER_SIZE);
+        ByteBuffer payload = buffer.slice();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != buffer.getLong(24)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        return Optional.of(new SnapshotFile(buffer.getLong(8), payload));
+    }
+}
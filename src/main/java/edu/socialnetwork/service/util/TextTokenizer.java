@@ -0,0 +1,68 @@
+package edu.socialnetwork.service.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class splitting free text into normalized terms.
+ * <p>
+ * Text is normalized by removing accents and lowercasing, so that "José" and "jose" are the same term,
+ * then split on every character which is not a letter or a digit.
+ */
+public final class TextTokenizer {
+
+    /**
+     * Terms longer than this are dropped: they are not words, and would only bloat the index.
+     */
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * Remove the accents of a text and lowercase it.
+     *
+     * @param text the text, may be null
+     * @return the normalized text, empty if the text is null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split a text into normalized terms.
+     *
+     * @param text the text, may be null
+     * @return the terms, in the order of the text, with duplicates
+     */
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    terms.add(normalized.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -4,13 +4,15 @@ import edu.socialnetwork.service.BlockService;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
 import edu.socialnetwork.web.rest.util.PaginationUtil;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.BlockCriteria;
 import edu.socialnetwork.service.BlockQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -88,16 +90,37 @@ public class BlockResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of blocks in body
      */
     @GetMapping("/blocks")
-    public ResponseEntity<List<Block>> getAllBlocks(BlockCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Block>> getAllBlocks(BlockCriteria criteria, Pageable pageable,
+                                                    @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get Blocks by criteria: {}", criteria);
-        Page<Block> page = blockQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/blocks");
+        Slice<Block> page = blockQueryService.findByCriteria(criteria, pageable, count);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/blocks", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /blocks?after=:cursor : get the blocks by keyset pagination, newest first.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last block of the previous slice
+     * @param size the maximum number of blocks to return
+     * @return the ResponseEntity with status 200 (OK) and the list of blocks in body
+     */
+    @GetMapping(value = "/blocks", params = "after")
+    public ResponseEntity<List<Block>> getAllBlocksAfter(BlockCriteria criteria, @RequestParam("after") String after,
+                                                         @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get Blocks by criteria: {} after: {}", criteria, after);
+        KeysetSlice<Block> slice = blockQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
     * GET  /blocks/count : count all the blocks.
     *
@@ -2,11 +2,13 @@ package edu.socialnetwork.web.rest;
 
 import edu.socialnetwork.domain.DirectMessage;
 import edu.socialnetwork.domain.Profile;
-import edu.socialnetwork.repository.InvitationRepository;
 import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.security.SecurityUtils;
 import edu.socialnetwork.service.DirectMessageQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import edu.socialnetwork.service.DirectMessageService;
+import edu.socialnetwork.service.InvitationService;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.DirectMessageCriteria;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
@@ -14,8 +16,8 @@ import edu.socialnetwork.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,7 +29,6 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * REST controller for managing DirectMessage.
@@ -46,16 +47,16 @@ public class DirectMessageResource {
 
     private final ProfileRepository profileRepository;
 
-    private final InvitationRepository invitationRepository;
+    private final InvitationService invitationService;
 
     public DirectMessageResource(DirectMessageService directMessageService,
                                  DirectMessageQueryService directMessageQueryService,
                                  ProfileRepository profileRepository,
-                                 InvitationRepository invitationRepository) {
+                                 InvitationService invitationService) {
         this.directMessageService = directMessageService;
         this.directMessageQueryService = directMessageQueryService;
         this.profileRepository = profileRepository;
-        this.invitationRepository = invitationRepository;
+        this.invitationService = invitationService;
     }
 
     /**
@@ -94,21 +95,12 @@ public class DirectMessageResource {
         newDM.setRecipient(directMessage.getRecipient());
         newDM.setCreatedDate(ZonedDateTime.now(ZoneId.systemDefault()));
         newDM.setPicture(directMessage.getPicture());
+        newDM.setPictureHash(directMessage.getPictureHash());
         newDM.setPictureContentType(directMessage.getPictureContentType());
         newDM.setMessage(directMessage.getMessage());
         newDM.setUrl(directMessage.getUrl());
 
-        List<Profile> friends = invitationRepository.findAcceptedInvitations(profile)
-            .stream().map( invitation -> {
-                    Profile friend;
-                    if (invitation.getReceived().equals(profile)) friend = invitation.getSent();
-                    else friend = invitation.getReceived();
-
-                    return friend;
-                }
-            ).collect(Collectors.toList());
-
-        boolean theyAreFriends = friends.contains(newDM.getRecipient());
+        boolean theyAreFriends = invitationService.areFriends(profile.getId(), newDM.getRecipient().getId());
 
         if(!theyAreFriends) {
             throw new BadRequestAlertException("You are not a friend of " + newDM.getRecipient().getDisplayName(), ENTITY_NAME, "noFriendWithRecipient");
@@ -141,21 +133,67 @@ public class DirectMessageResource {
             .body(result);
     }
 
+    /**
+     * PUT  /direct-messages/:id/read : mark the "id" directMessage as read by the current user, its recipient.
+     *
+     * @param id the id of the directMessage to mark as read
+     * @return the ResponseEntity with status 200 (OK) and with body the updated directMessage,
+     * or with status 400 (Bad Request) if the current user is not its recipient, or with status 404 (Not Found)
+     */
+    @PutMapping("/direct-messages/{id}/read")
+    public ResponseEntity<DirectMessage> markDirectMessageRead(@PathVariable Long id) {
+        log.debug("REST request to mark DirectMessage as read : {}", id);
+        Optional<DirectMessage> directMessage = directMessageService.findOne(id);
+        if (!directMessage.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        String userLogin = SecurityUtils.getCurrentUserLogin().get();
+        Profile recipient = directMessage.get().getRecipient();
+        if (recipient == null || recipient.getUser() == null || !userLogin.equals(recipient.getUser().getLogin())) {
+            throw new BadRequestAlertException("Only the recipient can read a direct message", ENTITY_NAME, "notRecipient");
+        }
+        DirectMessage result = directMessageService.markRead(directMessage.get());
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()))
+            .body(result);
+    }
+
     /**
      * GET  /direct-messages : get all the directMessages.
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of directMessages in body
      */
     @GetMapping("/direct-messages")
-    public ResponseEntity<List<DirectMessage>> getAllDirectMessages(DirectMessageCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<DirectMessage>> getAllDirectMessages(DirectMessageCriteria criteria, Pageable pageable,
+                                                                    @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get DirectMessages by criteria: {}", criteria);
-        Page<DirectMessage> page = directMessageQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/direct-messages");
+        Slice<DirectMessage> page = directMessageQueryService.findByCriteria(criteria, pageable, count);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/direct-messages", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /direct-messages?after=:cursor : get the direct messages by keyset pagination, newest first.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last direct message of the previous slice
+     * @param size the maximum number of direct messages to return
+     * @return the ResponseEntity with status 200 (OK) and the list of direct messages in body
+     */
+    @GetMapping(value = "/direct-messages", params = "after")
+    public ResponseEntity<List<DirectMessage>> getAllDirectMessagesAfter(DirectMessageCriteria criteria, @RequestParam("after") String after,
+                                                                         @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get DirectMessages by criteria: {} after: {}", criteria, after);
+        KeysetSlice<DirectMessage> slice = directMessageQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
     * GET  /direct-messages/count : count all the directMessages.
     *
@@ -7,17 +7,22 @@ import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.repository.UserRepository;
 import edu.socialnetwork.security.SecurityUtils;
 import edu.socialnetwork.service.InvitationService;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
 import edu.socialnetwork.web.rest.util.PaginationUtil;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.InvitationCriteria;
 import edu.socialnetwork.service.InvitationQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -111,16 +116,37 @@ public class InvitationResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of invitations in body
      */
     @GetMapping("/invitations")
-    public ResponseEntity<List<Invitation>> getAllInvitations(InvitationCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Invitation>> getAllInvitations(InvitationCriteria criteria, Pageable pageable,
+                                                              @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get Invitations by criteria: {}", criteria);
-        Page<Invitation> page = invitationQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/invitations");
+        Slice<Invitation> page = invitationQueryService.findByCriteria(criteria, pageable, count);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/invitations", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /invitations?after=:cursor : get the invitations by keyset pagination, newest first.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last invitation of the previous slice
+     * @param size the maximum number of invitations to return
+     * @return the ResponseEntity with status 200 (OK) and the list of invitations in body
+     */
+    @GetMapping(value = "/invitations", params = "after")
+    public ResponseEntity<List<Invitation>> getAllInvitationsAfter(InvitationCriteria criteria, @RequestParam("after") String after,
+                                                                   @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get Invitations by criteria: {} after: {}", criteria, after);
+        KeysetSlice<Invitation> slice = invitationQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * GET  /invitations/count : count all the invitations.
      *
@@ -175,19 +201,24 @@ public class InvitationResource {
         String sender = SecurityUtils.getCurrentUserLogin().get();
         String receiver = userRepository.findOneWithAuthoritiesById(userId).get().getLogin();
 
-        if (!invitationRepository.findBySentUserLoginAndReceivedUserLogin(sender, receiver).isEmpty()
-            || !invitationRepository.findBySentUserLoginAndReceivedUserLogin(receiver, sender).isEmpty()) {
-            throw new BadRequestAlertException("Invite already exists between " + sender + " and " + receiver, ENTITY_NAME, "inviteExist");
-        }
-
         Invitation invitation = new Invitation();
         invitation.setCreatedDate(ZonedDateTime.now());
         invitation.setSent(profileRepository.findByUserLogin(sender).get());
         invitation.setReceived(profileRepository.findByUserLogin(receiver).get());
 
+        if (invitationService.existsBetween(invitation.getSent().getId(), invitation.getReceived().getId())) {
+            throw new BadRequestAlertException("Invite already exists between " + sender + " and " + receiver, ENTITY_NAME, "inviteExist");
+        }
+
         log.debug("REST request to save Invitation : {}", invitation);
 
-        Invitation result = invitationService.save(invitation);
+        Invitation result;
+        try {
+            result = invitationService.save(invitation);
+        } catch (DataIntegrityViolationException e) {
+            // The unique index on the pair of profiles rejected a concurrent invite
+            throw new BadRequestAlertException("Invite already exists between " + sender + " and " + receiver, ENTITY_NAME, "inviteExist");
+        }
         return ResponseEntity.created(new URI("/api/invite/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -209,9 +240,7 @@ public class InvitationResource {
             throw new BadRequestAlertException("Invite "+ id +" is not addressed to " + userLogin, ENTITY_NAME, "inviteDoesNotBelongToUser");
         }
 
-        invitation.setAccepted(state);
-
-        Invitation result = invitationRepository.save(invitation);
+        Invitation result = invitationService.changeState(invitation, state);
 
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, invitation.getId().toString()))
@@ -235,23 +264,13 @@ public class InvitationResource {
     }
 
     @GetMapping("/my-friends")
-    public ResponseEntity<List<Profile>> getMyFriends(Pageable pageable) {
+    public ResponseEntity<List<ProfileSummaryDTO>> getMyFriends(Pageable pageable) {
         log.debug("REST request to get current user friends: {}");
 
         String userLogin = SecurityUtils.getCurrentUserLogin().get();
         Profile profile = profileRepository.findByUserLogin(userLogin).get();
 
-        Page<Profile> friends = invitationRepository.findAcceptedInvitations(profile, pageable)
-
-            .map( invitation -> {
-                Profile friend;
-                if (invitation.getReceived().equals(profile)) friend = invitation.getSent();
-                else friend = invitation.getReceived();
-
-                return friend;
-            }
-        );
-
+        Page<ProfileSummaryDTO> friends = invitationRepository.findFriendSummaries(profile.getId(), pageable);
 
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(friends, "/api/my-friends");
         return ResponseEntity.ok().headers(headers).body(friends.getContent());
@@ -4,16 +4,19 @@ import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.security.SecurityUtils;
 import edu.socialnetwork.service.LocationService;
+import edu.socialnetwork.service.ProfileService;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
 import edu.socialnetwork.web.rest.util.PaginationUtil;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.LocationCriteria;
 import edu.socialnetwork.service.LocationQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -44,10 +47,13 @@ public class LocationResource {
 
     private final ProfileRepository profileRepository;
 
-    public LocationResource(LocationService locationService, LocationQueryService locationQueryService, ProfileRepository profileRepository) {
+    private final ProfileService profileService;
+
+    public LocationResource(LocationService locationService, LocationQueryService locationQueryService, ProfileRepository profileRepository, ProfileService profileService) {
         this.locationService = locationService;
         this.locationQueryService = locationQueryService;
         this.profileRepository = profileRepository;
+        this.profileService = profileService;
     }
 
     /**
@@ -70,7 +76,7 @@ public class LocationResource {
 
         profile.setLocation(result);
 
-        profileRepository.save(profile);
+        profileService.save(profile);
 
         return ResponseEntity.created(new URI("/api/locations/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
@@ -103,16 +109,37 @@ public class LocationResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of locations in body
      */
     @GetMapping("/locations")
-    public ResponseEntity<List<Location>> getAllLocations(LocationCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Location>> getAllLocations(LocationCriteria criteria, Pageable pageable,
+                                                          @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get Locations by criteria: {}", criteria);
-        Page<Location> page = locationQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/locations");
+        Slice<Location> page = locationQueryService.findByCriteria(criteria, pageable, count);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/locations", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /locations?after=:cursor : get the locations by keyset pagination, by ascending id.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last location of the previous slice
+     * @param size the maximum number of locations to return
+     * @return the ResponseEntity with status 200 (OK) and the list of locations in body
+     */
+    @GetMapping(value = "/locations", params = "after")
+    public ResponseEntity<List<Location>> getAllLocationsAfter(LocationCriteria criteria, @RequestParam("after") String after,
+                                                               @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get Locations by criteria: {} after: {}", criteria, after);
+        KeysetSlice<Location> slice = locationQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
     * GET  /locations/count : count all the locations.
     *
@@ -0,0 +1,174 @@
+package edu.socialnetwork.web.rest;
+
+import edu.socialnetwork.domain.MediaObject;
+import edu.socialnetwork.service.MediaStoreService;
+import edu.socialnetwork.service.ThumbnailService;
+import edu.socialnetwork.web.rest.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * REST controller for uploading and serving the files of the media store.
+ * <p>
+ * A file never changes once stored, since its URL is the hash of its content: it is served with an ETag
+ * and a Cache-Control header letting browsers and proxies keep it for a year.
+ */
+@RestController
+public class MediaResource {
+
+    private static final String ENTITY_NAME = "media";
+
+    static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final Logger log = LoggerFactory.getLogger(MediaResource.class);
+
+    private final MediaStoreService mediaStoreService;
+
+    private final ThumbnailService thumbnailService;
+
+    public MediaResource(MediaStoreService mediaStoreService, ThumbnailService thumbnailService) {
+        this.mediaStoreService = mediaStoreService;
+        this.thumbnailService = thumbnailService;
+    }
+
+    /**
+     * POST  /api/media : upload a picture sent as the raw request body.
+     * <p>
+     * The body is streamed to the media store: use the returned hash as the pictureHash of a profile or message.
+     *
+     * @param request the HTTP request
+     * @return the ResponseEntity with status 201 (Created) and with body the stored picture, or with status
+     * 400 (Bad Request) if it is not a supported picture, or 413 (Payload Too Large) if it is too large
+     * @throws IOException if the picture could not be stored
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping(value = "/api/media", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<MediaObject> uploadMedia(HttpServletRequest request) throws IOException, URISyntaxException {
+        log.debug("REST request to upload Media of {} bytes", request.getContentLengthLong());
+        return created(mediaStoreService.upload(request.getInputStream()));
+    }
+
+    /**
+     * POST  /api/media : upload a picture sent as the "file" part of a multipart request.
+     *
+     * @param file the picture
+     * @return the ResponseEntity with status 201 (Created) and with body the stored picture, or with status
+     * 400 (Bad Request) if it is not a supported picture, or 413 (Payload Too Large) if it is too large
+     * @throws IOException if the picture could not be stored
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping(value = "/api/media", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<MediaObject> uploadMediaFile(@RequestParam("file") MultipartFile file) throws IOException, URISyntaxException {
+        log.debug("REST request to upload Media file {} of {} bytes", file.getOriginalFilename(), file.getSize());
+        try (InputStream input = file.getInputStream()) {
+            return created(mediaStoreService.upload(input));
+        }
+    }
+
+    /**
+     * GET  /media/:hash : get the file with the given hash.
+     *
+     * @param hash the SHA-256 hash of the file
+     * @param request the HTTP request
+     * @param response the HTTP response, with status 200 (OK) and the file as body, 304 (Not Modified) if the
+     * client already has it, or 404 (Not Found)
+     * @throws IOException if the file could not be read
+     */
+    @GetMapping("/media/{hash:[0-9a-f]{64}}")
+    public void getMedia(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get Media : {}", hash);
+        Optional<MediaObject> mediaObject = mediaStoreService.findOne(hash);
+        if (!mediaObject.isPresent()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        serve(mediaStoreService.getPath(hash), mediaObject.get().getContentType(), hash, request, response);
+    }
+
+    /**
+     * GET  /media/:hash/thumbnail/:size : get a thumbnail of the picture with the given hash.
+     * <p>
+     * A thumbnail not generated yet is scheduled, and the client is redirected to the picture meanwhile. The
+     * client is redirected without scheduling it again if it failed to be generated.
+     *
+     * @param hash the SHA-256 hash of the picture
+     * @param size the size of the thumbnail, in pixels
+     * @param request the HTTP request
+     * @param response the HTTP response, with status 200 (OK) and the thumbnail as body, 304 (Not Modified) if
+     * the client already has it, 302 (Found) if it is not generated yet, or 404 (Not Found)
+     * @throws IOException if the thumbnail could not be read
+     */
+    @GetMapping("/media/{hash:[0-9a-f]{64}}/thumbnail/{size}")
+    public void getMediaThumbnail(@PathVariable String hash, @PathVariable int size,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get thumbnail {} of Media : {}", size, hash);
+        if (!ThumbnailService.isSupportedSize(size) || !mediaStoreService.findOne(hash).isPresent()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Optional<Path> thumbnail = thumbnailService.findThumbnail(hash, size);
+        if (!thumbnail.isPresent()) {
+            if (!thumbnailService.hasFailed(hash)) {
+                thumbnailService.generate(hash);
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.sendRedirect("/media/" + hash);
+            return;
+        }
+        serve(thumbnail.get(), ThumbnailService.getContentType(thumbnail.get()), hash + "-" + size, request, response);
+    }
+
+    /**
+     * Serve an immutable file.
+     * <p>
+     * The file is copied from its channel to the response by {@link FileChannel#transferTo}, without loading
+     * it in memory.
+     */
+    private void serve(Path path, String contentType, String version,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String eTag = "\"" + version + "\"";
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            response.setContentType(contentType);
+            response.setContentLengthLong(size);
+            WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += file.transferTo(position, size - position, body);
+            }
+        }
+    }
+
+    private ResponseEntity<MediaObject> created(MediaObject result) throws URISyntaxException {
+        return ResponseEntity.created(new URI("/media/" + result.getHash()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getHash()))
+            .body(result);
+    }
+}
@@ -4,13 +4,15 @@ import edu.socialnetwork.service.MessageService;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
 import edu.socialnetwork.web.rest.util.PaginationUtil;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.MessageCriteria;
 import edu.socialnetwork.service.MessageQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -88,16 +90,37 @@ public class MessageResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of messages in body
      */
     @GetMapping("/messages")
-    public ResponseEntity<List<Message>> getAllMessages(MessageCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Message>> getAllMessages(MessageCriteria criteria, Pageable pageable,
+                                                        @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get Messages by criteria: {}", criteria);
-        Page<Message> page = messageQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/messages");
+        Slice<Message> page = messageQueryService.findByCriteria(criteria, pageable, count);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/messages", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /messages?after=:cursor : get the messages by keyset pagination, newest first.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last message of the previous slice
+     * @param size the maximum number of messages to return
+     * @return the ResponseEntity with status 200 (OK) and the list of messages in body
+     */
+    @GetMapping(value = "/messages", params = "after")
+    public ResponseEntity<List<Message>> getAllMessagesAfter(MessageCriteria criteria, @RequestParam("after") String after,
+                                                             @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get Messages by criteria: {} after: {}", criteria, after);
+        KeysetSlice<Message> slice = messageQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
     * GET  /messages/count : count all the messages.
     *
@@ -1,13 +1,21 @@
 package edu.socialnetwork.web.rest;
 
-import edu.socialnetwork.domain.Location;
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.security.SecurityUtils;
+import edu.socialnetwork.service.ProfileCounterService;
 import edu.socialnetwork.service.ProfileQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import edu.socialnetwork.service.ProfileService;
+import edu.socialnetwork.service.dto.CountMode;
+import edu.socialnetwork.service.dto.FriendDistanceDTO;
+import edu.socialnetwork.service.dto.FriendSuggestionDTO;
+import edu.socialnetwork.service.dto.ProfileCountersDTO;
 import edu.socialnetwork.service.dto.ProfileCriteria;
 import edu.socialnetwork.service.dto.ProfileDistanceDTO;
+import edu.socialnetwork.service.dto.ProfileFacetsDTO;
+import edu.socialnetwork.service.dto.ProfileSuggestionDTO;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
 import edu.socialnetwork.web.rest.util.PaginationUtil;
@@ -16,17 +24,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * REST controller for managing Profile.
@@ -39,16 +48,26 @@ public class ProfileResource {
 
     private static final String ENTITY_NAME = "profile";
 
+    private static final int MAX_NEAREST_PAGE_SIZE = 100;
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private static final int MAX_FRIEND_DISTANCE = 6;
+
     private final ProfileService profileService;
 
     private final ProfileQueryService profileQueryService;
 
     private final ProfileRepository profileRepository;
 
-    public ProfileResource(ProfileService profileService, ProfileQueryService profileQueryService, ProfileRepository profileRepository) {
+    private final ProfileCounterService profileCounterService;
+
+    public ProfileResource(ProfileService profileService, ProfileQueryService profileQueryService, ProfileRepository profileRepository,
+                           ProfileCounterService profileCounterService) {
         this.profileService = profileService;
         this.profileQueryService = profileQueryService;
         this.profileRepository = profileRepository;
+        this.profileCounterService = profileCounterService;
     }
 
     /**
@@ -126,17 +145,38 @@ public class ProfileResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of profiles in body
      */
     @GetMapping("/profiles")
-    public ResponseEntity<List<Profile>> getAllProfiles(ProfileCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Profile>> getAllProfiles(ProfileCriteria criteria, Pageable pageable,
+                                                        @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get Profiles by criteria: {}", criteria);
-        Page<Profile> page = profileQueryService.findByCriteria(criteria, pageable);
+        Slice<Profile> page = profileQueryService.findByCriteria(criteria, pageable, count);
 
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/profiles");
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/profiles", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /profiles?after=:cursor : get the profiles by keyset pagination, by ascending id.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last profile of the previous slice
+     * @param size the maximum number of profiles to return
+     * @return the ResponseEntity with status 200 (OK) and the list of profiles in body
+     */
+    @GetMapping(value = "/profiles", params = "after")
+    public ResponseEntity<List<Profile>> getAllProfilesAfter(ProfileCriteria criteria, @RequestParam("after") String after,
+                                                             @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get Profiles by criteria: {} after: {}", criteria, after);
+        KeysetSlice<Profile> slice = profileQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * GET  /profiles/count : count all the profiles.
      *
@@ -149,6 +189,115 @@ public class ProfileResource {
         return ResponseEntity.ok().body(profileQueryService.countByCriteria(criteria));
     }
 
+    /**
+     * GET  /profiles/facets : count the profiles matching the criteria by gender, ethnicity, relationship and age.
+     *
+     * @param criteria the criterias which the counted entities should match
+     * @return the ResponseEntity with status 200 (OK) and the counts in body
+     */
+    @GetMapping("/profiles/facets")
+    public ResponseEntity<ProfileFacetsDTO> getProfileFacets(ProfileCriteria criteria) {
+        log.debug("REST request to get Profile facets by criteria: {}", criteria);
+        return ResponseEntity.ok().body(profileQueryService.findFacets(criteria));
+    }
+
+    /**
+     * GET  /profiles/search?q=:query : search the profiles by display name and "about me" text.
+     *
+     * @param query the free text query, every term of which must match
+     * @param pageable the pagination information; results are always sorted by relevance
+     * @return the ResponseEntity with status 200 (OK) and the list of profile summaries in body, best match first
+     */
+    @GetMapping("/profiles/search")
+    public ResponseEntity<List<ProfileSummaryDTO>> searchProfiles(@RequestParam("q") String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Profiles for query {}", query);
+        Page<ProfileSummaryDTO> page = profileService.search(query, pageable);
+        String baseUrl = UriComponentsBuilder.fromUriString("/api/profiles/search").queryParam("q", query).build().toUriString();
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, baseUrl);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * GET  /profiles/suggest?prefix=:prefix : suggest the profiles whose display name starts with a prefix.
+     *
+     * @param prefix the prefix typed so far
+     * @param size the maximum number of profiles to return
+     * @return the ResponseEntity with status 200 (OK) and the list of suggested profiles in body
+     */
+    @GetMapping("/profiles/suggest")
+    public ResponseEntity<List<ProfileSuggestionDTO>> suggestProfiles(
+        @RequestParam("prefix") String prefix,
+        @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        log.debug("REST request to suggest {} Profiles for prefix {}", size, prefix);
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            throw new BadRequestAlertException("Size must be between 1 and " + MAX_SUGGESTIONS, ENTITY_NAME, "invalidsize");
+        }
+        return ResponseEntity.ok().body(profileService.suggest(prefix, size));
+    }
+
+    /**
+     * GET  /profiles/:id/mutual-friends : get the friends the current user has in common with the "id" profile.
+     *
+     * @param id the id of the other profile
+     * @param pageable the pagination information; friends are always sorted by id
+     * @return the ResponseEntity with status 200 (OK) and the list of profile summaries in body
+     */
+    @GetMapping("/profiles/{id}/mutual-friends")
+    public ResponseEntity<List<ProfileSummaryDTO>> getMutualFriends(@PathVariable Long id, Pageable pageable) {
+        log.debug("REST request to get the mutual friends of the current user and Profile : {}", id);
+        Profile profile = getCurrentUserProfileOrFail();
+        Page<ProfileSummaryDTO> page = profileService.findMutualFriends(profile.getId(), id, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/profiles/" + id + "/mutual-friends");
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * GET  /profiles/:id/distance : get the number of friendship hops between the current user and the "id"
+     * profile, up to 6.
+     *
+     * @param id the id of the other profile
+     * @param path whether to return a shortest chain of friends too
+     * @return the ResponseEntity with status 200 (OK) and the distance in body, which is null if the profiles are
+     * not connected within 6 hops
+     */
+    @GetMapping("/profiles/{id}/distance")
+    public ResponseEntity<FriendDistanceDTO> getFriendDistance(@PathVariable Long id,
+        @RequestParam(value = "path", defaultValue = "false") boolean path) {
+        log.debug("REST request to get the distance between the current user and Profile : {}", id);
+        Profile profile = getCurrentUserProfileOrFail();
+        return ResponseEntity.ok().body(profileService.findDistance(profile.getId(), id, MAX_FRIEND_DISTANCE, path));
+    }
+
+    /**
+     * GET  /my-friend-suggestions : suggest friends of friends to the current user, by number of mutual friends.
+     *
+     * @param size the maximum number of profiles to return
+     * @return the ResponseEntity with status 200 (OK) and the list of suggested profiles in body
+     */
+    @GetMapping("/my-friend-suggestions")
+    public ResponseEntity<List<FriendSuggestionDTO>> getMyFriendSuggestions(
+        @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        log.debug("REST request to suggest {} friends to the current user", size);
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            throw new BadRequestAlertException("Size must be between 1 and " + MAX_SUGGESTIONS, ENTITY_NAME, "invalidsize");
+        }
+        Profile profile = getCurrentUserProfileOrFail();
+        return ResponseEntity.ok().body(profileService.suggestFriends(profile.getId(), size));
+    }
+
+    /**
+     * GET  /my-counters : get the badge counts of the current user.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the numbers of friends, pending invitations and unread
+     * direct messages in body
+     */
+    @GetMapping("/my-counters")
+    public ResponseEntity<ProfileCountersDTO> getMyCounters() {
+        log.debug("REST request to get the counters of the current user");
+        Profile profile = getCurrentUserProfileOrFail();
+        return ResponseEntity.ok().body(profileCounterService.getCounters(profile.getId()));
+    }
+
     /**
      * GET  /profiles/:id : get the "id" profile.
      *
@@ -162,6 +311,21 @@ public class ProfileResource {
         return ResponseUtil.wrapOrNotFound(profile);
     }
 
+    /**
+     * GET  /profiles/:id/picture : redirect to the picture of the "id" profile in the media store.
+     *
+     * @param id the id of the profile
+     * @return the ResponseEntity with status 302 (Found) and the location of the picture, or with status 404 (Not Found)
+     */
+    @GetMapping("/profiles/{id}/picture")
+    public ResponseEntity<Void> getProfilePicture(@PathVariable Long id) {
+        log.debug("REST request to get the picture of Profile : {}", id);
+        return profileService.findOne(id)
+            .map(Profile::getPictureHash)
+            .map(hash -> ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/media/" + hash)).<Void>build())
+            .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * DELETE  /profiles/:id : delete the "id" profile.
      *
@@ -175,47 +339,81 @@ public class ProfileResource {
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
-    //https://planetcalc.com/7042/
-    //https://www.latlong.net/
+    /**
+     * GET  /profiles/by-location : get the profiles located near a point.
+     *
+     * @param latitude the latitude of the point, in degrees
+     * @param longitude the longitude of the point, in degrees
+     * @param distance the maximum distance, in kilometers
+     * @return the list of profiles with their distance, nearest first
+     */
     @GetMapping("/profiles/by-location")
     public List<ProfileDistanceDTO> getEventsByLocationNear(
         @RequestParam("lat") Double latitude,
         @RequestParam("long") Double longitude,
         @RequestParam("d") Double distance) {
+        log.debug("REST request to get Profiles within {} km of ({}, {})", distance, latitude, longitude);
+        checkCoordinates(latitude, longitude);
+        if (!(distance >= 0) || distance.isInfinite()) {
+            throw new BadRequestAlertException("Distance must be a non-negative number of kilometers", ENTITY_NAME, "invaliddistance");
+        }
+        return profileService.findByLocationNear(latitude, longitude, distance);
+    }
+
+    /**
+     * GET  /profiles/nearest : get the profiles nearest to a point, one page at a time.
+     * <p>
+     * The Link header holds the URI of the next page, which continues outward from the last profile found in the
+     * geo index, returned unless it was deleted meanwhile. A page may hold fewer profiles than requested, the last
+     * page is the one without a next link.
+     *
+     * @param latitude the latitude of the point, in degrees
+     * @param longitude the longitude of the point, in degrees
+     * @param size the maximum number of profiles to return
+     * @param afterDistance the distance of the last profile of the previous page
+     * @param afterId the id of the last profile of the previous page
+     * @return the ResponseEntity with status 200 (OK) and the list of profiles with their distance in body, nearest first
+     */
+    @GetMapping("/profiles/nearest")
+    public ResponseEntity<List<ProfileDistanceDTO>> getNearestProfiles(
+        @RequestParam("lat") Double latitude,
+        @RequestParam("long") Double longitude,
+        @RequestParam(value = "size", defaultValue = "20") Integer size,
+        @RequestParam(value = "afterDistance", required = false) Double afterDistance,
+        @RequestParam(value = "afterId", required = false) Long afterId) {
+        log.debug("REST request to get {} Profiles nearest to ({}, {}) after ({}, {})", size, latitude, longitude, afterDistance, afterId);
+        if (size < 1 || size > MAX_NEAREST_PAGE_SIZE) {
+            throw new BadRequestAlertException("Page size must be between 1 and " + MAX_NEAREST_PAGE_SIZE, ENTITY_NAME, "invalidsize");
+        }
+        checkCoordinates(latitude, longitude);
+        if ((afterDistance == null) != (afterId == null)) {
+            throw new BadRequestAlertException("afterDistance and afterId must be given together", ENTITY_NAME, "invalidcursor");
+        }
+        ProfileService.NearestSlice slice = profileService.findNearest(latitude, longitude, size, afterDistance, afterId);
 
-        final double[] d = new double[1];
-        return profileRepository.findAll().stream()
-            .filter(profile -> {
-                log.debug("/profiles/by-location - filtering profile by location : {}", profile.getDisplayName());
-                Location location = profile.getLocation();
-                if (location == null) return false;
-                d[0] = distance(location.getLatitude(), location.getLongitude(), latitude, longitude, "K");
-                log.debug("/profiles/by-location - distance : {}", d[0]);
-                if (d[0] <= distance) return true;
-                else return false;
-            })
-            .map(profile -> new ProfileDistanceDTO(profile, d[0]))
-            .sorted(Comparator.comparing(ProfileDistanceDTO::getDistance))
-            .collect(Collectors.toList());
-    }
-
-    private static double distance(double lat1, double lon1, double lat2, double lon2, String unit) {
-        if ((lat1 == lat2) && (lon1 == lon2)) {
-            return 0;
-        } else {
-            double theta = lon1 - lon2;
-            double dist = Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2)) +
-                          Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(theta));
-            dist = Math.acos(dist);
-            dist = Math.toDegrees(dist);
-            dist = dist * 60 * 1.1515;
-            if (unit == "K") {
-                dist = dist * 1.609344;
-            } else if (unit == "N") {
-                dist = dist * 0.8684;
-            }
-            return (dist);
+        UriComponentsBuilder nextPage = null;
+        if (slice.hasNext()) {
+            nextPage = UriComponentsBuilder.fromUriString("/api/profiles/nearest")
+                .queryParam("lat", latitude)
+                .queryParam("long", longitude)
+                .queryParam("size", size)
+                .queryParam("afterDistance", slice.getLast().getDistance())
+                .queryParam("afterId", slice.getLast().getProfileId());
         }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextPage);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
     }
 
+    private void checkCoordinates(Double latitude, Double longitude) {
+        if (!(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+            throw new BadRequestAlertException("Latitude must be between -90 and 90 and longitude between -180 and 180",
+                ENTITY_NAME, "invalidcoordinates");
+        }
+    }
+
+    private Profile getCurrentUserProfileOrFail() {
+        String userLogin = SecurityUtils.getCurrentUserLogin().get();
+        return profileRepository.findByUserLogin(userLogin)
+            .orElseThrow(() -> new BadRequestAlertException("username " + userLogin + " has no profile", ENTITY_NAME, "profileNotFound"));
+    }
 }
@@ -4,13 +4,15 @@ import edu.socialnetwork.service.RelationshipService;
 import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
 import edu.socialnetwork.web.rest.util.HeaderUtil;
 import edu.socialnetwork.web.rest.util.PaginationUtil;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.RelationshipCriteria;
 import edu.socialnetwork.service.RelationshipQueryService;
+import edu.socialnetwork.service.util.KeysetSlice;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -88,16 +90,37 @@ public class RelationshipResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count how the total number of matching entities is computed: EXACT, APPROXIMATE or NONE
      * @return the ResponseEntity with status 200 (OK) and the list of relationships in body
      */
     @GetMapping("/relationships")
-    public ResponseEntity<List<Relationship>> getAllRelationships(RelationshipCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Relationship>> getAllRelationships(RelationshipCriteria criteria, Pageable pageable,
+                                                                  @RequestParam(value = "count", defaultValue = "EXACT") CountMode count) {
         log.debug("REST request to get Relationships by criteria: {}", criteria);
-        Page<Relationship> page = relationshipQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/relationships");
+        Slice<Relationship> page = relationshipQueryService.findByCriteria(criteria, pageable, count);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/relationships", count);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * GET  /relationships?after=:cursor : get the relationships by keyset pagination, by ascending id.
+     * <p>
+     * An empty cursor returns the first slice. The Link header holds the URI of the next slice; no total count is returned.
+     *
+     * @param criteria the criterias which the requested entities should match
+     * @param after the cursor of the last relationship of the previous slice
+     * @param size the maximum number of relationships to return
+     * @return the ResponseEntity with status 200 (OK) and the list of relationships in body
+     */
+    @GetMapping(value = "/relationships", params = "after")
+    public ResponseEntity<List<Relationship>> getAllRelationshipsAfter(RelationshipCriteria criteria, @RequestParam("after") String after,
+                                                                       @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.debug("REST request to get Relationships by criteria: {} after: {}", criteria, after);
+        KeysetSlice<Relationship> slice = relationshipQueryService.findByCriteria(criteria, after, size);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
     * GET  /relationships/count : count all the relationships.
     *
@@ -0,0 +1,13 @@
+package edu.socialnetwork.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+public class MediaTooLargeException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public MediaTooLargeException(long maxSize) {
+        super(ErrorConstants.MEDIA_TOO_LARGE_TYPE, "File larger than " + maxSize + " bytes", Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+}
@@ -1,7 +1,11 @@
 package edu.socialnetwork.web.rest.util;
 
+import edu.socialnetwork.service.dto.CountMode;
+import edu.socialnetwork.service.util.KeysetSlice;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 /**
@@ -39,6 +43,68 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the pagination headers of a page requested with a count mode.
+     * <p>
+     * The links keep the count mode. A {@link Slice} which is not a {@link Page} has no X-Total-Count header and no
+     * last link.
+     *
+     * @param slice the page returned
+     * @param baseUrl the URL of the endpoint
+     * @param count the count mode of the request
+     * @return the pagination headers
+     */
+    public static <T> HttpHeaders generatePaginationHttpHeaders(Slice<T> slice, String baseUrl, CountMode count) {
+        if (count != CountMode.EXACT) {
+            baseUrl = UriComponentsBuilder.fromUriString(baseUrl).queryParam("count", count).toUriString();
+        }
+        if (slice instanceof Page) {
+            return generatePaginationHttpHeaders((Page<T>) slice, baseUrl);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateUri(baseUrl, slice.getNumber() + 1, slice.getSize()) + ">; rel=\"next\",";
+        }
+        if (slice.hasPrevious()) {
+            link += "<" + generateUri(baseUrl, slice.getNumber() - 1, slice.getSize()) + ">; rel=\"prev\",";
+        }
+        link += "<" + generateUri(baseUrl, 0, slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Generate the Link header of a cursor-paginated response.
+     *
+     * @param nextPage the URI of the next page, or null if this is the last page
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(UriComponentsBuilder nextPage) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextPage != null) {
+            headers.add(HttpHeaders.LINK, "<" + nextPage.toUriString() + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Generate the Link header of a keyset-paginated response.
+     * <p>
+     * The next page is the current request, with its filters, after the last entity of the slice.
+     *
+     * @param slice the slice returned
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(KeysetSlice<?> slice) {
+        UriComponentsBuilder nextPage = null;
+        if (slice.hasNext()) {
+            nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", slice.getNext().encode());
+        }
+        return generateCursorPaginationHttpHeaders(nextPage);
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
@@ -3,7 +3,7 @@ import { connect } from 'react-redux';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Row, Col } from 'reactstrap';
 // tslint:disable-next-line:no-unused-variable
-import { Translate, ICrudGetAction, openFile, byteSize, TextFormat } from 'react-jhipster';
+import { Translate, ICrudGetAction, TextFormat } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { IRootState } from 'app/shared/reducers';
@@ -56,17 +56,13 @@ export class DirectMessageDetail extends React.Component<IDirectMessageDetailPro
               </span>
             </dt>
             <dd>
-              {directMessageEntity.picture ? (
+              {directMessageEntity.pictureHash ? (
                 <div>
-                  <a onClick={openFile(directMessageEntity.pictureContentType, directMessageEntity.picture)}>
-                    <img
-                      src={`data:${directMessageEntity.pictureContentType};base64,${directMessageEntity.picture}`}
-                      style={{ maxHeight: '30px' }}
-                    />
+                  <a href={`/media/${directMessageEntity.pictureHash}`} target="_blank">
+                    <img src={`/media/${directMessageEntity.pictureHash}`} style={{ maxHeight: '30px' }} />
+                    &nbsp;
                   </a>
-                  <span>
-                    {directMessageEntity.pictureContentType}, {byteSize(directMessageEntity.picture)}
-                  </span>
+                  <span>{directMessageEntity.pictureContentType}</span>
                 </div>
               ) : null}
             </dd>
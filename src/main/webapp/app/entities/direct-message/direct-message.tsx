@@ -4,7 +4,7 @@ import { connect } from 'react-redux';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Col, Row, Table } from 'reactstrap';
 // tslint:disable-next-line:no-unused-variable
-import { openFile, byteSize, Translate, ICrudGetAllAction, TextFormat, getSortState, IPaginationBaseState } from 'react-jhipster';
+import { Translate, ICrudGetAllAction, TextFormat, getSortState, IPaginationBaseState } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { IRootState } from 'app/shared/reducers';
@@ -100,7 +100,7 @@ export class DirectMessage extends React.Component<IDirectMessageProps, IDirectM
                   <th className="hand" onClick={this.sort('url')}>
                     <Translate contentKey="socialNetworkBackendApp.directMessage.url">Url</Translate> <FontAwesomeIcon icon="sort" />
                   </th>
-                  <th className="hand" onClick={this.sort('picture')}>
+                  <th className="hand" onClick={this.sort('pictureHash')}>
                     <Translate contentKey="socialNetworkBackendApp.directMessage.picture">Picture</Translate>{' '}
                     <FontAwesomeIcon icon="sort" />
                   </th>
@@ -128,18 +128,13 @@ export class DirectMessage extends React.Component<IDirectMessageProps, IDirectM
                     <td>{directMessage.message}</td>
                     <td>{directMessage.url}</td>
                     <td>
-                      {directMessage.picture ? (
+                      {directMessage.pictureHash ? (
                         <div>
-                          <a onClick={openFile(directMessage.pictureContentType, directMessage.picture)}>
-                            <img
-                              src={`data:${directMessage.pictureContentType};base64,${directMessage.picture}`}
-                              style={{ maxHeight: '30px' }}
-                            />
+                          <a href={`/media/${directMessage.pictureHash}`} target="_blank">
+                            <img src={`/media/${directMessage.pictureHash}/thumbnail/64`} style={{ maxHeight: '30px' }} />
                             &nbsp;
                           </a>
-                          <span>
-                            {directMessage.pictureContentType}, {byteSize(directMessage.picture)}
-                          </span>
+                          <span>{directMessage.pictureContentType}</span>
                         </div>
                       ) : null}
                     </td>
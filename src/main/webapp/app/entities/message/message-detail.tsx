@@ -3,7 +3,7 @@ import { connect } from 'react-redux';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Row, Col } from 'reactstrap';
 // tslint:disable-next-line:no-unused-variable
-import { Translate, ICrudGetAction, openFile, byteSize, TextFormat } from 'react-jhipster';
+import { Translate, ICrudGetAction, TextFormat } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { IRootState } from 'app/shared/reducers';
@@ -54,14 +54,13 @@ export class MessageDetail extends React.Component<IMessageDetailProps> {
               </span>
             </dt>
             <dd>
-              {messageEntity.picture ? (
+              {messageEntity.pictureHash ? (
                 <div>
-                  <a onClick={openFile(messageEntity.pictureContentType, messageEntity.picture)}>
-                    <img src={`data:${messageEntity.pictureContentType};base64,${messageEntity.picture}`} style={{ maxHeight: '30px' }} />
+                  <a href={`/media/${messageEntity.pictureHash}`} target="_blank">
+                    <img src={`/media/${messageEntity.pictureHash}`} style={{ maxHeight: '30px' }} />
+                    &nbsp;
                   </a>
-                  <span>
-                    {messageEntity.pictureContentType}, {byteSize(messageEntity.picture)}
-                  </span>
+                  <span>{messageEntity.pictureContentType}</span>
                 </div>
               ) : null}
             </dd>
@@ -4,7 +4,7 @@ import { connect } from 'react-redux';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Col, Row, Table } from 'reactstrap';
 // tslint:disable-next-line:no-unused-variable
-import { openFile, byteSize, Translate, ICrudGetAllAction, TextFormat, getSortState, IPaginationBaseState } from 'react-jhipster';
+import { Translate, ICrudGetAllAction, TextFormat, getSortState, IPaginationBaseState } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { IRootState } from 'app/shared/reducers';
@@ -99,7 +99,7 @@ export class Message extends React.Component<IMessageProps, IMessageState> {
                   <th className="hand" onClick={this.sort('url')}>
                     <Translate contentKey="socialNetworkBackendApp.message.url">Url</Translate> <FontAwesomeIcon icon="sort" />
                   </th>
-                  <th className="hand" onClick={this.sort('picture')}>
+                  <th className="hand" onClick={this.sort('pictureHash')}>
                     <Translate contentKey="socialNetworkBackendApp.message.picture">Picture</Translate> <FontAwesomeIcon icon="sort" />
                   </th>
                   <th>
@@ -128,15 +128,13 @@ export class Message extends React.Component<IMessageProps, IMessageState> {
                     <td>{message.message}</td>
                     <td>{message.url}</td>
                     <td>
-                      {message.picture ? (
+                      {message.pictureHash ? (
                         <div>
-                          <a onClick={openFile(message.pictureContentType, message.picture)}>
-                            <img src={`data:${message.pictureContentType};base64,${message.picture}`} style={{ maxHeight: '30px' }} />
+                          <a href={`/media/${message.pictureHash}`} target="_blank">
+                            <img src={`/media/${message.pictureHash}/thumbnail/64`} style={{ maxHeight: '30px' }} />
                             &nbsp;
                           </a>
-                          <span>
-                            {message.pictureContentType}, {byteSize(message.picture)}
-                          </span>
+                          <span>{message.pictureContentType}</span>
                         </div>
                       ) : null}
                     </td>
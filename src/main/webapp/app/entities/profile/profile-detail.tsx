@@ -3,7 +3,7 @@ import { connect } from 'react-redux';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Row, Col } from 'reactstrap';
 // tslint:disable-next-line:no-unused-variable
-import { Translate, ICrudGetAction, openFile, byteSize, TextFormat } from 'react-jhipster';
+import { Translate, ICrudGetAction, TextFormat } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { IRootState } from 'app/shared/reducers';
@@ -42,14 +42,13 @@ export class ProfileDetail extends React.Component<IProfileDetailProps> {
               </span>
             </dt>
             <dd>
-              {profileEntity.picture ? (
+              {profileEntity.pictureHash ? (
                 <div>
-                  <a onClick={openFile(profileEntity.pictureContentType, profileEntity.picture)}>
-                    <img src={`data:${profileEntity.pictureContentType};base64,${profileEntity.picture}`} style={{ maxHeight: '30px' }} />
+                  <a href={`/media/${profileEntity.pictureHash}`} target="_blank">
+                    <img src={`/media/${profileEntity.pictureHash}`} style={{ maxHeight: '30px' }} />
+                    &nbsp;
                   </a>
-                  <span>
-                    {profileEntity.pictureContentType}, {byteSize(profileEntity.picture)}
-                  </span>
+                  <span>{profileEntity.pictureContentType}</span>
                 </div>
               ) : null}
             </dd>
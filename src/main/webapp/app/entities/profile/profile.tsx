@@ -4,7 +4,7 @@ import { connect } from 'react-redux';
 import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Col, Row, Table } from 'reactstrap';
 // tslint:disable-next-line:no-unused-variable
-import { openFile, byteSize, Translate, ICrudGetAllAction, TextFormat, getSortState, IPaginationBaseState } from 'react-jhipster';
+import { Translate, ICrudGetAllAction, TextFormat, getSortState, IPaginationBaseState } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
 import { IRootState } from 'app/shared/reducers';
@@ -92,7 +92,7 @@ export class Profile extends React.Component<IProfileProps, IProfileState> {
                   <th className="hand" onClick={this.sort('birthDate')}>
                     <Translate contentKey="socialNetworkBackendApp.profile.birthDate">Birth Date</Translate> <FontAwesomeIcon icon="sort" />
                   </th>
-                  <th className="hand" onClick={this.sort('picture')}>
+                  <th className="hand" onClick={this.sort('pictureHash')}>
                     <Translate contentKey="socialNetworkBackendApp.profile.picture">Picture</Translate> <FontAwesomeIcon icon="sort" />
                   </th>
                   <th className="hand" onClick={this.sort('height')}>
@@ -153,15 +153,13 @@ export class Profile extends React.Component<IProfileProps, IProfileState> {
                       <TextFormat type="date" value={profile.birthDate} format={APP_LOCAL_DATE_FORMAT} />
                     </td>
                     <td>
-                      {profile.picture ? (
+                      {profile.pictureHash ? (
                         <div>
-                          <a onClick={openFile(profile.pictureContentType, profile.picture)}>
-                            <img src={`data:${profile.pictureContentType};base64,${profile.picture}`} style={{ maxHeight: '30px' }} />
+                          <a href={`/media/${profile.pictureHash}`} target="_blank">
+                            <img src={`/media/${profile.pictureHash}/thumbnail/64`} style={{ maxHeight: '30px' }} />
                             &nbsp;
                           </a>
-                          <span>
-                            {profile.pictureContentType}, {byteSize(profile.picture)}
-                          </span>
+                          <span>{profile.pictureContentType}</span>
                         </div>
                       ) : null}
                     </td>
@@ -8,6 +8,7 @@ export interface IDirectMessage {
   url?: string;
   pictureContentType?: string;
   picture?: any;
+  pictureHash?: string;
   sender?: IProfile;
   recipient?: IProfile;
 }
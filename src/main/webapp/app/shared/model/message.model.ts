@@ -10,6 +10,7 @@ export interface IMessage {
   url?: string;
   pictureContentType?: string;
   picture?: any;
+  pictureHash?: string;
   location?: ILocation;
   sender?: IProfile;
   chatroom?: IChatroom;
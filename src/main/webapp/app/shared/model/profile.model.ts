@@ -20,6 +20,7 @@ export interface IProfile {
   birthDate?: Moment;
   pictureContentType?: string;
   picture?: any;
+  pictureHash?: string;
   height?: number;
   weight?: number;
   unitSystem?: UnitSystem;
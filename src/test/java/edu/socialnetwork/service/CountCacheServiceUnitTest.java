@@ -0,0 +1,115 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.domain.Message;
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.service.dto.MessageCriteria;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CountCacheService.
+ *
+ * @see CountCacheService
+ */
+public class CountCacheServiceUnitTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AtomicLong now;
+
+    private CountCacheService countCacheService;
+
+    private AtomicInteger counts;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCriteria().getCountCache().setMaxEntries(2);
+        applicationProperties.getCriteria().getCountCache().setTimeToLiveSeconds(30);
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        countCacheService = new CountCacheService(applicationProperties, meterRegistry, now::get);
+        counts = new AtomicInteger();
+    }
+
+    @Test
+    public void testEqualCriteriaShareAnEntry() {
+        assertThat(countCacheService.count(Message.class, criteria("hello", 1L), this::count)).isEqualTo(1);
+        assertThat(countCacheService.count(Message.class, criteria("hello", 1L), this::count)).isEqualTo(1);
+
+        assertThat(counts.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("criteria.count.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("criteria.count.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDifferentCriteriaOrEntitiesAreCountedSeparately() {
+        countCacheService.count(Message.class, criteria("hello", 1L), this::count);
+        countCacheService.count(Message.class, criteria("hello", 2L), this::count);
+        countCacheService.count(Profile.class, criteria("hello", 1L), this::count);
+
+        assertThat(counts.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testExpiredEntryIsCountedAgain() {
+        countCacheService.count(Message.class, criteria("hello", 1L), this::count);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        assertThat(countCacheService.count(Message.class, criteria("hello", 1L), this::count)).isEqualTo(1);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(countCacheService.count(Message.class, criteria("hello", 1L), this::count)).isEqualTo(2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        countCacheService.count(Message.class, criteria("a", 1L), this::count);
+        countCacheService.count(Message.class, criteria("b", 1L), this::count);
+        countCacheService.count(Message.class, criteria("a", 1L), this::count);
+        countCacheService.count(Message.class, criteria("c", 1L), this::count);
+
+        assertThat(countCacheService.size()).isEqualTo(2);
+        countCacheService.count(Message.class, criteria("a", 1L), this::count);
+        assertThat(counts.get()).isEqualTo(3);
+        countCacheService.count(Message.class, criteria("b", 1L), this::count);
+        assertThat(counts.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysCounts() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCriteria().getCountCache().setMaxEntries(0);
+        countCacheService = new CountCacheService(applicationProperties, meterRegistry, now::get);
+
+        countCacheService.count(Message.class, criteria("hello", 1L), this::count);
+        countCacheService.count(Message.class, criteria("hello", 1L), this::count);
+
+        assertThat(counts.get()).isEqualTo(2);
+        assertThat(countCacheService.size()).isZero();
+    }
+
+    private long count() {
+        return counts.incrementAndGet();
+    }
+
+    private static MessageCriteria criteria(String message, Long senderId) {
+        MessageCriteria criteria = new MessageCriteria();
+        StringFilter messageFilter = new StringFilter();
+        messageFilter.setContains(message);
+        criteria.setMessage(messageFilter);
+        LongFilter senderFilter = new LongFilter();
+        senderFilter.setEquals(senderId);
+        criteria.setSenderId(senderFilter);
+        return criteria;
+    }
+}
@@ -0,0 +1,362 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.repository.InvitationRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the FriendGraphService.
+ *
+ * @see FriendGraphService
+ */
+public class FriendGraphServiceUnitTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ApplicationProperties applicationProperties;
+
+    private FriendGraphService friendGraphService;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        friendGraphService = new FriendGraphService(null, applicationProperties);
+        friendGraphService.setFriends(1L, 2L, true);
+        friendGraphService.setFriends(1L, 3L, true);
+        friendGraphService.setFriends(3L, 4L, true);
+    }
+
+    @Test
+    public void testFriendshipsAreUndirected() {
+        assertThat(friendGraphService.areFriends(1L, 2L)).isTrue();
+        assertThat(friendGraphService.areFriends(2L, 1L)).isTrue();
+        assertThat(friendGraphService.areFriends(2L, 3L)).isFalse();
+        assertThat(friendGraphService.areFriends(1L, 42L)).isFalse();
+
+        assertThat(friendGraphService.getDegree(1L)).isEqualTo(2);
+        assertThat(friendGraphService.getDegree(42L)).isZero();
+        assertThat(friendGraphService.getFriends(1L)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(friendGraphService.getFriends(42L)).isEmpty();
+    }
+
+    @Test
+    public void testChangesAreKeptAcrossCompaction() {
+        friendGraphService.compact();
+        assertThat(friendGraphService.deltaSize()).isZero();
+
+        friendGraphService.setFriends(1L, 2L, false);
+        friendGraphService.setFriends(2L, 4L, true);
+        assertThat(friendGraphService.deltaSize()).isEqualTo(2);
+        assertThat(friendGraphService.getFriends(1L)).containsExactlyInAnyOrder(3L);
+        assertThat(friendGraphService.getFriends(2L)).containsExactlyInAnyOrder(4L);
+
+        friendGraphService.compact();
+        assertThat(friendGraphService.deltaSize()).isZero();
+        assertThat(friendGraphService.getFriends(1L)).containsExactlyInAnyOrder(3L);
+        assertThat(friendGraphService.getFriends(2L)).containsExactlyInAnyOrder(4L);
+        assertThat(friendGraphService.getDegree(4L)).isEqualTo(2);
+    }
+
+    @Test
+    public void testUndoneChangeLeavesNoDelta() {
+        friendGraphService.compact();
+        friendGraphService.setFriends(1L, 2L, false);
+        friendGraphService.setFriends(2L, 1L, true);
+        friendGraphService.setFriends(1L, 2L, true);
+
+        assertThat(friendGraphService.deltaSize()).isZero();
+        assertThat(friendGraphService.getDegree(1L)).isEqualTo(2);
+    }
+
+    @Test
+    public void testRemoveProfile() {
+        friendGraphService.removeProfile(1L);
+
+        assertThat(friendGraphService.getFriends(1L)).isEmpty();
+        assertThat(friendGraphService.getFriends(3L)).containsExactlyInAnyOrder(4L);
+        assertThat(friendGraphService.areFriends(2L, 1L)).isFalse();
+    }
+
+    @Test
+    public void testMutualFriends() {
+        friendGraphService.setFriends(2L, 4L, true);
+        friendGraphService.compact();
+        friendGraphService.setFriends(5L, 1L, true);
+        friendGraphService.setFriends(5L, 4L, true);
+
+        assertThat(friendGraphService.getMutualFriends(1L, 4L)).containsExactlyInAnyOrder(2L, 3L, 5L);
+        assertThat(friendGraphService.getMutualFriends(4L, 1L)).containsExactlyInAnyOrder(2L, 3L, 5L);
+        assertThat(friendGraphService.getMutualFriends(1L, 2L)).isEmpty();
+        assertThat(friendGraphService.getMutualFriends(1L, 42L)).isEmpty();
+    }
+
+    @Test
+    public void testSuggestionsAreRankedByMutualFriends() {
+        // 1 is friend with 2 and 3; 4 is a friend of both, 5 and 6 of one of them
+        friendGraphService.setFriends(2L, 4L, true);
+        friendGraphService.setFriends(2L, 6L, true);
+        friendGraphService.setFriends(3L, 5L, true);
+
+        assertThat(friendGraphService.suggestFriends(1L, 10, id -> false))
+            .extracting(FriendGraphService.Suggestion::getProfileId, FriendGraphService.Suggestion::getMutualFriendCount)
+            .containsExactly(tuple(4L, 2), tuple(5L, 1), tuple(6L, 1));
+        assertThat(friendGraphService.suggestFriends(1L, 2, id -> false))
+            .extracting(FriendGraphService.Suggestion::getProfileId)
+            .containsExactly(4L, 5L);
+        assertThat(friendGraphService.suggestFriends(1L, 2, id -> id == 4L))
+            .extracting(FriendGraphService.Suggestion::getProfileId)
+            .containsExactly(5L, 6L);
+        assertThat(friendGraphService.suggestFriends(42L, 2, id -> false)).isEmpty();
+    }
+
+    @Test
+    public void testSeparationFindsAShortestPath() {
+        // 1 - 3 - 4 - 5 - 6, and a longer way round 1 - 2 - 7 - 8 - 9 - 6
+        friendGraphService.setFriends(4L, 5L, true);
+        friendGraphService.setFriends(5L, 6L, true);
+        friendGraphService.setFriends(2L, 7L, true);
+        friendGraphService.setFriends(7L, 8L, true);
+        friendGraphService.setFriends(8L, 9L, true);
+        friendGraphService.setFriends(9L, 6L, true);
+
+        FriendGraphService.Separation separation = friendGraphService.findSeparation(1L, 6L, 6, 100, id -> false);
+        assertThat(separation.getDistance()).isEqualTo(4);
+        assertThat(separation.getPath()).containsExactly(1L, 3L, 4L, 5L, 6L);
+        assertThat(separation.isComplete()).isTrue();
+        assertThat(friendGraphService.findSeparation(6L, 1L, 6, 100, id -> false).getPath()).containsExactly(6L, 5L, 4L, 3L, 1L);
+        assertThat(friendGraphService.findSeparation(1L, 2L, 6, 100, id -> false).getDistance()).isEqualTo(1);
+        assertThat(friendGraphService.findSeparation(1L, 1L, 6, 100, id -> false).getDistance()).isZero();
+    }
+
+    @Test
+    public void testSeparationAvoidsExcludedProfiles() {
+        friendGraphService.setFriends(4L, 5L, true);
+        friendGraphService.setFriends(2L, 5L, true);
+
+        assertThat(friendGraphService.findSeparation(1L, 5L, 6, 100, id -> false).getPath()).containsExactly(1L, 2L, 5L);
+        assertThat(friendGraphService.findSeparation(1L, 5L, 6, 100, id -> id == 2L).getPath()).containsExactly(1L, 3L, 4L, 5L);
+        assertThat(friendGraphService.findSeparation(1L, 5L, 6, 100, id -> id == 2L || id == 3L).getDistance()).isEqualTo(-1);
+        assertThat(friendGraphService.findSeparation(1L, 5L, 6, 100, id -> id == 2L || id == 3L).isComplete()).isTrue();
+        // The profiles themselves are not tested
+        assertThat(friendGraphService.findSeparation(1L, 2L, 6, 100, id -> id == 1L || id == 2L).getDistance()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSeparationIsCapped() {
+        friendGraphService.setFriends(4L, 5L, true);
+        friendGraphService.setFriends(10L, 11L, true);
+
+        assertThat(friendGraphService.findSeparation(1L, 5L, 3, 100, id -> false).getDistance()).isEqualTo(3);
+        assertThat(friendGraphService.findSeparation(1L, 5L, 2, 100, id -> false).getDistance()).isEqualTo(-1);
+        assertThat(friendGraphService.findSeparation(1L, 5L, 2, 100, id -> false).isComplete()).isTrue();
+        assertThat(friendGraphService.findSeparation(1L, 10L, 6, 100, id -> false).getPath()).isNull();
+        assertThat(friendGraphService.findSeparation(1L, 5L, 6, 3, id -> false).isComplete()).isFalse();
+    }
+
+    @Test
+    public void testRandomSeparationsMatchAOneSidedSearch() {
+        Random random = new Random(42);
+        friendGraphService = new FriendGraphService(null, applicationProperties);
+        for (int i = 0; i < 600; i++) {
+            friendGraphService.setFriends(random.nextInt(300), random.nextInt(300), true);
+        }
+        for (int i = 0; i < 100; i++) {
+            long a = random.nextInt(300);
+            long b = random.nextInt(300);
+            FriendGraphService.Separation separation = friendGraphService.findSeparation(a, b, 6, Integer.MAX_VALUE, id -> false);
+
+            assertThat(separation.getDistance()).isEqualTo(distance(a, b, 6));
+            if (separation.getPath() != null) {
+                long[] path = separation.getPath();
+                assertThat(path).hasSize(separation.getDistance() + 1);
+                assertThat(path[0]).isEqualTo(a);
+                assertThat(path[path.length - 1]).isEqualTo(b);
+                for (int j = 1; j < path.length; j++) {
+                    assertThat(friendGraphService.areFriends(path[j - 1], path[j])).isTrue();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomChangesMatchAReferenceSet() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        friendGraphService = new FriendGraphService(null, applicationProperties);
+        for (int i = 0; i < 20000; i++) {
+            long a = random.nextInt(200);
+            long b = random.nextInt(200);
+            boolean friends = random.nextInt(3) > 0;
+            friendGraphService.setFriends(a, b, friends);
+            if (a != b) {
+                if (friends) {
+                    expected.add(key(a, b));
+                } else {
+                    expected.remove(key(a, b));
+                }
+            }
+            if (i % 5000 == 0) {
+                friendGraphService.compact();
+            }
+        }
+
+        int edges = 0;
+        for (long a = 0; a < 200; a++) {
+            long[] friends = friendGraphService.getFriends(a);
+            assertThat(friends).hasSize(friendGraphService.getDegree(a));
+            for (long b : friends) {
+                assertThat(expected).contains(key(a, b));
+                assertThat(friendGraphService.areFriends(b, a)).isTrue();
+            }
+            edges += friends.length;
+        }
+        assertThat(edges).isEqualTo(expected.size() * 2);
+    }
+
+    @Test
+    public void testRebuildKeepsTheChangesMadeMeanwhile() {
+        InvitationRepository invitationRepository = mock(InvitationRepository.class);
+        friendGraphService = new FriendGraphService(invitationRepository, applicationProperties);
+        friendGraphService.setFriends(1L, 2L, true);
+        when(invitationRepository.findAllFriendships()).thenAnswer(invocation -> {
+            // Committed after the database was read
+            friendGraphService.setFriends(5L, 6L, true);
+            friendGraphService.setFriends(1L, 3L, false);
+            return Arrays.asList(new Object[]{1L, 3L}, new Object[]{3L, 4L});
+        });
+
+        friendGraphService.rebuild();
+
+        assertThat(friendGraphService.areFriends(1L, 2L)).isFalse();
+        assertThat(friendGraphService.areFriends(1L, 3L)).isFalse();
+        assertThat(friendGraphService.areFriends(3L, 4L)).isTrue();
+        assertThat(friendGraphService.areFriends(5L, 6L)).isTrue();
+        assertThat(friendGraphService.getFriends(3L)).containsExactly(4L);
+    }
+
+    @Test
+    public void testOutdatedGraphIsRebuilt() {
+        InvitationRepository invitationRepository = mock(InvitationRepository.class);
+        when(invitationRepository.findAllFriendships()).thenReturn(Collections.singletonList(new Object[]{1L, 2L}));
+        friendGraphService = new FriendGraphService(invitationRepository, applicationProperties);
+        // Not loaded yet
+        friendGraphService.rebuildIfOutdated();
+        verify(invitationRepository, never()).findAllFriendships();
+
+        friendGraphService.rebuild();
+        // Deleted without the graph knowing
+        friendGraphService.setFriends(3L, 4L, true);
+        friendGraphService.rebuildIfOutdated();
+        assertThat(friendGraphService.areFriends(3L, 4L)).isTrue();
+
+        applicationProperties.getFriendGraph().setRebuildIntervalHours(0);
+        friendGraphService.rebuildIfOutdated();
+        assertThat(friendGraphService.areFriends(3L, 4L)).isFalse();
+        assertThat(friendGraphService.areFriends(1L, 2L)).isTrue();
+        verify(invitationRepository, times(2)).findAllFriendships();
+    }
+
+    @Test
+    public void testSnapshotRestoresTheGraph() throws Exception {
+        applicationProperties.getFriendGraph().setSnapshotFile(temporaryFolder.getRoot().toPath().resolve("graph.bin").toString());
+        rebuildFrom(new Object[]{1L, 3L}, new Object[]{3L, 4L});
+        friendGraphService.setFriends(1L, 2L, false);
+        friendGraphService.setFriends(5L, 6L, true);
+        Instant before = Instant.now();
+        friendGraphService.writeSnapshot();
+
+        FriendGraphService loaded = new FriendGraphService(null, applicationProperties);
+        Optional<Instant> highWaterMark = loaded.readSnapshot();
+
+        assertThat(highWaterMark).isPresent();
+        assertThat(highWaterMark.get()).isBetween(before.truncatedTo(ChronoUnit.MILLIS), Instant.now());
+        assertThat(loaded.size()).isEqualTo(friendGraphService.size());
+        for (long profileId = 1; profileId <= 6; profileId++) {
+            assertThat(loaded.getFriends(profileId)).containsExactlyInAnyOrder(friendGraphService.getFriends(profileId));
+        }
+        loaded.setFriends(2L, 6L, true);
+        assertThat(loaded.getFriends(6L)).containsExactlyInAnyOrder(2L, 5L);
+    }
+
+    @Test
+    public void testInvalidSnapshotIsIgnored() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("graph.bin");
+        applicationProperties.getFriendGraph().setSnapshotFile(path.toString());
+        assertThat(friendGraphService.readSnapshot()).isEmpty();
+
+        // Not loaded from the database, so not saved
+        friendGraphService.writeSnapshot();
+        assertThat(path).doesNotExist();
+
+        rebuildFrom(new Object[]{1L, 2L});
+        friendGraphService.writeSnapshot();
+        byte[] content = Files.readAllBytes(path);
+        content[content.length - 1] ^= 1;
+        Files.write(path, content);
+        assertThat(new FriendGraphService(null, applicationProperties).readSnapshot()).isEmpty();
+
+        friendGraphService.writeSnapshot();
+        applicationProperties.getFriendGraph().setRebuildIntervalHours(0);
+        assertThat(new FriendGraphService(null, applicationProperties).readSnapshot()).isEmpty();
+    }
+
+    private void rebuildFrom(Object[]... friendships) {
+        InvitationRepository invitationRepository = mock(InvitationRepository.class);
+        when(invitationRepository.findAllFriendships()).thenReturn(Arrays.asList(friendships));
+        friendGraphService = new FriendGraphService(invitationRepository, applicationProperties);
+        friendGraphService.rebuild();
+    }
+
+    /**
+     * Breadth-first search from one side only, as a reference.
+     */
+    private int distance(long from, long to, int maxDistance) {
+        Set<Long> visited = new HashSet<>();
+        List<Long> level = Collections.singletonList(from);
+        visited.add(from);
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            if (level.contains(to)) {
+                return distance;
+            }
+            List<Long> next = new ArrayList<>();
+            for (long profileId : level) {
+                for (long friendId : friendGraphService.getFriends(profileId)) {
+                    if (visited.add(friendId)) {
+                        next.add(friendId);
+                    }
+                }
+            }
+            level = next;
+        }
+        return -1;
+    }
+
+    private static long key(long a, long b) {
+        return Math.min(a, b) * 1000 + Math.max(a, b);
+    }
+}
@@ -0,0 +1,132 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.domain.Location;
+import edu.socialnetwork.domain.Profile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the GeoIndexService.
+ *
+ * @see GeoIndexService
+ */
+public class GeoIndexServiceUnitTest {
+
+    private GeoIndexService geoIndexService;
+
+    @Before
+    public void setup() {
+        geoIndexService = new GeoIndexService(null,
+            new ProximityCacheService(new ApplicationProperties(), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testFindWithinReturnsNearestFirst() {
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));   // Barcelona
+        geoIndexService.update(profile(2L, 20L, 41.4036, 2.1744));   // ~2 km away
+        geoIndexService.update(profile(3L, 30L, 40.4168, -3.7038));  // Madrid
+
+        List<Long> ids = profileIds(geoIndexService.findWithin(41.3851, 2.1734, 10));
+
+        assertThat(ids).containsExactly(1L, 2L);
+        assertThat(profileIds(geoIndexService.findWithin(41.3851, 2.1734, 600))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void testFindWithinAcrossTheAntimeridian() {
+        geoIndexService.update(profile(1L, 10L, 0, 179.99));
+
+        assertThat(profileIds(geoIndexService.findWithin(0, -179.99, 5))).containsExactly(1L);
+    }
+
+    @Test
+    public void testFindNearestPagesOutward() {
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));   // Barcelona
+        geoIndexService.update(profile(2L, 20L, 41.4036, 2.1744));   // ~2 km away
+        geoIndexService.update(profile(3L, 30L, 40.4168, -3.7038));  // Madrid
+        geoIndexService.update(profile(4L, 40L, 48.8566, 2.3522));   // Paris
+        geoIndexService.update(profile(5L, 50L, 41.3851, 2.1734));   // same place as 1
+
+        List<GeoIndexService.Hit> firstPage = geoIndexService.findNearest(41.3851, 2.1734, 2, null, null);
+        assertThat(profileIds(firstPage)).containsExactly(1L, 5L);
+
+        GeoIndexService.Hit last = firstPage.get(1);
+        List<GeoIndexService.Hit> secondPage = geoIndexService.findNearest(41.3851, 2.1734, 2, last.getDistance(), last.getProfileId());
+        assertThat(profileIds(secondPage)).containsExactly(2L, 3L);
+
+        last = secondPage.get(1);
+        assertThat(profileIds(geoIndexService.findNearest(41.3851, 2.1734, 2, last.getDistance(), last.getProfileId())))
+            .containsExactly(4L);
+    }
+
+    @Test
+    public void testOnlyMovesInvalidateTheCache() {
+        ProximityCacheService proximityCacheService = new ProximityCacheService(new ApplicationProperties(), new SimpleMeterRegistry());
+        geoIndexService = new GeoIndexService(null, proximityCacheService);
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));
+        proximityCacheService.get(41.3851, 2.1734, 10, geoIndexService::findPointsWithin);
+
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));
+        assertThat(proximityCacheService.size()).isEqualTo(1);
+
+        geoIndexService.update(profile(1L, 10L, 41.3861, 2.1734));
+        assertThat(proximityCacheService.size()).isZero();
+    }
+
+    @Test
+    public void testUpdateLocationMovesProfile() {
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));
+
+        geoIndexService.updateLocation(location(10L, 40.4168, -3.7038));
+
+        assertThat(geoIndexService.findWithin(41.3851, 2.1734, 10)).isEmpty();
+        assertThat(profileIds(geoIndexService.findWithin(40.4168, -3.7038, 10))).containsExactly(1L);
+        assertThat(geoIndexService.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRemove() {
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));
+        geoIndexService.update(profile(2L, 20L, 41.3851, 2.1734));
+
+        geoIndexService.remove(1L);
+        geoIndexService.removeLocation(20L);
+
+        assertThat(geoIndexService.findWithin(41.3851, 2.1734, 10)).isEmpty();
+        assertThat(geoIndexService.size()).isZero();
+    }
+
+    @Test
+    public void testProfileWithoutLocationIsRemoved() {
+        geoIndexService.update(profile(1L, 10L, 41.3851, 2.1734));
+        Profile profile = new Profile();
+        profile.setId(1L);
+
+        geoIndexService.update(profile);
+
+        assertThat(geoIndexService.size()).isZero();
+    }
+
+    private static List<Long> profileIds(List<GeoIndexService.Hit> hits) {
+        return hits.stream().map(GeoIndexService.Hit::getProfileId).collect(Collectors.toList());
+    }
+
+    private static Profile profile(Long id, Long locationId, double latitude, double longitude) {
+        Profile profile = new Profile().location(location(locationId, latitude, longitude));
+        profile.setId(id);
+        return profile;
+    }
+
+    private static Location location(Long id, double latitude, double longitude) {
+        Location location = new Location().latitude(latitude).longitude(longitude);
+        location.setId(id);
+        return location;
+    }
+}
@@ -0,0 +1,169 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.SocialNetworkBackendApp;
+import edu.socialnetwork.domain.MediaObject;
+import edu.socialnetwork.repository.MediaObjectRepository;
+import edu.socialnetwork.web.rest.errors.BadRequestAlertException;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the MediaStoreService.
+ *
+ * @see MediaStoreService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SocialNetworkBackendApp.class)
+public class MediaStoreServiceIntTest {
+
+    private static final String CONTENT_TYPE = "image/png";
+
+    @Autowired
+    private MediaStoreService mediaStoreService;
+
+    @Autowired
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private byte[] content;
+
+    @Before
+    public void init() {
+        // Random content, since files outlive the rolled back transactions of other tests
+        content = RandomStringUtils.randomAlphanumeric(32).getBytes();
+    }
+
+    @Test
+    @Transactional
+    public void assertThatSameContentIsStoredOnce() {
+        String hash = mediaStoreService.store(content, CONTENT_TYPE);
+        String otherHash = mediaStoreService.store(content.clone(), CONTENT_TYPE);
+
+        assertThat(otherHash).isEqualTo(hash).isEqualTo(MediaStoreService.hash(content));
+        assertThat(mediaStoreService.read(hash)).isEqualTo(content);
+        MediaObject mediaObject = mediaObjectRepository.findById(hash).get();
+        assertThat(mediaObject.getReferenceCount()).isEqualTo(2);
+        assertThat(mediaObject.getSize()).isEqualTo(content.length);
+        assertThat(mediaObject.getContentType()).isEqualTo(CONTENT_TYPE);
+    }
+
+    @Test
+    public void assertThatFileIsDeletedWithItsLastReference() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String hash = transactionTemplate.execute(status -> {
+            mediaStoreService.store(content, CONTENT_TYPE);
+            return mediaStoreService.store(content, CONTENT_TYPE);
+        });
+
+        transactionTemplate.execute(status -> {
+            mediaStoreService.release(hash);
+            return null;
+        });
+        assertThat(mediaObjectRepository.findById(hash).get().getReferenceCount()).isEqualTo(1);
+        assertThat(Files.exists(mediaStoreService.getPath(hash))).isTrue();
+
+        transactionTemplate.execute(status -> {
+            mediaStoreService.release(hash);
+            return null;
+        });
+        assertThat(mediaObjectRepository.existsById(hash)).isFalse();
+        assertThat(Files.exists(mediaStoreService.getPath(hash))).isFalse();
+    }
+
+    @Test
+    public void assertThatSameContentCanBeStoredConcurrently() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Callable<String> store = () -> transactionTemplate.execute(status -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return mediaStoreService.store(content, CONTENT_TYPE);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(store);
+            Future<String> second = executor.submit(store);
+            assertThat(first.get(30, TimeUnit.SECONDS)).isEqualTo(second.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+
+        String hash = MediaStoreService.hash(content);
+        assertThat(mediaObjectRepository.findById(hash).get().getReferenceCount()).isEqualTo(2);
+        assertThat(mediaStoreService.read(hash)).isEqualTo(content);
+    }
+
+    @Test
+    public void assertThatUnreferencedUploadsAreRemoved() throws Exception {
+        byte[] picture = new byte[content.length + 3];
+        picture[0] = (byte) 0xFF;
+        picture[1] = (byte) 0xD8;
+        picture[2] = (byte) 0xFF;
+        System.arraycopy(content, 0, picture, 3, content.length);
+        MediaObject uploaded = mediaStoreService.upload(new ByteArrayInputStream(picture));
+        assertThat(uploaded.getContentType()).isEqualTo("image/jpeg");
+        assertThat(uploaded.getReferenceCount()).isEqualTo(0);
+
+        mediaObjectRepository.save(uploaded.createdDate(Instant.now().minus(MediaStoreService.ORPHAN_RETENTION).minusSeconds(1)));
+        new TransactionTemplate(transactionManager).execute(status -> {
+            mediaStoreService.removeOrphans();
+            return null;
+        });
+
+        assertThat(mediaObjectRepository.existsById(uploaded.getHash())).isFalse();
+        assertThat(Files.exists(mediaStoreService.getPath(uploaded.getHash()))).isFalse();
+    }
+
+    @Test
+    @Transactional
+    public void assertThatReplaceReferencesTheRequestedHash() {
+        String previousHash = mediaStoreService.store(content, CONTENT_TYPE);
+        String otherHash = mediaStoreService.store("other".getBytes(), CONTENT_TYPE);
+
+        assertThat(mediaStoreService.replace(previousHash, null, CONTENT_TYPE, previousHash)).isEqualTo(previousHash);
+        assertThat(mediaObjectRepository.findById(previousHash).get().getReferenceCount()).isEqualTo(1);
+
+        assertThat(mediaStoreService.replace(previousHash, null, CONTENT_TYPE, otherHash)).isEqualTo(otherHash);
+        assertThat(mediaObjectRepository.existsById(previousHash)).isFalse();
+        assertThat(mediaObjectRepository.findById(otherHash).get().getReferenceCount()).isEqualTo(2);
+
+        assertThat(mediaStoreService.replace(otherHash, null, CONTENT_TYPE, null)).isNull();
+        assertThat(mediaObjectRepository.findById(otherHash).get().getReferenceCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void assertThatUnknownHashIsRejected() {
+        String unknownHash = MediaStoreService.hash(content);
+
+        assertThatThrownBy(() -> mediaStoreService.replace(null, null, CONTENT_TYPE, unknownHash))
+            .isInstanceOf(BadRequestAlertException.class);
+    }
+}
@@ -0,0 +1,178 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Gender;
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.domain.enumeration.UnitSystem;
+import edu.socialnetwork.service.dto.ProfileCriteria;
+import edu.socialnetwork.service.dto.ProfileFacetsDTO;
+import io.github.jhipster.service.filter.BooleanFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Test class for the ProfileBitmapIndexService.
+ *
+ * @see ProfileBitmapIndexService
+ */
+public class ProfileBitmapIndexServiceUnitTest {
+
+    private ProfileBitmapIndexService profileBitmapIndexService;
+
+    @Before
+    public void setup() {
+        profileBitmapIndexService = new ProfileBitmapIndexService(null);
+        profileBitmapIndexService.update(profile(1L, 10L, UnitSystem.METRIC, false));
+        profileBitmapIndexService.update(profile(2L, 20L, UnitSystem.IMPERIAL, false));
+        profileBitmapIndexService.update(profile(3L, 10L, UnitSystem.IMPERIAL, true));
+        profileBitmapIndexService.update(profile(4L, null, UnitSystem.METRIC, false));
+    }
+
+    @Test
+    public void testFiltersAreCombined() {
+        ProfileCriteria criteria = new ProfileCriteria();
+        criteria.setGenderId(genderIn(10L, 20L));
+        criteria.setBanned(banned(false));
+
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(0, 20)).getContent()).containsExactly(1L, 2L);
+        assertThat(profileBitmapIndexService.count(criteria)).isEqualTo(2);
+    }
+
+    @Test
+    public void testSpecifiedFilter() {
+        ProfileCriteria criteria = new ProfileCriteria();
+        LongFilter genderId = new LongFilter();
+        genderId.setSpecified(false);
+        criteria.setGenderId(genderId);
+
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(0, 20)).getContent()).containsExactly(4L);
+
+        genderId.setSpecified(true);
+        assertThat(profileBitmapIndexService.count(criteria)).isEqualTo(3);
+    }
+
+    @Test
+    public void testFindIdsPagesInIdOrder() {
+        ProfileCriteria criteria = new ProfileCriteria();
+        criteria.setBanned(banned(false));
+
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(1, 2)).getContent()).containsExactly(4L);
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(0, 2, Sort.Direction.DESC, "id")).getContent())
+            .containsExactly(4L, 2L);
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(0, 2)).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void testProfileIndexedOutOfOrder() {
+        profileBitmapIndexService.remove(1L);
+        profileBitmapIndexService.update(profile(1L, 10L, UnitSystem.METRIC, false));
+        ProfileCriteria criteria = new ProfileCriteria();
+        criteria.setBanned(banned(false));
+
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(0, 20)).getContent()).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        profileBitmapIndexService.update(profile(1L, 20L, UnitSystem.METRIC, true));
+        profileBitmapIndexService.remove(2L);
+        ProfileCriteria criteria = new ProfileCriteria();
+        criteria.setGenderId(genderIn(20L));
+
+        assertThat(profileBitmapIndexService.findIds(criteria, PageRequest.of(0, 20)).getContent()).containsExactly(1L);
+        assertThat(profileBitmapIndexService.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFacetsIgnoreTheirOwnFilter() {
+        ProfileCriteria criteria = new ProfileCriteria();
+        criteria.setGenderId(genderIn(10L));
+        criteria.setBanned(banned(false));
+
+        ProfileFacetsDTO facets = profileBitmapIndexService.facets(criteria, LocalDate.now());
+
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getGenders()).containsEntry(10L, 1L).containsEntry(20L, 1L).hasSize(2);
+    }
+
+    @Test
+    public void testAgeFacets() {
+        LocalDate today = LocalDate.of(2026, 10, 18);
+        profileBitmapIndexService.update(profile(1L, 10L, UnitSystem.METRIC, false).birthDate(LocalDate.of(2001, 10, 18)));
+        profileBitmapIndexService.update(profile(2L, 20L, UnitSystem.IMPERIAL, false).birthDate(LocalDate.of(2001, 10, 19)));
+        profileBitmapIndexService.update(profile(3L, 10L, UnitSystem.IMPERIAL, true).birthDate(LocalDate.of(1950, 1, 1)));
+        profileBitmapIndexService.update(profile(4L, null, UnitSystem.METRIC, false).birthDate(LocalDate.of(1990, 1, 1)).showAge(false));
+
+        ProfileFacetsDTO facets = profileBitmapIndexService.facets(new ProfileCriteria(), today);
+
+        assertThat(facets.getAges()).containsExactly(
+            entry("18-24", 1L), entry("25-34", 1L), entry("35-44", 0L), entry("45-54", 0L), entry("55-64", 0L), entry("65+", 1L));
+    }
+
+    @Test
+    public void testSupports() {
+        ProfileCriteria criteria = new ProfileCriteria();
+        assertThat(ProfileBitmapIndexService.supports(criteria, Sort.unsorted())).isFalse();
+
+        criteria.setBanned(banned(false));
+        assertThat(ProfileBitmapIndexService.supports(criteria, Sort.by(Sort.Direction.DESC, "id"))).isTrue();
+        assertThat(ProfileBitmapIndexService.supports(criteria, Sort.by("displayName"))).isFalse();
+
+        StringFilter displayName = new StringFilter();
+        displayName.setContains("a");
+        criteria.setDisplayName(displayName);
+        assertThat(ProfileBitmapIndexService.supports(criteria, Sort.unsorted())).isFalse();
+    }
+
+    @Test
+    public void testRangeFiltersAreLeftToTheDatabase() {
+        ProfileCriteria criteria = new ProfileCriteria();
+        LongFilter genderId = new LongFilter();
+        genderId.setGreaterThan(3L);
+        criteria.setGenderId(genderId);
+        LongFilter ethnicityId = new LongFilter();
+        ethnicityId.setEquals(1L);
+        criteria.setEthnicityId(ethnicityId);
+
+        assertThat(ProfileBitmapIndexService.hasOtherFilters(criteria)).isTrue();
+        assertThat(ProfileBitmapIndexService.supports(criteria, Sort.unsorted())).isFalse();
+
+        genderId.setIn(Arrays.asList(4L, 5L));
+        ProfileCriteria others = ProfileBitmapIndexService.withoutIndexedFilters(criteria);
+        assertThat(others.getGenderId().getGreaterThan()).isEqualTo(3L);
+        assertThat(others.getGenderId().getIn()).isNull();
+        assertThat(others.getEthnicityId()).isNull();
+    }
+
+    private static LongFilter genderIn(Long... ids) {
+        LongFilter filter = new LongFilter();
+        filter.setIn(Arrays.asList(ids));
+        return filter;
+    }
+
+    private static BooleanFilter banned(boolean value) {
+        BooleanFilter filter = new BooleanFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+
+    private static Profile profile(Long id, Long genderId, UnitSystem unitSystem, boolean banned) {
+        Profile profile = new Profile().unitSystem(unitSystem).banned(banned).showAge(true);
+        profile.setId(id);
+        if (genderId != null) {
+            Gender gender = new Gender();
+            gender.setId(genderId);
+            profile.setGender(gender);
+        }
+        return profile;
+    }
+}
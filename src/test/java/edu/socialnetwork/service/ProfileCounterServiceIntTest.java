@@ -0,0 +1,192 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.SocialNetworkBackendApp;
+import edu.socialnetwork.domain.DirectMessage;
+import edu.socialnetwork.domain.Invitation;
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.repository.DirectMessageRepository;
+import edu.socialnetwork.repository.InvitationRepository;
+import edu.socialnetwork.repository.JobLockRepository;
+import edu.socialnetwork.repository.ProfileCounterRepository;
+import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.dto.ProfileCountersDTO;
+import edu.socialnetwork.web.rest.ProfileResourceIntTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ProfileCounterService.
+ * <p>
+ * The tests are not transactional, since the counters change when the transactions of the services commit.
+ *
+ * @see ProfileCounterService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SocialNetworkBackendApp.class)
+public class ProfileCounterServiceIntTest {
+
+    @Autowired
+    private ProfileCounterService profileCounterService;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Autowired
+    private DirectMessageService directMessageService;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private DirectMessageRepository directMessageRepository;
+
+    @Autowired
+    private ProfileCounterRepository profileCounterRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    private Profile sender;
+
+    private Profile receiver;
+
+    private final List<Long> invitationIds = new ArrayList<>();
+
+    private final List<Long> directMessageIds = new ArrayList<>();
+
+    @Before
+    public void init() {
+        sender = profileRepository.saveAndFlush(ProfileResourceIntTest.createEntity(null));
+        receiver = profileRepository.saveAndFlush(ProfileResourceIntTest.createEntity(null));
+    }
+
+    @After
+    public void cleanup() {
+        directMessageIds.stream().filter(directMessageRepository::existsById).forEach(directMessageRepository::deleteById);
+        invitationIds.stream().filter(invitationRepository::existsById).forEach(invitationRepository::deleteById);
+        profileCounterService.flush();
+        profileRepository.deleteById(sender.getId());
+        profileRepository.deleteById(receiver.getId());
+    }
+
+    @Test
+    public void assertThatInvitationsAreCounted() {
+        Invitation invitation = invitationService.save(new Invitation().sent(sender).received(receiver));
+        invitationIds.add(invitation.getId());
+        assertCounters(receiver, 0, 1, 0);
+        assertCounters(sender, 0, 0, 0);
+
+        profileCounterService.flush();
+        assertThat(profileCounterRepository.findById(receiver.getId()).get().getPendingInvitationCount()).isEqualTo(1);
+
+        invitationService.changeState(invitationRepository.findById(invitation.getId()).get(), true);
+        assertCounters(receiver, 1, 0, 0);
+        assertCounters(sender, 1, 0, 0);
+
+        profileCounterService.flush();
+        invitationService.delete(invitation.getId());
+        assertCounters(receiver, 0, 0, 0);
+        assertCounters(sender, 0, 0, 0);
+    }
+
+    @Test
+    public void assertThatUnreadDirectMessagesAreCounted() {
+        DirectMessage directMessage = saveDirectMessage();
+        saveDirectMessage();
+        assertCounters(receiver, 0, 0, 2);
+
+        profileCounterService.flush();
+        directMessageService.markRead(directMessageRepository.findById(directMessage.getId()).get());
+        directMessageService.markRead(directMessageRepository.findById(directMessage.getId()).get());
+        assertCounters(receiver, 0, 0, 1);
+
+        directMessageService.delete(directMessage.getId());
+        assertCounters(receiver, 0, 0, 1);
+        assertCounters(sender, 0, 0, 0);
+    }
+
+    @Test
+    public void assertThatRepairRecomputesTheCounters() {
+        Invitation invitation = invitationService.save(new Invitation().sent(sender).received(receiver));
+        invitationIds.add(invitation.getId());
+        saveDirectMessage();
+        profileCounterService.flush();
+
+        // Changed without the services
+        invitationRepository.saveAndFlush(invitationRepository.findById(invitation.getId()).get().accepted(true));
+        assertCounters(receiver, 0, 1, 1);
+
+        profileCounterService.repair();
+        assertCounters(receiver, 1, 0, 1);
+        assertCounters(sender, 1, 0, 0);
+    }
+
+    @Test
+    public void assertThatRepairDoesNotCountTheChangesNotFlushedTwice() {
+        saveDirectMessage();
+        profileCounterService.flush();
+        saveDirectMessage();
+
+        // Both messages are counted by the repair, the second one must not be flushed anymore
+        profileCounterService.repair();
+        assertCounters(receiver, 0, 0, 2);
+        profileCounterService.flush();
+        assertCounters(receiver, 0, 0, 2);
+
+        saveDirectMessage();
+        profileCounterService.flush();
+        assertCounters(receiver, 0, 0, 3);
+    }
+
+    @Test
+    public void assertThatRepairIsSkippedWhileAnotherInstanceHoldsTheLock() {
+        saveDirectMessage();
+        profileCounterService.flush();
+        profileCounterRepository.increment(receiver.getId(), 0L, 0, 0, 1);
+        assertCounters(receiver, 0, 0, 2);
+
+        Instant now = Instant.now();
+        assertThat(jobLockRepository.lock(ProfileCounterService.REPAIR_LOCK, "other", now, now.plus(Duration.ofHours(1))))
+            .isEqualTo(1);
+        try {
+            profileCounterService.repair();
+            assertCounters(receiver, 0, 0, 2);
+        } finally {
+            jobLockRepository.unlock(ProfileCounterService.REPAIR_LOCK, "other", Instant.now());
+        }
+
+        profileCounterService.repair();
+        assertCounters(receiver, 0, 0, 1);
+    }
+
+    private DirectMessage saveDirectMessage() {
+        DirectMessage directMessage = directMessageService.save(new DirectMessage()
+            .createdDate(ZonedDateTime.now()).message("hello").sender(sender).recipient(receiver));
+        directMessageIds.add(directMessage.getId());
+        return directMessage;
+    }
+
+    private void assertCounters(Profile profile, long friends, long pendingInvitations, long unreadDirectMessages) {
+        ProfileCountersDTO counters = profileCounterService.getCounters(profile.getId());
+        assertThat(counters.getFriends()).isEqualTo(friends);
+        assertThat(counters.getPendingInvitations()).isEqualTo(pendingInvitations);
+        assertThat(counters.getUnreadDirectMessages()).isEqualTo(unreadDirectMessages);
+    }
+}
@@ -0,0 +1,104 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Profile;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ProfileSearchService.
+ *
+ * @see ProfileSearchService
+ */
+public class ProfileSearchServiceUnitTest {
+
+    private ProfileSearchService profileSearchService;
+
+    @Before
+    public void setup() {
+        profileSearchService = new ProfileSearchService(null);
+    }
+
+    @Test
+    public void testSearchMatchesEveryTerm() {
+        profileSearchService.update(profile(1L, "Anna", "I love hiking and jazz"));
+        profileSearchService.update(profile(2L, "Bob", "Jazz, jazz and more jazz!"));
+        profileSearchService.update(profile(3L, "Carla", "Hiking in the Pyrenees"));
+
+        assertThat(profileIds(search("hiking jazz"))).containsExactly(1L);
+        assertThat(profileIds(search("hiking"))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(profileIds(search("hiking sailing"))).isEmpty();
+        assertThat(profileIds(search("  ,. "))).isEmpty();
+    }
+
+    @Test
+    public void testSearchIgnoresAccentsAndCase() {
+        profileSearchService.update(profile(1L, "José Müller", null));
+
+        assertThat(profileIds(search("JOSE muller"))).containsExactly(1L);
+    }
+
+    @Test
+    public void testSearchRanksByRelevance() {
+        profileSearchService.update(profile(1L, "Anna", "I like jazz, among many other things in life"));
+        profileSearchService.update(profile(2L, "Bob", "Jazz and more jazz"));
+        profileSearchService.update(profile(3L, "Jazz Fan", "Music"));
+
+        // The display name weighs more than the text, and repeated terms more than single ones
+        assertThat(profileIds(search("jazz"))).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    public void testSearchPages() {
+        for (long id = 1; id <= 5; id++) {
+            profileSearchService.update(profile(id, "Profile " + id, "jazz"));
+        }
+
+        Page<ProfileSearchService.Hit> page = profileSearchService.search("jazz", PageRequest.of(1, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(profileIds(page)).containsExactly(3L, 4L);
+        assertThat(profileIds(profileSearchService.search("jazz", PageRequest.of(3, 2)))).isEmpty();
+    }
+
+    @Test
+    public void testUpdateReplacesTerms() {
+        profileSearchService.update(profile(1L, "Anna", "hiking"));
+
+        profileSearchService.update(profile(1L, "Anna", "sailing"));
+
+        assertThat(profileIds(search("hiking"))).isEmpty();
+        assertThat(profileIds(search("sailing"))).containsExactly(1L);
+        assertThat(profileSearchService.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRemove() {
+        profileSearchService.update(profile(1L, "Anna", "hiking"));
+
+        profileSearchService.remove(1L);
+
+        assertThat(profileIds(search("anna"))).isEmpty();
+        assertThat(profileSearchService.size()).isZero();
+    }
+
+    private Page<ProfileSearchService.Hit> search(String query) {
+        return profileSearchService.search(query, PageRequest.of(0, 20));
+    }
+
+    private static List<Long> profileIds(Page<ProfileSearchService.Hit> hits) {
+        return hits.getContent().stream().map(ProfileSearchService.Hit::getProfileId).collect(Collectors.toList());
+    }
+
+    private static Profile profile(Long id, String displayName, String aboutMe) {
+        Profile profile = new Profile().displayName(displayName).aboutMe(aboutMe);
+        profile.setId(id);
+        return profile;
+    }
+}
@@ -0,0 +1,79 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.domain.Profile;
+import edu.socialnetwork.service.dto.ProfileSuggestionDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ProfileSuggestService.
+ *
+ * @see ProfileSuggestService
+ */
+public class ProfileSuggestServiceUnitTest {
+
+    private ProfileSuggestService profileSuggestService;
+
+    @Before
+    public void setup() {
+        profileSuggestService = new ProfileSuggestService(null);
+    }
+
+    @Test
+    public void testSuggestNamesStartingWithPrefixFirst() {
+        profileSuggestService.update(profile(1L, "Maria Lopez"));
+        profileSuggestService.update(profile(2L, "Ana Martín"));
+        profileSuggestService.update(profile(3L, "Marc"));
+        profileSuggestService.update(profile(4L, "Pedro"));
+
+        assertThat(profileIds(profileSuggestService.suggest("mar", 10))).containsExactly(3L, 1L, 2L);
+        assertThat(profileIds(profileSuggestService.suggest("MARTIN", 10))).containsExactly(2L);
+        assertThat(profileIds(profileSuggestService.suggest("ana mar", 10))).containsExactly(2L);
+        assertThat(profileIds(profileSuggestService.suggest("mar", 2))).containsExactly(3L, 1L);
+        assertThat(profileSuggestService.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    public void testSuggestEachProfileOnce() {
+        profileSuggestService.update(profile(1L, "Anna Anna"));
+
+        assertThat(profileIds(profileSuggestService.suggest("ann", 10))).containsExactly(1L);
+    }
+
+    @Test
+    public void testUpdateRenamesProfile() {
+        profileSuggestService.update(profile(1L, "Maria"));
+
+        profileSuggestService.update(profile(1L, "Pedro"));
+
+        assertThat(profileSuggestService.suggest("mar", 10)).isEmpty();
+        List<ProfileSuggestionDTO> suggestions = profileSuggestService.suggest("ped", 10);
+        assertThat(profileIds(suggestions)).containsExactly(1L);
+        assertThat(suggestions.get(0).getDisplayName()).isEqualTo("Pedro");
+    }
+
+    @Test
+    public void testRemove() {
+        profileSuggestService.update(profile(1L, "Maria Lopez"));
+
+        profileSuggestService.remove(1L);
+
+        assertThat(profileSuggestService.suggest("lop", 10)).isEmpty();
+        assertThat(profileSuggestService.size()).isZero();
+    }
+
+    private static List<Long> profileIds(List<ProfileSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProfileSuggestionDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Profile profile(Long id, String displayName) {
+        Profile profile = new Profile().displayName(displayName);
+        profile.setId(id);
+        return profile;
+    }
+}
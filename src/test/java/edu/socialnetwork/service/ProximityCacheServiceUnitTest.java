@@ -0,0 +1,172 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.service.util.GeoPointArray;
+import edu.socialnetwork.service.util.GeoUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for the ProximityCacheService.
+ *
+ * @see ProximityCacheService
+ */
+public class ProximityCacheServiceUnitTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private ProximityCacheService proximityCacheService;
+
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        // Two entries without candidates
+        applicationProperties.getProximity().getCache().setMaxCandidates(2);
+        meterRegistry = new SimpleMeterRegistry();
+        proximityCacheService = new ProximityCacheService(applicationProperties, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void testNearbyQueriesShareAnEntry() {
+        proximityCacheService.get(41.3831, 2.1734, 9.5, this::load);
+        proximityCacheService.get(41.3839, 2.1736, 10, this::load);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("proximity.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("proximity.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEntryCoversTheQuery() {
+        double[] loaded = new double[3];
+        proximityCacheService.get(41.3849, 2.1736, 9.5, (latitude, longitude, distance) -> {
+            loaded[0] = latitude;
+            loaded[1] = longitude;
+            loaded[2] = distance;
+            return GeoPointArray.empty();
+        });
+
+        assertThat(loaded[0]).isEqualTo(41.38, within(1e-9));
+        assertThat(loaded[1]).isEqualTo(2.17, within(1e-9));
+        // The rounded radius, plus the farthest the query center can be from the rounded center
+        assertThat(loaded[2]).isGreaterThan(10 + GeoUtil.distance(41.38, 2.17, 41.3849, 2.1736));
+    }
+
+    @Test
+    public void testInvalidateOnlyEvictsTheEntriesCoveringThePoint() {
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);  // Barcelona
+        proximityCacheService.get(40.4168, -3.7038, 10, this::load); // Madrid
+
+        proximityCacheService.invalidate(41.40, 2.17);
+
+        proximityCacheService.get(40.4168, -3.7038, 10, this::load);
+        assertThat(loads.get()).isEqualTo(2);
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);  // Barcelona
+        proximityCacheService.get(40.4168, -3.7038, 10, this::load); // Madrid
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);  // Barcelona again
+        proximityCacheService.get(48.8566, 2.3522, 10, this::load);  // Paris evicts Madrid
+
+        assertThat(proximityCacheService.size()).isEqualTo(2);
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);
+        assertThat(loads.get()).isEqualTo(3);
+        proximityCacheService.get(40.4168, -3.7038, 10, this::load);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testLargeRadiusIsNotCached() {
+        proximityCacheService.get(41.3851, 2.1734, 60, this::load);
+        proximityCacheService.get(41.3851, 2.1734, 60, this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(proximityCacheService.size()).isZero();
+        assertThat(meterRegistry.get("proximity.cache.requests").tag("result", "bypass").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEntriesAreBoundedByTheirCandidates() {
+        applicationProperties.getProximity().getCache().setMaxCandidates(10);
+        proximityCacheService = new ProximityCacheService(applicationProperties, meterRegistry);
+        GeoPointArray.Builder builder = new GeoPointArray.Builder();
+        for (long id = 1; id <= 4; id++) {
+            builder.add(id, 41.3851, 2.1734);
+        }
+        GeoPointArray points = builder.build();
+
+        proximityCacheService.get(41.3851, 2.1734, 10, (latitude, longitude, distance) -> points);  // Barcelona
+        proximityCacheService.get(40.4168, -3.7038, 10, (latitude, longitude, distance) -> points); // Madrid
+        assertThat(proximityCacheService.candidateCount()).isEqualTo(10);
+
+        // Paris evicts the least recently used entries, down to nine tenths of the bound
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);
+        proximityCacheService.get(48.8566, 2.3522, 10, (latitude, longitude, distance) -> points);
+        assertThat(proximityCacheService.size()).isEqualTo(1);
+        assertThat(proximityCacheService.candidateCount()).isEqualTo(5);
+        proximityCacheService.get(48.8566, 2.3522, 10, this::load);
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    public void testEntryInvalidatedWhileLoadingIsNotStored() {
+        proximityCacheService.get(41.3851, 2.1734, 10, (latitude, longitude, distance) -> {
+            // A profile moved next to the center once the index was read
+            proximityCacheService.invalidate(41.3851, 2.1734);
+            return load(latitude, longitude, distance);
+        });
+
+        assertThat(proximityCacheService.size()).isZero();
+        assertThat(proximityCacheService.candidateCount()).isZero();
+        proximityCacheService.get(41.3851, 2.1734, 10, this::load);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCandidatesAreCountedOnceUnderConcurrentInvalidations() throws Exception {
+        applicationProperties.getProximity().getCache().setMaxCandidates(1000);
+        proximityCacheService = new ProximityCacheService(applicationProperties, meterRegistry);
+        GeoPointArray points = new GeoPointArray.Builder().add(1L, 41.3851, 2.1734).build();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            boolean invalidating = i % 2 == 0;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    if (invalidating) {
+                        proximityCacheService.invalidate(41.3851, 2.1734);
+                    } else {
+                        proximityCacheService.get(41.3851, 2.1734, 10, (latitude, longitude, distance) -> points);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        proximityCacheService.clear();
+        assertThat(proximityCacheService.candidateCount()).isZero();
+    }
+
+    private GeoPointArray load(double latitude, double longitude, double distance) {
+        loads.incrementAndGet();
+        return GeoPointArray.empty();
+    }
+}
@@ -0,0 +1,125 @@
+package edu.socialnetwork.service;
+
+import edu.socialnetwork.SocialNetworkBackendApp;
+import edu.socialnetwork.config.Constants;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ThumbnailService.
+ *
+ * @see ThumbnailService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SocialNetworkBackendApp.class)
+@Transactional
+public class ThumbnailServiceIntTest {
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private MediaStoreService mediaStoreService;
+
+    @Test
+    public void assertThatThumbnailsFitTheirSize() throws IOException {
+        String hash = mediaStoreService.store(createImage(BufferedImage.TYPE_INT_RGB, "jpg"), "image/jpeg");
+
+        assertThat(thumbnailService.createThumbnails(hash)).isTrue();
+
+        BufferedImage small = readThumbnail(hash, 64, "jpg");
+        assertThat(small.getWidth()).isEqualTo(64);
+        assertThat(small.getHeight()).isEqualTo(38);
+        BufferedImage large = readThumbnail(hash, 256, "jpg");
+        assertThat(large.getWidth()).isEqualTo(256);
+        assertThat(large.getHeight()).isEqualTo(150);
+    }
+
+    @Test
+    public void assertThatTransparentPicturesGetPngThumbnails() throws IOException {
+        String hash = mediaStoreService.store(createImage(BufferedImage.TYPE_INT_ARGB, "png"), "image/png");
+
+        assertThat(thumbnailService.createThumbnails(hash)).isTrue();
+
+        assertThat(readThumbnail(hash, 64, "png").getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    public void assertThatOtherContentHasNoThumbnails() {
+        String hash = mediaStoreService.store(RandomStringUtils.randomAlphanumeric(32).getBytes(), "image/png");
+
+        assertThat(thumbnailService.createThumbnails(hash)).isFalse();
+        assertThat(thumbnailService.findThumbnail(hash, Constants.LIST_THUMBNAIL_SIZE)).isEmpty();
+        assertThat(thumbnailService.hasFailed(hash)).isTrue();
+    }
+
+    @Test
+    public void assertThatFailedThumbnailsAreNotScheduledAgain() {
+        List<Runnable> tasks = new ArrayList<>();
+        ThumbnailService service = new ThumbnailService(mediaStoreService, tasks::add);
+        String hash = mediaStoreService.store(RandomStringUtils.randomAlphanumeric(32).getBytes(), "image/png");
+
+        service.generate(hash);
+        service.generate(hash);
+        assertThat(tasks).hasSize(1);
+
+        tasks.get(0).run();
+        service.generate(hash);
+        assertThat(tasks).hasSize(1);
+        assertThat(service.hasFailed(hash)).isTrue();
+    }
+
+    @Test
+    public void assertThatRejectedThumbnailsAreScheduledAgain() {
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicBoolean full = new AtomicBoolean(true);
+        ThumbnailService service = new ThumbnailService(mediaStoreService, task -> {
+            if (full.get()) {
+                throw new RejectedExecutionException("Queue is full");
+            }
+            tasks.add(task);
+        });
+        String hash = mediaStoreService.store(RandomStringUtils.randomAlphanumeric(32).getBytes(), "image/png");
+
+        service.generate(hash);
+        full.set(false);
+        service.generate(hash);
+        assertThat(tasks).hasSize(1);
+    }
+
+    private BufferedImage readThumbnail(String hash, int size, String format) throws IOException {
+        Path thumbnail = thumbnailService.findThumbnail(hash, size).get();
+        assertThat(thumbnail.getFileName().toString()).endsWith("." + format);
+        return ImageIO.read(thumbnail.toFile());
+    }
+
+    /**
+     * Create a 512x300 picture, with a random pixel since files outlive the rolled back transactions.
+     */
+    private static byte[] createImage(int type, String format) throws IOException {
+        BufferedImage image = new BufferedImage(512, 300, type);
+        image.setRGB(0, 0, ThreadLocalRandom.current().nextInt());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+}
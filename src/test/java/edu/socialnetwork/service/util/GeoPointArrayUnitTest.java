@@ -0,0 +1,88 @@
+package edu.socialnetwork.service.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for the GeoPointArray and GeoHits utility classes.
+ *
+ * @see GeoPointArray
+ * @see GeoHits
+ */
+public class GeoPointArrayUnitTest {
+
+    @Test
+    public void testCollectWithinMatchesGeoUtilDistance() {
+        Random random = new Random(42);
+        GeoPointArray.Builder builder = new GeoPointArray.Builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i, 40 + random.nextDouble(), 2 + random.nextDouble());
+        }
+        GeoPointArray points = builder.build();
+
+        GeoHits hits = new GeoHits();
+        points.collectWithin(new GeoPointArray.Query(40.5, 2.5, 30), hits);
+
+        int expected = 0;
+        for (int i = 0; i < points.size(); i++) {
+            if (GeoUtil.distance(points.getLatitude(i), points.getLongitude(i), 40.5, 2.5) <= 30) {
+                expected++;
+            }
+        }
+        assertThat(hits.size()).isEqualTo(expected);
+        for (int i = 0; i < hits.size(); i++) {
+            int index = points.indexOf(hits.getId(i));
+            assertThat(hits.getDistance(i))
+                .isCloseTo(GeoUtil.distance(points.getLatitude(index), points.getLongitude(index), 40.5, 2.5), within(1e-6));
+        }
+    }
+
+    @Test
+    public void testWithAndWithout() {
+        GeoPointArray points = GeoPointArray.empty()
+            .with(1, 41.3851, 2.1734)
+            .with(2, 40.4168, -3.7038)
+            .with(1, 48.8566, 2.3522);
+
+        assertThat(points.size()).isEqualTo(2);
+        assertThat(points.getLatitude(points.indexOf(1))).isEqualTo(48.8566);
+
+        points = points.without(1);
+        assertThat(points.size()).isEqualTo(1);
+        assertThat(points.indexOf(1)).isEqualTo(-1);
+        assertThat(points.getId(0)).isEqualTo(2);
+    }
+
+    @Test
+    public void testSortNearestKeepsTheKNearest() {
+        GeoHits hits = new GeoHits(2);
+        hits.add(5, 3.0);
+        hits.add(4, 1.0);
+        hits.add(3, 2.0);
+        hits.add(2, 1.0);
+        hits.add(1, 4.0);
+
+        hits.sortNearest(3);
+
+        assertThat(hits.size()).isEqualTo(3);
+        assertThat(new long[]{hits.getId(0), hits.getId(1), hits.getId(2)}).containsExactly(2, 4, 3);
+    }
+
+    @Test
+    public void testRetainAfter() {
+        GeoHits hits = new GeoHits();
+        hits.add(1, 1.0);
+        hits.add(2, 1.0);
+        hits.add(3, 2.0);
+
+        hits.retainAfter(1.0, 1);
+
+        assertThat(hits.size()).isEqualTo(2);
+        assertThat(hits.getId(0)).isEqualTo(2);
+        assertThat(hits.getId(1)).isEqualTo(3);
+    }
+}
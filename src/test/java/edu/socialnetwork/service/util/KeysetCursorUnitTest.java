@@ -0,0 +1,50 @@
+package edu.socialnetwork.service.util;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the KeysetCursor utility class.
+ *
+ * @see KeysetCursor
+ */
+public class KeysetCursorUnitTest {
+
+    @Test
+    public void testIdCursorRoundTrip() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(42L).encode());
+
+        assertThat(cursor.getId()).isEqualTo(42L);
+        assertThat(cursor.getCreatedDate()).isNull();
+    }
+
+    @Test
+    public void testCreatedDateCursorKeepsTheInstant() {
+        ZonedDateTime createdDate = ZonedDateTime.of(2019, 5, 19, 17, 7, 31, 123456789, ZoneId.of("Europe/Madrid"));
+
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.of(createdDate, 7L).encode());
+
+        assertThat(cursor.getId()).isEqualTo(7L);
+        assertThat(cursor.getCreatedDate().toInstant()).isEqualTo(createdDate.toInstant());
+        assertThat(cursor).isEqualTo(KeysetCursor.of(createdDate, 7L));
+    }
+
+    @Test
+    public void testEncodedCursorIsUrlSafe() {
+        String encoded = KeysetCursor.of(ZonedDateTime.now(), Long.MAX_VALUE).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    public void testDecodeRejectsMalformedCursors() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("YWJj")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("MS4y")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package edu.socialnetwork.service.util;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PostingList utility class.
+ *
+ * @see PostingList
+ */
+public class PostingListUnitTest {
+
+    @Test
+    public void testBuilderSortsTheDocuments() {
+        PostingList list = new PostingList.Builder().add(7, 1).add(3, 2).add(5, 3).build();
+
+        assertThat(list.size()).isEqualTo(3);
+        assertThat(list.getId(0)).isEqualTo(3);
+        assertThat(list.getFrequency(0)).isEqualTo(2);
+        assertThat(list.getId(2)).isEqualTo(7);
+        assertThat(list.indexOf(5)).isEqualTo(1);
+        assertThat(list.indexOf(4)).isEqualTo(-2);
+        assertThat(list.indexOf(8)).isEqualTo(-4);
+    }
+
+    @Test
+    public void testUpdatesAcrossChunksMatchASortedMap() {
+        Random random = new Random(42);
+        PostingList.Builder builder = new PostingList.Builder();
+        Map<Long, Integer> expected = new TreeMap<>();
+        for (long id = 0; id < 3 * PostingList.MAX_CHUNK_SIZE; id += 2) {
+            builder.add(id, 1);
+            expected.put(id, 1);
+        }
+        PostingList list = builder.build();
+
+        for (int i = 0; i < 20000; i++) {
+            long id = random.nextInt(4 * PostingList.MAX_CHUNK_SIZE);
+            if (random.nextInt(3) == 0) {
+                list = list.without(id);
+                expected.remove(id);
+            } else {
+                list = list.with(id, i);
+                expected.put(id, i);
+            }
+        }
+
+        assertThat(list.size()).isEqualTo(expected.size());
+        int index = 0;
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertThat(list.getId(index)).isEqualTo(entry.getKey());
+            assertThat(list.getFrequency(index)).isEqualTo(entry.getValue());
+            assertThat(list.indexOf(entry.getKey())).isEqualTo(index);
+            index++;
+        }
+        assertThat(list.indexOf(-1)).isEqualTo(-1);
+        assertThat(list.indexOf(4 * PostingList.MAX_CHUNK_SIZE)).isEqualTo(-expected.size() - 1);
+    }
+
+    @Test
+    public void testUpdatesLeaveTheOriginalUnchanged() {
+        PostingList list = PostingList.empty().with(1, 1).with(2, 2);
+
+        PostingList updated = list.with(3, 3).with(1, 5).without(2);
+
+        assertThat(list.size()).isEqualTo(2);
+        assertThat(list.getFrequency(0)).isEqualTo(1);
+        assertThat(updated.size()).isEqualTo(2);
+        assertThat(updated.getFrequency(updated.indexOf(1))).isEqualTo(5);
+        assertThat(updated.without(1).without(3).size()).isEqualTo(0);
+    }
+}
@@ -4,10 +4,11 @@ import edu.socialnetwork.SocialNetworkBackendApp;
 import edu.socialnetwork.domain.DirectMessage;
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.repository.DirectMessageRepository;
-import edu.socialnetwork.repository.InvitationRepository;
 import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.service.DirectMessageQueryService;
+import edu.socialnetwork.service.MediaStoreService;
 import edu.socialnetwork.service.DirectMessageService;
+import edu.socialnetwork.service.InvitationService;
 import edu.socialnetwork.web.rest.errors.ExceptionTranslator;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,7 +23,6 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
@@ -68,6 +68,9 @@ public class DirectMessageResourceIntTest {
     @Autowired
     private DirectMessageService directMessageService;
 
+    @Autowired
+    private MediaStoreService mediaStoreService;
+
     @Autowired
     private DirectMessageQueryService directMessageQueryService;
 
@@ -92,12 +95,13 @@ public class DirectMessageResourceIntTest {
 
     private ProfileRepository profileRepository;
 
-    private InvitationRepository invitationRepository;
+    @Autowired
+    private InvitationService invitationService;
 
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final DirectMessageResource directMessageResource = new DirectMessageResource(directMessageService, directMessageQueryService, profileRepository, invitationRepository);
+        final DirectMessageResource directMessageResource = new DirectMessageResource(directMessageService, directMessageQueryService, profileRepository, invitationService);
         this.restDirectMessageMockMvc = MockMvcBuilders.standaloneSetup(directMessageResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -145,7 +149,8 @@ public class DirectMessageResourceIntTest {
         assertThat(testDirectMessage.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
         assertThat(testDirectMessage.getMessage()).isEqualTo(DEFAULT_MESSAGE);
         assertThat(testDirectMessage.getUrl()).isEqualTo(DEFAULT_URL);
-        assertThat(testDirectMessage.getPicture()).isEqualTo(DEFAULT_PICTURE);
+        assertThat(testDirectMessage.getPictureHash()).isEqualTo(MediaStoreService.hash(DEFAULT_PICTURE));
+        assertThat(mediaStoreService.read(testDirectMessage.getPictureHash())).isEqualTo(DEFAULT_PICTURE);
         assertThat(testDirectMessage.getPictureContentType()).isEqualTo(DEFAULT_PICTURE_CONTENT_TYPE);
     }
 
@@ -200,8 +205,7 @@ public class DirectMessageResourceIntTest {
             .andExpect(jsonPath("$.[*].createdDate").value(hasItem(sameInstant(DEFAULT_CREATED_DATE))))
             .andExpect(jsonPath("$.[*].message").value(hasItem(DEFAULT_MESSAGE.toString())))
             .andExpect(jsonPath("$.[*].url").value(hasItem(DEFAULT_URL.toString())))
-            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].picture").value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE))));
+            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)));
     }
 
     @Test
@@ -218,8 +222,7 @@ public class DirectMessageResourceIntTest {
             .andExpect(jsonPath("$.createdDate").value(sameInstant(DEFAULT_CREATED_DATE)))
             .andExpect(jsonPath("$.message").value(DEFAULT_MESSAGE.toString()))
             .andExpect(jsonPath("$.url").value(DEFAULT_URL.toString()))
-            .andExpect(jsonPath("$.pictureContentType").value(DEFAULT_PICTURE_CONTENT_TYPE))
-            .andExpect(jsonPath("$.picture").value(Base64Utils.encodeToString(DEFAULT_PICTURE)));
+            .andExpect(jsonPath("$.pictureContentType").value(DEFAULT_PICTURE_CONTENT_TYPE));
     }
 
     @Test
@@ -414,8 +417,7 @@ public class DirectMessageResourceIntTest {
             .andExpect(jsonPath("$.[*].createdDate").value(hasItem(sameInstant(DEFAULT_CREATED_DATE))))
             .andExpect(jsonPath("$.[*].message").value(hasItem(DEFAULT_MESSAGE)))
             .andExpect(jsonPath("$.[*].url").value(hasItem(DEFAULT_URL)))
-            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].picture").value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE))));
+            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)));
 
         // Check, that the count call also returns 1
         restDirectMessageMockMvc.perform(get("/api/direct-messages/count?sort=id,desc&" + filter))
@@ -481,7 +483,8 @@ public class DirectMessageResourceIntTest {
         assertThat(testDirectMessage.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
         assertThat(testDirectMessage.getMessage()).isEqualTo(UPDATED_MESSAGE);
         assertThat(testDirectMessage.getUrl()).isEqualTo(UPDATED_URL);
-        assertThat(testDirectMessage.getPicture()).isEqualTo(UPDATED_PICTURE);
+        assertThat(testDirectMessage.getPictureHash()).isEqualTo(MediaStoreService.hash(UPDATED_PICTURE));
+        assertThat(mediaStoreService.read(testDirectMessage.getPictureHash())).isEqualTo(UPDATED_PICTURE);
         assertThat(testDirectMessage.getPictureContentType()).isEqualTo(UPDATED_PICTURE_CONTENT_TYPE);
     }
 
@@ -2,15 +2,19 @@ package edu.socialnetwork.web.rest;
 
 import edu.socialnetwork.SocialNetworkBackendApp;
 
+import edu.socialnetwork.config.Constants;
 import edu.socialnetwork.domain.Invitation;
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.domain.User;
 import edu.socialnetwork.repository.InvitationRepository;
 import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.repository.UserRepository;
+import edu.socialnetwork.service.FriendGraphService;
 import edu.socialnetwork.service.InvitationService;
+import edu.socialnetwork.service.MediaStoreService;
 import edu.socialnetwork.web.rest.errors.ExceptionTranslator;
 import edu.socialnetwork.service.dto.InvitationCriteria;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
 import edu.socialnetwork.service.InvitationQueryService;
 
 import org.junit.Before;
@@ -19,6 +23,10 @@ import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -40,6 +48,8 @@ import java.util.List;
 import static edu.socialnetwork.web.rest.TestUtil.sameInstant;
 import static edu.socialnetwork.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -65,6 +75,9 @@ public class InvitationResourceIntTest {
     @Autowired
     private InvitationService invitationService;
 
+    @Autowired
+    private FriendGraphService friendGraphService;
+
     @Autowired
     private InvitationQueryService invitationQueryService;
 
@@ -209,6 +222,27 @@ public class InvitationResourceIntTest {
             .andExpect(jsonPath("$.accepted").value(DEFAULT_ACCEPTED.booleanValue()));
     }
 
+    @Test
+    @Transactional
+    public void getInvitationEmbedsProfileSummaries() throws Exception {
+        // Initialize the database
+        Profile sent = ProfileResourceIntTest.createEntity(em);
+        sent.setPictureHash(MediaStoreService.hash(sent.getPicture()));
+        em.persist(sent);
+        em.flush();
+        invitation.setSent(sent);
+        invitationRepository.saveAndFlush(invitation);
+
+        // Get the invitation: the sender is a summary, without picture nor associations
+        restInvitationMockMvc.perform(get("/api/invitations/{id}", invitation.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.sent.id").value(sent.getId().intValue()))
+            .andExpect(jsonPath("$.sent.displayName").value(sent.getDisplayName()))
+            .andExpect(jsonPath("$.sent.thumbnailUrl").value("/media/" + sent.getPictureHash() + "/thumbnail/" + Constants.LIST_THUMBNAIL_SIZE))
+            .andExpect(jsonPath("$.sent.picture").doesNotExist())
+            .andExpect(jsonPath("$.sent.location").doesNotExist());
+    }
+
     @Test
     @Transactional
     public void getAllInvitationsByCreatedDateIsEqualToSomething() throws Exception {
@@ -319,6 +353,7 @@ public class InvitationResourceIntTest {
     public void getAllInvitationsBySentIsEqualToSomething() throws Exception {
         // Initialize the database
         Profile sent = ProfileResourceIntTest.createEntity(em);
+        sent.setPictureHash(MediaStoreService.hash(sent.getPicture()));
         em.persist(sent);
         em.flush();
         invitation.setSent(sent);
@@ -351,6 +386,134 @@ public class InvitationResourceIntTest {
         defaultInvitationShouldNotBeFound("receivedId.equals=" + (receivedId + 1));
     }
 
+    @Test
+    @Transactional
+    public void checkFriendGraphIsUpdatedAfterCommit() throws Exception {
+        Profile sent = ProfileResourceIntTest.createEntity(em);
+        em.persist(sent);
+        Profile received = ProfileResourceIntTest.createEntity(em);
+        em.persist(received);
+        em.flush();
+        invitation.setSent(sent);
+        invitation.setReceived(received);
+        invitation.setAccepted(true);
+
+        // The transaction of the test is rolled back, so the graph never sees the friendship
+        invitationService.save(invitation);
+        assertThat(friendGraphService.areFriends(sent.getId(), received.getId())).isFalse();
+    }
+
+    @Test
+    @Transactional
+    public void checkFriendshipOfAcceptedInvitation() throws Exception {
+        // Initialize the database, bypassing the friend graph
+        Profile sent = ProfileResourceIntTest.createEntity(em);
+        em.persist(sent);
+        Profile received = ProfileResourceIntTest.createEntity(em);
+        em.persist(received);
+        Profile other = ProfileResourceIntTest.createEntity(em);
+        em.persist(other);
+        em.flush();
+        invitation.setSent(sent);
+        invitation.setReceived(received);
+        invitation.setAccepted(true);
+        invitationRepository.saveAndFlush(invitation);
+
+        try {
+            // A friendship missing from the graph is not looked up in the database
+            assertThat(invitationService.areFriends(sent.getId(), received.getId())).isFalse();
+
+            friendGraphService.setFriends(sent.getId(), received.getId(), true);
+            assertThat(invitationService.areFriends(received.getId(), sent.getId())).isTrue();
+            assertThat(invitationService.areFriends(sent.getId(), received.getId())).isTrue();
+
+            // A friendship of the graph the database does not have is removed
+            friendGraphService.setFriends(sent.getId(), other.getId(), true);
+            assertThat(invitationService.areFriends(sent.getId(), other.getId())).isFalse();
+            assertThat(friendGraphService.areFriends(sent.getId(), other.getId())).isFalse();
+
+            invitationRepository.deleteById(invitation.getId());
+            invitationRepository.flush();
+            assertThat(invitationService.areFriends(sent.getId(), received.getId())).isFalse();
+            assertThat(friendGraphService.areFriends(sent.getId(), received.getId())).isFalse();
+        } finally {
+            friendGraphService.removeProfile(sent.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    public void getFriendSummariesOfBothSides() throws Exception {
+        // Initialize the database: the profile sent one accepted invitation, received another, and sent a pending one
+        Profile profile = ProfileResourceIntTest.createEntity(em);
+        em.persist(profile);
+        Profile received = ProfileResourceIntTest.createEntity(em);
+        em.persist(received);
+        Profile sent = ProfileResourceIntTest.createEntity(em);
+        em.persist(sent);
+        Profile pending = ProfileResourceIntTest.createEntity(em);
+        em.persist(pending);
+        em.flush();
+        invitationRepository.saveAndFlush(createEntity(em).sent(profile).received(received).accepted(true));
+        invitationRepository.saveAndFlush(createEntity(em).sent(sent).received(profile).accepted(true));
+        invitationRepository.saveAndFlush(createEntity(em).sent(profile).received(pending));
+
+        Page<ProfileSummaryDTO> friends = invitationRepository.findFriendSummaries(profile.getId(),
+            PageRequest.of(0, 1, Sort.by("id")));
+        assertThat(friends.getTotalElements()).isEqualTo(2);
+        assertThat(friends.getContent()).extracting(ProfileSummaryDTO::getId).containsExactly(received.getId());
+        assertThat(friends.getContent().get(0).getDisplayName()).isEqualTo(received.getDisplayName());
+
+        friends = invitationRepository.findFriendSummaries(profile.getId(), PageRequest.of(1, 1, Sort.by("id")));
+        assertThat(friends.getContent()).extracting(ProfileSummaryDTO::getId).containsExactly(sent.getId());
+    }
+
+    @Test
+    @Transactional
+    public void checkProfilePairIsUnique() throws Exception {
+        // Initialize the database
+        Profile sent = ProfileResourceIntTest.createEntity(em);
+        em.persist(sent);
+        Profile received = ProfileResourceIntTest.createEntity(em);
+        em.persist(received);
+        em.flush();
+        invitation.setSent(sent);
+        invitation.setReceived(received);
+        invitationRepository.saveAndFlush(invitation);
+
+        assertThat(invitation.getLowProfileId()).isEqualTo(Math.min(sent.getId(), received.getId()));
+        assertThat(invitation.getHighProfileId()).isEqualTo(Math.max(sent.getId(), received.getId()));
+        assertThat(invitationService.existsBetween(received.getId(), sent.getId())).isTrue();
+
+        // An invitation in the other direction is a duplicate
+        Invitation reverse = createEntity(em);
+        reverse.setSent(received);
+        reverse.setReceived(sent);
+        assertThatThrownBy(() -> invitationRepository.saveAndFlush(reverse))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @Transactional
+    public void getProfilePairsModifiedSince() throws Exception {
+        // Initialize the database
+        Profile sent = ProfileResourceIntTest.createEntity(em);
+        em.persist(sent);
+        Profile received = ProfileResourceIntTest.createEntity(em);
+        em.persist(received);
+        invitation.setSent(sent);
+        invitation.setReceived(received);
+        Instant before = Instant.now();
+        invitationRepository.saveAndFlush(invitation);
+        invitationRepository.saveAndFlush(invitation.accepted(true));
+
+        assertThat(invitation.getLastModifiedDate()).isNotNull();
+        assertThat(invitationRepository.findProfilePairsModifiedSince(before))
+            .extracting(row -> row[0], row -> row[1], row -> row[2])
+            .contains(tuple(invitation.getLowProfileId(), invitation.getHighProfileId(), true));
+        assertThat(invitationRepository.findProfilePairsModifiedSince(Instant.now().plusSeconds(60))).isEmpty();
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned
      */
@@ -8,6 +8,7 @@ import edu.socialnetwork.domain.Message;
 import edu.socialnetwork.repository.LocationRepository;
 import edu.socialnetwork.repository.ProfileRepository;
 import edu.socialnetwork.service.LocationService;
+import edu.socialnetwork.service.ProfileService;
 import edu.socialnetwork.web.rest.errors.ExceptionTranslator;
 import edu.socialnetwork.service.dto.LocationCriteria;
 import edu.socialnetwork.service.LocationQueryService;
@@ -88,6 +89,9 @@ public class LocationResourceIntTest {
     @Autowired
     private ProfileRepository profileRepository;
 
+    @Autowired
+    private ProfileService profileService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -110,7 +114,7 @@ public class LocationResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final LocationResource locationResource = new LocationResource(locationService, locationQueryService, profileRepository);
+        final LocationResource locationResource = new LocationResource(locationService, locationQueryService, profileRepository, profileService);
         this.restLocationMockMvc = MockMvcBuilders.standaloneSetup(locationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
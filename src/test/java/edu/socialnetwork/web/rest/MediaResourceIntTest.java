@@ -0,0 +1,221 @@
+package edu.socialnetwork.web.rest;
+
+import edu.socialnetwork.SocialNetworkBackendApp;
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.config.Constants;
+import edu.socialnetwork.repository.MediaObjectRepository;
+import edu.socialnetwork.service.MediaStoreService;
+import edu.socialnetwork.service.ThumbnailService;
+import edu.socialnetwork.web.rest.errors.ExceptionTranslator;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the MediaResource REST controller.
+ *
+ * @see MediaResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SocialNetworkBackendApp.class)
+public class MediaResourceIntTest {
+
+    private static final byte[] CONTENT = TestUtil.createByteArray(16, "1");
+
+    private static final String CONTENT_TYPE = "image/png";
+
+    /**
+     * The first bytes of a PNG file.
+     */
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @Autowired
+    private MediaStoreService mediaStoreService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restMediaMockMvc;
+
+    private byte[] picture;
+
+    @Before
+    public void setup() {
+        MediaResource mediaResource = new MediaResource(mediaStoreService, thumbnailService);
+        this.restMediaMockMvc = MockMvcBuilders
+            .standaloneSetup(mediaResource)
+            .setControllerAdvice(exceptionTranslator)
+            .build();
+        // Random content, since uploads are committed
+        picture = createPicture(RandomStringUtils.randomAlphanumeric(32).getBytes());
+    }
+
+    @Test
+    public void uploadMedia() throws Exception {
+        String hash = MediaStoreService.hash(picture);
+
+        restMediaMockMvc.perform(post("/api/media")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(picture))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(HttpHeaders.LOCATION, "/media/" + hash))
+            .andExpect(jsonPath("$.hash").value(hash))
+            .andExpect(jsonPath("$.contentType").value("image/png"))
+            .andExpect(jsonPath("$.size").value(picture.length));
+
+        // The picture is stored, but not referenced yet
+        assertThat(mediaStoreService.read(hash)).isEqualTo(picture);
+        assertThat(mediaObjectRepository.findById(hash).get().getReferenceCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void uploadMediaFile() throws Exception {
+        String hash = MediaStoreService.hash(picture);
+
+        restMediaMockMvc.perform(multipart("/api/media")
+            .file(new MockMultipartFile("file", "picture.png", "image/png", picture)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.hash").value(hash))
+            .andExpect(jsonPath("$.contentType").value("image/png"));
+
+        assertThat(mediaStoreService.read(hash)).isEqualTo(picture);
+    }
+
+    @Test
+    public void uploadTooLargeMedia() throws Exception {
+        byte[] tooLarge = createPicture(new byte[(int) applicationProperties.getMedia().getMaxSize()]);
+
+        restMediaMockMvc.perform(post("/api/media")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(tooLarge))
+            .andExpect(status().isPayloadTooLarge());
+
+        assertThat(mediaObjectRepository.existsById(MediaStoreService.hash(tooLarge))).isFalse();
+    }
+
+    @Test
+    public void uploadUnsupportedMedia() throws Exception {
+        restMediaMockMvc.perform(post("/api/media")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("not a picture".getBytes()))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getMedia() throws Exception {
+        String hash = mediaStoreService.store(CONTENT, CONTENT_TYPE);
+
+        restMediaMockMvc.perform(get("/media/{hash}", hash))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(CONTENT_TYPE))
+            .andExpect(content().bytes(CONTENT))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, MediaResource.CACHE_CONTROL));
+    }
+
+    @Test
+    @Transactional
+    public void getNotModifiedMedia() throws Exception {
+        String hash = mediaStoreService.store(CONTENT, CONTENT_TYPE);
+
+        restMediaMockMvc.perform(get("/media/{hash}", hash).header(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingMedia() throws Exception {
+        restMediaMockMvc.perform(get("/media/{hash}", MediaStoreService.hash(new byte[0])))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getMediaThumbnail() throws Exception {
+        String hash = mediaStoreService.store(createImage(), CONTENT_TYPE);
+        assertThat(thumbnailService.createThumbnails(hash)).isTrue();
+
+        restMediaMockMvc.perform(get("/media/{hash}/thumbnail/{size}", hash, Constants.LIST_THUMBNAIL_SIZE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/jpeg"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "-" + Constants.LIST_THUMBNAIL_SIZE + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, MediaResource.CACHE_CONTROL));
+    }
+
+    @Test
+    @Transactional
+    public void getMissingMediaThumbnail() throws Exception {
+        String hash = mediaStoreService.store(CONTENT, CONTENT_TYPE);
+
+        restMediaMockMvc.perform(get("/media/{hash}/thumbnail/{size}", hash, Constants.LIST_THUMBNAIL_SIZE))
+            .andExpect(status().isFound())
+            .andExpect(redirectedUrl("/media/" + hash))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    @Transactional
+    public void getUnsupportedMediaThumbnail() throws Exception {
+        String hash = mediaStoreService.store(CONTENT, CONTENT_TYPE);
+
+        restMediaMockMvc.perform(get("/media/{hash}/thumbnail/{size}", hash, 100))
+            .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Create an opaque PNG picture, with random pixels since files outlive the rolled back transactions.
+     */
+    private static byte[] createImage() throws IOException {
+        BufferedImage image = new BufferedImage(128, 96, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, ThreadLocalRandom.current().nextInt());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    private static byte[] createPicture(byte[] data) {
+        byte[] picture = Arrays.copyOf(PNG_SIGNATURE, PNG_SIGNATURE.length + data.length);
+        System.arraycopy(data, 0, picture, PNG_SIGNATURE.length, data.length);
+        return picture;
+    }
+}
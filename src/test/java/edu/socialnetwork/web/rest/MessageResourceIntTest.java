@@ -7,11 +7,14 @@ import edu.socialnetwork.domain.Location;
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.domain.Chatroom;
 import edu.socialnetwork.repository.MessageRepository;
+import edu.socialnetwork.service.CountCacheService;
+import edu.socialnetwork.service.MediaStoreService;
 import edu.socialnetwork.service.MessageService;
 import edu.socialnetwork.web.rest.errors.ExceptionTranslator;
 import edu.socialnetwork.service.dto.MessageCriteria;
 import edu.socialnetwork.service.MessageQueryService;
 
+import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -19,13 +22,14 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
@@ -39,7 +43,9 @@ import java.util.List;
 import static edu.socialnetwork.web.rest.TestUtil.sameInstant;
 import static edu.socialnetwork.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -72,9 +78,15 @@ public class MessageResourceIntTest {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MediaStoreService mediaStoreService;
+
     @Autowired
     private MessageQueryService messageQueryService;
 
+    @Autowired
+    private CountCacheService countCacheService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -145,7 +157,8 @@ public class MessageResourceIntTest {
         assertThat(testMessage.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
         assertThat(testMessage.getMessage()).isEqualTo(DEFAULT_MESSAGE);
         assertThat(testMessage.getUrl()).isEqualTo(DEFAULT_URL);
-        assertThat(testMessage.getPicture()).isEqualTo(DEFAULT_PICTURE);
+        assertThat(testMessage.getPictureHash()).isEqualTo(MediaStoreService.hash(DEFAULT_PICTURE));
+        assertThat(mediaStoreService.read(testMessage.getPictureHash())).isEqualTo(DEFAULT_PICTURE);
         assertThat(testMessage.getPictureContentType()).isEqualTo(DEFAULT_PICTURE_CONTENT_TYPE);
     }
 
@@ -200,10 +213,94 @@ public class MessageResourceIntTest {
             .andExpect(jsonPath("$.[*].createdDate").value(hasItem(sameInstant(DEFAULT_CREATED_DATE))))
             .andExpect(jsonPath("$.[*].message").value(hasItem(DEFAULT_MESSAGE.toString())))
             .andExpect(jsonPath("$.[*].url").value(hasItem(DEFAULT_URL.toString())))
-            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].picture").value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE))));
+            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)));
+    }
+
+    @Test
+    @Transactional
+    public void getAllMessagesAfterCursor() throws Exception {
+        // Initialize the database: two messages created at the same time, and an older one
+        String text = RandomStringUtils.randomAlphanumeric(10);
+        Message first = messageRepository.saveAndFlush(createEntity(em).message(text).createdDate(UPDATED_CREATED_DATE));
+        Message second = messageRepository.saveAndFlush(createEntity(em).message(text).createdDate(UPDATED_CREATED_DATE));
+        Message older = messageRepository.saveAndFlush(createEntity(em).message(text).createdDate(UPDATED_CREATED_DATE.minusHours(1)));
+
+        // The first slice is newest first, ties broken by descending id, without a total count
+        MvcResult result = restMessageMockMvc.perform(get("/api/messages?after=&size=2&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(first.getId().intValue()))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).endsWith(">; rel=\"next\"").contains("message.equals=" + text);
+
+        // The next slice keeps the filters, and is the last one
+        restMessageMockMvc.perform(get(link.substring(1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(older.getId().intValue()));
+
+        // A malformed cursor is rejected
+        restMessageMockMvc.perform(get("/api/messages?after=not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getAllMessagesWithoutCount() throws Exception {
+        // Initialize the database
+        String text = RandomStringUtils.randomAlphanumeric(10);
+        messageRepository.saveAndFlush(createEntity(em).message(text));
+        messageRepository.saveAndFlush(createEntity(em).message(text));
+
+        restMessageMockMvc.perform(get("/api/messages?sort=id,asc&size=1&count=NONE&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("count=NONE&page=1&size=1>; rel=\"next\"")))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"last\""))))
+            .andExpect(jsonPath("$.length()").value(1));
+
+        restMessageMockMvc.perform(get("/api/messages?sort=id,asc&size=1&page=1&count=NONE&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.length()").value(1));
+
+        restMessageMockMvc.perform(get("/api/messages?count=SOME"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getAllMessagesWithApproximateCount() throws Exception {
+        // Initialize the database
+        String text = RandomStringUtils.randomAlphanumeric(10);
+        messageRepository.saveAndFlush(createEntity(em).message(text));
+        messageRepository.saveAndFlush(createEntity(em).message(text));
+        countCacheService.clear();
+
+        restMessageMockMvc.perform(get("/api/messages?size=1&count=APPROXIMATE&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("count=APPROXIMATE")));
+
+        // The count is served from the cache until it expires
+        messageRepository.saveAndFlush(createEntity(em).message(text));
+        restMessageMockMvc.perform(get("/api/messages?size=1&count=APPROXIMATE&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"));
+        restMessageMockMvc.perform(get("/api/messages?size=1&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"));
+
+        countCacheService.clear();
+        restMessageMockMvc.perform(get("/api/messages?size=1&count=APPROXIMATE&message.equals=" + text))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"));
     }
-    
+
     @Test
     @Transactional
     public void getMessage() throws Exception {
@@ -218,8 +315,7 @@ public class MessageResourceIntTest {
             .andExpect(jsonPath("$.createdDate").value(sameInstant(DEFAULT_CREATED_DATE)))
             .andExpect(jsonPath("$.message").value(DEFAULT_MESSAGE.toString()))
             .andExpect(jsonPath("$.url").value(DEFAULT_URL.toString()))
-            .andExpect(jsonPath("$.pictureContentType").value(DEFAULT_PICTURE_CONTENT_TYPE))
-            .andExpect(jsonPath("$.picture").value(Base64Utils.encodeToString(DEFAULT_PICTURE)));
+            .andExpect(jsonPath("$.pictureContentType").value(DEFAULT_PICTURE_CONTENT_TYPE));
     }
 
     @Test
@@ -433,8 +529,7 @@ public class MessageResourceIntTest {
             .andExpect(jsonPath("$.[*].createdDate").value(hasItem(sameInstant(DEFAULT_CREATED_DATE))))
             .andExpect(jsonPath("$.[*].message").value(hasItem(DEFAULT_MESSAGE)))
             .andExpect(jsonPath("$.[*].url").value(hasItem(DEFAULT_URL)))
-            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].picture").value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE))));
+            .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)));
 
         // Check, that the count call also returns 1
         restMessageMockMvc.perform(get("/api/messages/count?sort=id,desc&" + filter))
@@ -500,7 +595,8 @@ public class MessageResourceIntTest {
         assertThat(testMessage.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
         assertThat(testMessage.getMessage()).isEqualTo(UPDATED_MESSAGE);
         assertThat(testMessage.getUrl()).isEqualTo(UPDATED_URL);
-        assertThat(testMessage.getPicture()).isEqualTo(UPDATED_PICTURE);
+        assertThat(testMessage.getPictureHash()).isEqualTo(MediaStoreService.hash(UPDATED_PICTURE));
+        assertThat(mediaStoreService.read(testMessage.getPictureHash())).isEqualTo(UPDATED_PICTURE);
         assertThat(testMessage.getPictureContentType()).isEqualTo(UPDATED_PICTURE_CONTENT_TYPE);
     }
 
@@ -2,6 +2,9 @@ package edu.socialnetwork.web.rest;
 
 import edu.socialnetwork.SocialNetworkBackendApp;
 
+import edu.socialnetwork.config.ApplicationProperties;
+import edu.socialnetwork.config.Constants;
+
 import edu.socialnetwork.domain.Profile;
 import edu.socialnetwork.domain.Location;
 import edu.socialnetwork.domain.User;
@@ -14,36 +17,51 @@ import edu.socialnetwork.domain.Message;
 import edu.socialnetwork.domain.DirectMessage;
 import edu.socialnetwork.domain.Chatroom;
 import edu.socialnetwork.repository.ProfileRepository;
+import edu.socialnetwork.service.FriendGraphService;
+import edu.socialnetwork.service.GeoIndexService;
+import edu.socialnetwork.service.MediaStoreService;
 import edu.socialnetwork.service.ProfileService;
+import edu.socialnetwork.service.ProximityCacheService;
 import edu.socialnetwork.web.rest.errors.ExceptionTranslator;
+import edu.socialnetwork.service.dto.CountMode;
 import edu.socialnetwork.service.dto.ProfileCriteria;
+import edu.socialnetwork.service.dto.ProfileSummaryDTO;
 import edu.socialnetwork.service.ProfileQueryService;
+import edu.socialnetwork.service.KeysetQueryService;
+import edu.socialnetwork.service.util.KeysetCursor;
 
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.RandomUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 
 import static edu.socialnetwork.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -95,9 +113,24 @@ public class ProfileResourceIntTest {
     @Autowired
     private ProfileService profileService;
 
+    @Autowired
+    private MediaStoreService mediaStoreService;
+
     @Autowired
     private ProfileQueryService profileQueryService;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private ProximityCacheService proximityCacheService;
+
+    @Autowired
+    private GeoIndexService geoIndexService;
+
+    @Autowired
+    private FriendGraphService friendGraphService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -120,7 +153,7 @@ public class ProfileResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final ProfileResource profileResource = new ProfileResource(profileService, profileQueryService, null);
+        final ProfileResource profileResource = new ProfileResource(profileService, profileQueryService, null, null);
         this.restProfileMockMvc = MockMvcBuilders.standaloneSetup(profileResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -172,7 +205,8 @@ public class ProfileResourceIntTest {
         assertThat(profileList).hasSize(databaseSizeBeforeCreate + 1);
         Profile testProfile = profileList.get(profileList.size() - 1);
         assertThat(testProfile.getBirthDate()).isEqualTo(DEFAULT_BIRTH_DATE);
-        assertThat(testProfile.getPicture()).isEqualTo(DEFAULT_PICTURE);
+        assertThat(testProfile.getPictureHash()).isEqualTo(MediaStoreService.hash(DEFAULT_PICTURE));
+        assertThat(mediaStoreService.read(testProfile.getPictureHash())).isEqualTo(DEFAULT_PICTURE);
         assertThat(testProfile.getPictureContentType()).isEqualTo(DEFAULT_PICTURE_CONTENT_TYPE);
         assertThat(testProfile.getHeight()).isEqualTo(DEFAULT_HEIGHT);
         assertThat(testProfile.getWeight()).isEqualTo(DEFAULT_WEIGHT);
@@ -234,7 +268,6 @@ public class ProfileResourceIntTest {
             .andExpect(jsonPath("$.[*].id").value(hasItem(profile.getId().intValue())))
             .andExpect(jsonPath("$.[*].birthDate").value(hasItem(DEFAULT_BIRTH_DATE.toString())))
             .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].picture").value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE))))
             .andExpect(jsonPath("$.[*].height").value(hasItem(DEFAULT_HEIGHT.doubleValue())))
             .andExpect(jsonPath("$.[*].weight").value(hasItem(DEFAULT_WEIGHT.doubleValue())))
             .andExpect(jsonPath("$.[*].unitSystem").value(hasItem(DEFAULT_UNIT_SYSTEM.toString())))
@@ -245,6 +278,36 @@ public class ProfileResourceIntTest {
             .andExpect(jsonPath("$.[*].filterPreferences").value(hasItem(DEFAULT_FILTER_PREFERENCES.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllProfilesAfterCursor() throws Exception {
+        // Initialize the database
+        String displayName = RandomStringUtils.randomAlphanumeric(10);
+        Profile first = profileRepository.saveAndFlush(createEntity(em).displayName(displayName));
+        Profile second = profileRepository.saveAndFlush(createEntity(em).displayName(displayName));
+
+        // Profiles are ordered by ascending id
+        restProfileMockMvc.perform(get("/api/profiles?after=&size=1&displayName.equals=" + displayName))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + KeysetCursor.of(first.getId()).encode())))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+
+        restProfileMockMvc.perform(get("/api/profiles?size=1&displayName.equals=" + displayName
+            + "&after=" + KeysetCursor.of(first.getId()).encode()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()));
+
+        // A cursor ordered by creation date, or a size out of range, is rejected
+        restProfileMockMvc.perform(get("/api/profiles?after=" + KeysetCursor.of(ZonedDateTime.now(), first.getId()).encode()))
+            .andExpect(status().isBadRequest());
+        restProfileMockMvc.perform(get("/api/profiles?after=&size=" + (KeysetQueryService.MAX_SLICE_SIZE + 1)))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getProfile() throws Exception {
@@ -258,7 +321,6 @@ public class ProfileResourceIntTest {
             .andExpect(jsonPath("$.id").value(profile.getId().intValue()))
             .andExpect(jsonPath("$.birthDate").value(DEFAULT_BIRTH_DATE.toString()))
             .andExpect(jsonPath("$.pictureContentType").value(DEFAULT_PICTURE_CONTENT_TYPE))
-            .andExpect(jsonPath("$.picture").value(Base64Utils.encodeToString(DEFAULT_PICTURE)))
             .andExpect(jsonPath("$.height").value(DEFAULT_HEIGHT.doubleValue()))
             .andExpect(jsonPath("$.weight").value(DEFAULT_WEIGHT.doubleValue()))
             .andExpect(jsonPath("$.unitSystem").value(DEFAULT_UNIT_SYSTEM.toString()))
@@ -723,6 +785,137 @@ public class ProfileResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void getAllProfilesByGenderFromBitmapIndex() throws Exception {
+        // Initialize the database, through the service which updates the bitmap index on commit
+        Gender gender = GenderResourceIntTest.createEntity(em);
+        em.persist(gender);
+        em.flush();
+        profile.setGender(gender);
+        profileService.save(profile);
+        commitTestTransaction();
+        Long genderId = gender.getId();
+
+        applicationProperties.getProfileFilter().setStrategy(ApplicationProperties.ProfileFilter.Strategy.MEMORY);
+        try {
+            defaultProfileShouldBeFound("genderId.equals=" + genderId + "&banned.equals=" + DEFAULT_BANNED);
+            defaultProfileShouldNotBeFound("genderId.equals=" + genderId + "&banned.equals=" + UPDATED_BANNED);
+            defaultProfileShouldNotBeFound("genderId.in=" + (genderId + 1));
+        } finally {
+            applicationProperties.getProfileFilter().setStrategy(ApplicationProperties.ProfileFilter.Strategy.DATABASE);
+            deleteCommitted(profile, gender);
+        }
+    }
+
+
+    @Test
+    @Transactional
+    public void getAllProfilesFromBitmapIndexWhateverTheCountMode() throws Exception {
+        // Initialize the database, bypassing the bitmap index
+        Gender gender = GenderResourceIntTest.createEntity(em);
+        em.persist(gender);
+        em.flush();
+        profile.setGender(gender);
+        profileRepository.saveAndFlush(profile);
+        Long genderId = gender.getId();
+
+        applicationProperties.getProfileFilter().setStrategy(ApplicationProperties.ProfileFilter.Strategy.MEMORY);
+        try {
+            // Every count mode reads the index, which does not know the profile
+            for (CountMode count : CountMode.values()) {
+                restProfileMockMvc.perform(get("/api/profiles?sort=id,desc&genderId.equals={id}&count={count}", genderId, count))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isEmpty());
+            }
+        } finally {
+            applicationProperties.getProfileFilter().setStrategy(ApplicationProperties.ProfileFilter.Strategy.DATABASE);
+        }
+    }
+
+
+    @Test
+    @Transactional
+    public void getProfileFacets() throws Exception {
+        // Initialize the database, bypassing the bitmap index
+        Gender gender = GenderResourceIntTest.createEntity(em);
+        em.persist(gender);
+        em.flush();
+        String displayName = RandomStringUtils.randomAlphabetic(12);
+        profile.setGender(gender);
+        profile.setDisplayName(displayName);
+        profile.setShowAge(true);
+        profileRepository.saveAndFlush(profile);
+
+        // Every filter is evaluated in SQL with the database strategy
+        restProfileMockMvc.perform(get("/api/profiles/facets?displayName.equals={name}&genderId.equals={id}",
+            displayName, gender.getId() + 1))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.total").value(0))
+            .andExpect(jsonPath("$.genders." + gender.getId()).value(1))
+            .andExpect(jsonPath("$.ethnicities").isEmpty())
+            .andExpect(jsonPath("$.ages.['55-64']").value(0));
+        restProfileMockMvc.perform(get("/api/profiles/facets?displayName.equals={name}", displayName))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(1))
+            .andExpect(jsonPath("$.ages.['55-64']").value(1))
+            .andExpect(jsonPath("$.ages.['18-24']").value(0));
+    }
+
+
+    @Test
+    @Transactional
+    public void getProfileFacetsFromBitmapIndex() throws Exception {
+        // Initialize the database, through the service which updates the bitmap index
+        Gender gender = GenderResourceIntTest.createEntity(em);
+        em.persist(gender);
+        em.flush();
+        profile.setGender(gender);
+        profileService.save(profile);
+        commitTestTransaction();
+
+        applicationProperties.getProfileFilter().setStrategy(ApplicationProperties.ProfileFilter.Strategy.MEMORY);
+        try {
+            restProfileMockMvc.perform(get("/api/profiles/facets?genderId.equals={id}", gender.getId() + 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.genders." + gender.getId()).value(1))
+                .andExpect(jsonPath("$.ages").isMap());
+        } finally {
+            applicationProperties.getProfileFilter().setStrategy(ApplicationProperties.ProfileFilter.Strategy.DATABASE);
+            deleteCommitted(profile, gender);
+        }
+    }
+
+
+    @Test
+    @Transactional
+    public void getMutualFriendsWithoutTheBannedOnes() throws Exception {
+        // Initialize the database, bypassing the bitmap index
+        profileRepository.saveAndFlush(profile);
+        Profile other = profileRepository.saveAndFlush(createEntity(em));
+        Profile friend = profileRepository.saveAndFlush(createEntity(em));
+        Profile banned = profileRepository.saveAndFlush(createEntity(em).banned(true));
+        for (Profile mutualFriend : new Profile[]{friend, banned}) {
+            friendGraphService.setFriends(profile.getId(), mutualFriend.getId(), true);
+            friendGraphService.setFriends(other.getId(), mutualFriend.getId(), true);
+        }
+
+        try {
+            // The banned profiles are read from the database with the database strategy
+            assertThat(profileService.findMutualFriends(profile.getId(), other.getId(), PageRequest.of(0, 10)).getContent())
+                .extracting(ProfileSummaryDTO::getId)
+                .containsExactly(friend.getId());
+        } finally {
+            for (Profile friendProfile : new Profile[]{profile, other, friend, banned}) {
+                friendGraphService.removeProfile(friendProfile.getId());
+            }
+        }
+    }
+
+
     @Test
     @Transactional
     public void getAllProfilesByEthnicityIsEqualToSomething() throws Exception {
@@ -760,6 +953,28 @@ public class ProfileResourceIntTest {
         defaultProfileShouldNotBeFound("sentInvitationId.equals=" + (sentInvitationId + 1));
     }
 
+    @Test
+    @Transactional
+    public void getAllProfilesBySentInvitationIsInReturnsEachProfileOnce() throws Exception {
+        // Initialize the database
+        Invitation firstInvitation = InvitationResourceIntTest.createEntity(em);
+        Invitation secondInvitation = InvitationResourceIntTest.createEntity(em);
+        em.persist(firstInvitation);
+        em.persist(secondInvitation);
+        em.flush();
+        profile.addSentInvitation(firstInvitation);
+        profile.addSentInvitation(secondInvitation);
+        profileRepository.saveAndFlush(profile);
+
+        // Both invitations match, but the EXISTS filter returns the profile once
+        restProfileMockMvc.perform(get("/api/profiles?sort=id,desc&sentInvitationId.in="
+            + firstInvitation.getId() + "," + secondInvitation.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(profile.getId().intValue()));
+    }
+
 
     @Test
     @Transactional
@@ -912,6 +1127,27 @@ public class ProfileResourceIntTest {
         defaultProfileShouldNotBeFound("joinedChatroomId.equals=" + (joinedChatroomId + 1));
     }
 
+    /**
+     * Commit the changes of the test, so that the in-memory indexes updated on commit see them, and start a new
+     * transaction. What is committed must be deleted with {@link #deleteCommitted}.
+     */
+    private void commitTestTransaction() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+    }
+
+    /**
+     * Delete a committed profile and the entities it refers to, and commit.
+     */
+    private void deleteCommitted(Profile profile, Object... entities) {
+        profileService.delete(profile.getId());
+        for (Object entity : entities) {
+            em.remove(em.merge(entity));
+        }
+        commitTestTransaction();
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned
      */
@@ -922,7 +1158,6 @@ public class ProfileResourceIntTest {
             .andExpect(jsonPath("$.[*].id").value(hasItem(profile.getId().intValue())))
             .andExpect(jsonPath("$.[*].birthDate").value(hasItem(DEFAULT_BIRTH_DATE.toString())))
             .andExpect(jsonPath("$.[*].pictureContentType").value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].picture").value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE))))
             .andExpect(jsonPath("$.[*].height").value(hasItem(DEFAULT_HEIGHT.doubleValue())))
             .andExpect(jsonPath("$.[*].weight").value(hasItem(DEFAULT_WEIGHT.doubleValue())))
             .andExpect(jsonPath("$.[*].unitSystem").value(hasItem(DEFAULT_UNIT_SYSTEM.toString())))
@@ -957,6 +1192,236 @@ public class ProfileResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void getProfilesByLocationNear() throws Exception {
+        // Initialize the database
+        Location location = LocationResourceIntTest.createEntity(em);
+        em.persist(location);
+        em.flush();
+        profile.setLocation(location);
+        profileService.save(profile);
+        commitTestTransaction();
+
+        try {
+            // Get the profiles around the location
+            restProfileMockMvc.perform(get("/api/profiles/by-location?lat={lat}&long={long}&d=10",
+                location.getLatitude(), location.getLongitude() + 0.05))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.[*].profile.id").value(hasItem(profile.getId().intValue())))
+                .andExpect(jsonPath("$.[*].profile.displayName").value(hasItem(DEFAULT_DISPLAY_NAME)))
+                .andExpect(jsonPath("$.[*].profile.thumbnailUrl").value(hasItem("/media/" + profile.getPictureHash() + "/thumbnail/" + Constants.LIST_THUMBNAIL_SIZE)))
+                .andExpect(jsonPath("$.[*].profile.picture").doesNotExist());
+
+            // Get the profiles around a point farther than the requested distance
+            restProfileMockMvc.perform(get("/api/profiles/by-location?lat={lat}&long={long}&d=10",
+                location.getLatitude() + 1, location.getLongitude()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].profile.id").value(not(hasItem(profile.getId().intValue()))));
+        } finally {
+            deleteCommitted(profile, location);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void getProfilesByLocationNearFromDatabase() throws Exception {
+        // Initialize the database, bypassing the geo index
+        Location location = LocationResourceIntTest.createEntity(em);
+        em.persist(location);
+        em.flush();
+        profile.setLocation(location);
+        profileRepository.saveAndFlush(profile);
+
+        applicationProperties.getProximity().setStrategy(ApplicationProperties.Proximity.Strategy.DATABASE);
+        // The profile was saved without going through the geo index, which invalidates the cache
+        proximityCacheService.clear();
+        try {
+            restProfileMockMvc.perform(get("/api/profiles/by-location?lat={lat}&long={long}&d=10",
+                location.getLatitude(), location.getLongitude() + 0.05))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].profile.id").value(hasItem(profile.getId().intValue())));
+
+            restProfileMockMvc.perform(get("/api/profiles/by-location?lat={lat}&long={long}&d=10",
+                location.getLatitude() + 1, location.getLongitude()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].profile.id").value(not(hasItem(profile.getId().intValue()))));
+        } finally {
+            applicationProperties.getProximity().setStrategy(ApplicationProperties.Proximity.Strategy.MEMORY);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void getNearestProfiles() throws Exception {
+        // Initialize the database
+        Location location = LocationResourceIntTest.createEntity(em);
+        em.persist(location);
+        em.flush();
+        profile.setLocation(location);
+        profileService.save(profile);
+        commitTestTransaction();
+
+        try {
+            // Get the first page of nearest profiles
+            restProfileMockMvc.perform(get("/api/profiles/nearest?lat={lat}&long={long}&size=1",
+                location.getLatitude(), location.getLongitude()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].profile.id").value(profile.getId().intValue()))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("afterId=" + profile.getId())));
+
+            // Continue after the profile
+            restProfileMockMvc.perform(get("/api/profiles/nearest?lat={lat}&long={long}&size=1&afterDistance=0&afterId={id}",
+                location.getLatitude(), location.getLongitude(), profile.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].profile.id").value(not(hasItem(profile.getId().intValue()))));
+        } finally {
+            deleteCommitted(profile, location);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void getNearestProfilesAfterDeletedProfile() throws Exception {
+        // A profile still in the geo index, deleted from the database
+        Long deletedId = Long.MAX_VALUE - RandomUtils.nextInt(0, 1000);
+        Location location = LocationResourceIntTest.createEntity(em)
+            .latitude(RandomUtils.nextDouble(0, 60))
+            .longitude(RandomUtils.nextDouble(0, 60));
+        location.setId(deletedId);
+        Profile deleted = createEntity(em).location(location);
+        deleted.setId(deletedId);
+        geoIndexService.update(deleted);
+
+        try {
+            // The page holds no profile, but continues after the deleted one
+            restProfileMockMvc.perform(get("/api/profiles/nearest?lat={lat}&long={long}&size=1",
+                location.getLatitude(), location.getLongitude()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty())
+                .andExpect(header().string(HttpHeaders.LINK, containsString("afterId=" + deletedId)));
+        } finally {
+            geoIndexService.remove(deletedId);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void getProfilesByLocationWithInvalidParameters() throws Exception {
+        restProfileMockMvc.perform(get("/api/profiles/by-location?lat=NaN&long=1&d=10"))
+            .andExpect(status().isBadRequest());
+        restProfileMockMvc.perform(get("/api/profiles/by-location?lat=91&long=1&d=10"))
+            .andExpect(status().isBadRequest());
+        restProfileMockMvc.perform(get("/api/profiles/by-location?lat=1&long=1&d=-1"))
+            .andExpect(status().isBadRequest());
+        restProfileMockMvc.perform(get("/api/profiles/by-location?lat=1&long=1&d=NaN"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invaliddistance"));
+    }
+
+    @Test
+    @Transactional
+    public void getNearestProfilesWithInvalidCursor() throws Exception {
+        restProfileMockMvc.perform(get("/api/profiles/nearest?lat=1&long=1&afterDistance=1"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void searchProfiles() throws Exception {
+        // Initialize the database
+        String term = RandomStringUtils.randomAlphabetic(12).toLowerCase();
+        profile.setDisplayName("José " + term);
+        profile.setAboutMe("Climbing and photography");
+        profileService.save(profile);
+        commitTestTransaction();
+
+        try {
+            // Search on both fields, ignoring accents and case
+            restProfileMockMvc.perform(get("/api/profiles/search?q={q}", "jose PHOTOGRAPHY " + term))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(jsonPath("$.[0].id").value(profile.getId().intValue()))
+                .andExpect(jsonPath("$.[0].displayName").value("José " + term));
+
+            // Every term must match
+            restProfileMockMvc.perform(get("/api/profiles/search?q={q}", term + " sailing"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "0"))
+                .andExpect(jsonPath("$").isEmpty());
+        } finally {
+            deleteCommitted(profile);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void suggestProfiles() throws Exception {
+        // Initialize the database
+        String name = "Zq" + RandomStringUtils.randomAlphabetic(10).toLowerCase();
+        profile.setDisplayName(name);
+        profileService.save(profile);
+        commitTestTransaction();
+
+        try {
+            restProfileMockMvc.perform(get("/api/profiles/suggest?prefix={prefix}", name.substring(0, 6).toUpperCase()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.[0].id").value(profile.getId().intValue()))
+                .andExpect(jsonPath("$.[0].displayName").value(name));
+        } finally {
+            deleteCommitted(profile);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void indexesIgnoreRolledBackProfile() throws Exception {
+        String name = "Zq" + RandomStringUtils.randomAlphabetic(10).toLowerCase();
+        profile.setDisplayName(name);
+        profileService.save(profile);
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        restProfileMockMvc.perform(get("/api/profiles/suggest?prefix={prefix}", name))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restProfileMockMvc.perform(get("/api/profiles/search?q={q}", name))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    public void suggestProfilesWithInvalidSize() throws Exception {
+        restProfileMockMvc.perform(get("/api/profiles/suggest?prefix=a&size=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getProfilePicture() throws Exception {
+        // Initialize the database
+        profileService.save(profile);
+
+        // Get the picture of the profile: it is served by the media store
+        restProfileMockMvc.perform(get("/api/profiles/{id}/picture", profile.getId()))
+            .andExpect(status().isFound())
+            .andExpect(redirectedUrl("/media/" + MediaStoreService.hash(DEFAULT_PICTURE)));
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingProfilePicture() throws Exception {
+        // Initialize the database
+        profileRepository.saveAndFlush(profile.picture(null).pictureContentType(null));
+
+        restProfileMockMvc.perform(get("/api/profiles/{id}/picture", profile.getId()))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void getNonExistingProfile() throws Exception {
@@ -1000,7 +1465,8 @@ public class ProfileResourceIntTest {
         assertThat(profileList).hasSize(databaseSizeBeforeUpdate);
         Profile testProfile = profileList.get(profileList.size() - 1);
         assertThat(testProfile.getBirthDate()).isEqualTo(UPDATED_BIRTH_DATE);
-        assertThat(testProfile.getPicture()).isEqualTo(UPDATED_PICTURE);
+        assertThat(testProfile.getPictureHash()).isEqualTo(MediaStoreService.hash(UPDATED_PICTURE));
+        assertThat(mediaStoreService.read(testProfile.getPictureHash())).isEqualTo(UPDATED_PICTURE);
         assertThat(testProfile.getPictureContentType()).isEqualTo(UPDATED_PICTURE_CONTENT_TYPE);
         assertThat(testProfile.getHeight()).isEqualTo(UPDATED_HEIGHT);
         assertThat(testProfile.getWeight()).isEqualTo(UPDATED_WEIGHT);